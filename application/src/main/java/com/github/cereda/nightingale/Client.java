@@ -0,0 +1,157 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale;
+
+import com.github.cereda.nightingale.controller.LanguageController;
+import com.github.cereda.nightingale.model.Messages;
+import com.github.cereda.nightingale.utils.DaemonUtils;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Properties;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Thin client for the nightingale daemon. It forwards the command line
+ * arguments, the working directory and the environment to a running daemon
+ * and streams back the output and the exit code. If there is no daemon
+ * available, or the command line asks for one of the modes which must run
+ * on their own (the daemon itself, the watch mode and the generation of the
+ * class data sharing archive), the application simply runs in this virtual
+ * machine. The launcher scripts start the application through this class.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class Client {
+
+    /**
+     * Main method. This is the client entry point.
+     * @param args A string array containing all command line arguments.
+     */
+    public static void main(String[] args) {
+
+        // these modes never go
+        // through the daemon
+        for (String argument : args) {
+            if (Arrays.asList("-d", "--daemon", "-w", "--watch",
+                    "--generate-cds").contains(argument)) {
+                Nightingale.main(args);
+                return;
+            }
+        }
+
+        // try to reach the daemon through the information
+        // available in the daemon file; if something goes
+        // wrong, there is no daemon to talk to, so let's
+        // fall back to the good old way
+        Socket socket;
+        String token;
+        try {
+            Properties properties = DaemonUtils.readDaemonFile(
+                    DaemonUtils.getDaemonFile()
+            );
+            token = properties.getProperty("token", "");
+            int port = Integer.parseInt(properties.getProperty("port"));
+            socket = new Socket(InetAddress.getByName(null), port);
+        } catch (Exception exception) {
+            Nightingale.main(args);
+            return;
+        }
+
+        int status;
+        try {
+
+            // send the token, the working directory,
+            // the arguments and the environment
+            DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(socket.getOutputStream())
+            );
+            DaemonUtils.writeString(output, token);
+            DaemonUtils.writeString(output,
+                    new File(System.getProperty("user.dir")).
+                            getAbsolutePath()
+            );
+            output.writeInt(args.length);
+            for (String argument : args) {
+                DaemonUtils.writeString(output, argument);
+            }
+            Map<String, String> environment = System.getenv();
+            output.writeInt(environment.size());
+            for (String key : environment.keySet()) {
+                DaemonUtils.writeString(output, key);
+                DaemonUtils.writeString(output, environment.get(key));
+            }
+            output.flush();
+
+            // now, read the output frames until
+            // the daemon sends the exit code
+            DataInputStream input = new DataInputStream(
+                    new BufferedInputStream(socket.getInputStream())
+            );
+            while (true) {
+                byte type = input.readByte();
+                if (type == DaemonUtils.FRAME_OUTPUT) {
+                    byte[] buffer = new byte[input.readInt()];
+                    input.readFully(buffer);
+                    System.out.write(buffer);
+                    System.out.flush();
+                } else {
+                    status = input.readInt();
+                    break;
+                }
+            }
+
+        } catch (IOException ioexception) {
+            System.out.println(
+                    LanguageController.getInstance().getMessage(
+                            Messages.ERROR_CLIENT_CONNECTION_LOST
+                    )
+            );
+            status = 1;
+        } finally {
+            IOUtils.closeQuietly(socket);
+        }
+
+        System.exit(status);
+    }
+
+}
@@ -0,0 +1,74 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale;
+
+import com.github.cereda.nightingale.model.NightingaleException;
+import com.github.cereda.nightingale.utils.LibraryUtils;
+import java.io.File;
+
+/**
+ * Rule library builder. It compiles the bundled rules at build time, so the
+ * packaged application does not need to compile them at runtime. It expects
+ * two arguments, the directory containing the rule files and the output
+ * directory, in this order.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class Library {
+
+    /**
+     * Main method. This is the rule library builder entry point.
+     * @param args A string array containing all command line arguments.
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.out.println("usage: Library <rules> <output>");
+            System.exit(1);
+        }
+        try {
+            int count = LibraryUtils.compile(new File(args[0]),
+                    new File(args[1]));
+            System.out.println("Compiled rules: ".concat(
+                    String.valueOf(count)));
+        } catch (NightingaleException exception) {
+            System.out.println(exception.getMessage());
+            if (exception.hasException()) {
+                System.out.println(exception.getException().getMessage());
+            }
+            System.exit(1);
+        }
+    }
+
+}
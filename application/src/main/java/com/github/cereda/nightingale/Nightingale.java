@@ -33,18 +33,33 @@
  */
 package com.github.cereda.nightingale;
 
+import com.github.cereda.nightingale.controller.CompilerController;
+import com.github.cereda.nightingale.controller.ConfigurationController;
 import com.github.cereda.nightingale.controller.LanguageController;
 import com.github.cereda.nightingale.controller.LoggingController;
+import com.github.cereda.nightingale.controller.SessionController;
 import com.github.cereda.nightingale.model.NightingaleException;
+import com.github.cereda.nightingale.model.Archive;
+import com.github.cereda.nightingale.model.Batch;
 import com.github.cereda.nightingale.model.Configuration;
+import com.github.cereda.nightingale.model.Daemon;
 import com.github.cereda.nightingale.model.Directive;
+import com.github.cereda.nightingale.model.EventBus;
 import com.github.cereda.nightingale.model.Extractor;
 import com.github.cereda.nightingale.model.Interpreter;
 import com.github.cereda.nightingale.model.Parser;
+import com.github.cereda.nightingale.model.Simulation;
+import com.github.cereda.nightingale.model.Metrics;
+import com.github.cereda.nightingale.model.Profiler;
 import com.github.cereda.nightingale.model.StopWatch;
+import com.github.cereda.nightingale.model.Watcher;
 import com.github.cereda.nightingale.utils.DirectiveUtils;
 import com.github.cereda.nightingale.utils.DisplayUtils;
+import com.github.cereda.nightingale.utils.HistoryUtils;
+import com.github.cereda.nightingale.utils.InterpreterUtils;
+import java.io.File;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Main class. This class wraps all classes from the application model as well
@@ -60,23 +75,66 @@ public class Nightingale {
      * @param args A string array containing all command line arguments.
      */
     public static void main(String[] args) {
+        
+        // run the application in the current working directory
+        // and environment, and use the resulting status as the
+        // exit code of the virtual machine
+        System.exit(run(args, null, null));
+    }
+
+    /**
+     * Runs the application once. This method is called from the entry point,
+     * but also from the daemon, once for every build request, so it must not
+     * rely on any state left from previous executions.
+     * @param args A string array containing all command line arguments.
+     * @param directory The working directory, or null to keep the current one.
+     * @param environment Additional environment variables for system
+     * commands, or null if there are none.
+     * @return An integer value representing the exit code.
+     */
+    public static int run(String[] args, File directory,
+            Map<String, String> environment) {
+
+        // the exit code, zero means we are
+        // good, any other value is an error
+        int status = 0;
+
+        // the execution phases are timed from now
+        // on, so a breakdown can be displayed later
+        StopWatch.reset();
+        Profiler.reset();
 
         // the first component to be initialized is the
         // language controller; note that init() actually
         // has no body at all, but it's a dirty maneuver to
         // trigger the static class startup
         LanguageController.init();
+        StopWatch.mark("language");
         
         // the second component to be initalized is the
-        // logging controller; note init() actually disables
-        // the logging, so early exceptions won't generate
-        // a lot of noise in the terminal
-        LoggingController.init();
+        // logging controller; the logging framework itself
+        // is only initialized on demand, so here we just
+        // make sure a previous execution in this virtual
+        // machine does not keep logging
+        LoggingController.enableLogging(false);
+        StopWatch.mark("logging");
+
+        // the scripting engine takes a while to get ready, so
+        // it is warmed up in the background, while the command
+        // line is parsed and the directives are extracted
+        CompilerController.getInstance().warmUp();
         
         // print the nightingale logo in the terminal; I just
         // hope people use this tool in a good terminal with
         // fixed-width fonts, otherwise the logo will be messed
         DisplayUtils.printLogo();
+        StopWatch.mark("logo");
+
+        // clear any settings and session data potentially
+        // left from a previous execution in this virtual
+        // machine (it happens when running as a daemon)
+        ConfigurationController.getInstance().clear();
+        SessionController.getInstance().clear();
 
         try {
 
@@ -86,6 +144,21 @@ public class Nightingale {
             // configuration file, nightingale will panic
             // and end the execution
             Configuration.load();
+            StopWatch.mark("configuration");
+            
+            // when running on behalf of a client, the working
+            // directory and the environment come from the
+            // client instead of this virtual machine
+            if (directory != null) {
+                ConfigurationController.
+                        getInstance().
+                        put("execution.directory", directory);
+            }
+            if (environment != null) {
+                ConfigurationController.
+                        getInstance().
+                        put("execution.environment", environment);
+            }
             
             // if we are here, either there was no configuration
             // file at all or we managed to load the settings; now,
@@ -100,72 +173,94 @@ public class Nightingale {
             // flags as well, like --help or --version, which simply
             // do their jobs and return false, since there's no point
             // of continuing processing with such flags)
-            if (parser.parse()) {
-
-                // let's print the current file information; it is a
-                // basic display, just the file name, the size properly
-                // formatted as a human readable format, and the last
-                // modification date; also, in this point, the logging
-                // feature starts to collect data (of course, if enabled
-                // either through the configuration file or manually
-                // in the command line)
-                DisplayUtils.printFileInformation();
-                
-                // time to read the file and try to extract the directives;
-                // this class does a pretty good job on finding directives,
-                // including the multiline ones; it was a long awaited
-                // feature people were asking me to implement, so here
-                // it is!
-                Extractor extractor = new Extractor();
-                
-                // extract() brings us a list of directives properly parsed
-                // and almost ready to be handled; note that no directives
-                // in the provided file will raise an exception; this is
-                // by design and I opted to not include a default fallback
-                // (although it wouldn't be so difficult to write one,
-                // I decided not to take the risk)
-                List<Directive> directives = extractor.extract();
-                
-                // once we have our nice list of directives, it is time to
-                // actually validate them (for example, we have a couple of
-                // keywords that cannot be used as directive parameters);
-                // another interesting feature of the validate() method is
-                // to replicate a directive that has the 'files' keyword on
-                // it, since it's the whole point of having 'files' in the
-                // first place; if you check the log file, you will see
-                // that the list of extracted directives might differ from
-                // the final list of directives to be effectively processed
-                // by nightingale
-                directives = DirectiveUtils.validate(directives);
-                
-                // nightingale features now a stopwatch, so we can see how
-                // much time has passed since everything started; start(),
-                // for obvious reasons, start the stopwatch and keeps track
-                // of time for us; internally, this class makes use of
-                // nano time, so we might get an interesting precision here
-                // (although timinig is not a serious business in here, it's
-                // just a cool addition)
-                StopWatch.start();
-                
-                // this is surely the heart of nightingale; this class
-                // implements a powerful interpreter that will handle all
-                // rules and their corresponding tasks
-                Interpreter interpreter = new Interpreter();
-                
-                // once we have this bad boy ready, let's provide the list
-                // of directives previously extracted and validated; it is
-                // like loading a cannon, I guess
-                interpreter.setDirectives(directives);
+            boolean proceed = parser.parse();
+            StopWatch.mark("parser");
+            if (proceed) {
+
+                // the build listeners available in the class
+                // path are subscribed to the event bus
+                EventBus.discover();
+
+                try {
+
+                    // the parser might have found the simulate flag; in this
+                    // case, the batch mode is simulated from the build history;
+                    // with the batch flag, all documents are built concurrently
+                    // in this very virtual machine; otherwise, with the watch
+                    // flag, nightingale builds the file, then keeps an eye on
+                    // it and rebuilds it every time something changes
+                    if (ConfigurationController.
+                            getInstance().
+                            contains("execution.simulate")) {
+                        Simulation simulation = new Simulation();
+                        simulation.run();
+                    } else if (ConfigurationController.
+                            getInstance().
+                            contains("execution.batch")) {
+                        Batch batch = new Batch();
+                        if (!batch.run()) {
+                            status = 1;
+                        }
+                    } else if (ConfigurationController.
+                            getInstance().
+                            contains("execution.watch")) {
+                        Watcher watcher = new Watcher();
+                        serve();
+                        try {
+                            watcher.watch();
+                        } finally {
+                            Metrics.stop();
+                        }
+                    } else {
+                        build();
+
+                        // a failed build must be reported in the
+                        // exit code as well, just like in batch mode
+                        if (Boolean.FALSE.equals(ConfigurationController.
+                                getInstance().
+                                get("execution.success"))) {
+                            status = 1;
+                        }
+                    }
+                } catch (NightingaleException exception) {
+
+                    // the build failed, but whatever was recorded so
+                    // far is still saved, so the failing directives
+                    // show up in the history, the profile and the
+                    // metrics; the exception is printed first, so it
+                    // is not hidden by a problem while saving
+                    DisplayUtils.printException(exception);
+                    status = 1;
+                }
+                save();
+
+            } else {
                 
-                // time to shine, now the interpreter class will interpret
-                // one directive at a time, get the corresponding rule,
-                // set the parameters, evaluate it, get the tasks, run them,
-                // evaluate the result and print the status; note that
-                // nightingale will try to evaluate things progressively,
-                // so in case of an error, the previous tasks were already
-                // processed and potentially executed
-                interpreter.execute();
+                // the parser might have found the daemon flag; in this
+                // case, nightingale keeps running and waits for build
+                // requests until the idle period is reached
+                if (ConfigurationController.
+                        getInstance().
+                        contains("execution.daemon")) {
+                    Daemon daemon = new Daemon();
+                    serve();
+                    try {
+                        daemon.serve();
+                    } finally {
+                        Metrics.stop();
+                    }
+                }
 
+                // the parser might have found the archive flag; in
+                // this case, a training build runs in a child virtual
+                // machine and the loaded classes are dumped into a
+                // class data sharing archive for faster startups
+                if (ConfigurationController.
+                        getInstance().
+                        contains("execution.archive")) {
+                    Archive archive = new Archive();
+                    archive.generate();
+                }
             }
         } catch (NightingaleException exception) {
             
@@ -174,6 +269,7 @@ public class Nightingale {
             // here is to propagate an exception throughout the whole
             // application and catch it here instead of a local treatment
             DisplayUtils.printException(exception);
+            status = 1;
         }
 
         // we are done here (with or without errors, that makes no difference
@@ -181,12 +277,175 @@ public class Nightingale {
         // subtraction to be made (note that the values are internally
         // represented as nanoseconds, but the result is printed as seconds)
         StopWatch.stop();
+
+        // pending build events are handled as well, since
+        // the profile is only complete once they are
+        EventBus.flush();
         
         // the last command from nightingale; once the execution time is
         // available, print it; note that this notification is suppressed
         // when the command line parsing returns false as result (it makes
         // no sense to print the execution time for a help message, I guess)
         DisplayUtils.printTime();
+        DisplayUtils.printPhases();
+        DisplayUtils.printProfile();
+        
+        return status;
+    }
+
+    /**
+     * Builds the file provided in the command line, that is, extracts and
+     * validates the directives and interprets them.
+     * @return The list of directives effectively processed.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public static List<Directive> build() throws NightingaleException {
+
+        // the whole build is timed, so the history
+        // helps schedulers in estimating durations
+        long beginning = System.nanoTime();
+
+        // let's print the current file information; it is a
+        // basic display, just the file name, the size properly
+        // formatted as a human readable format, and the last
+        // modification date; also, in this point, the logging
+        // feature starts to collect data (of course, if enabled
+        // either through the configuration file or manually
+        // in the command line)
+        DisplayUtils.printFileInformation();
+        StopWatch.mark("file information");
+        
+        // time to read the file and try to extract the directives;
+        // this class does a pretty good job on finding directives,
+        // including the multiline ones; it was a long awaited
+        // feature people were asking me to implement, so here
+        // it is!
+        Extractor extractor = new Extractor();
+        
+        // extract() brings us a list of directives properly parsed
+        // and almost ready to be handled; note that no directives
+        // in the provided file will raise an exception; this is
+        // by design and I opted to not include a default fallback
+        // (although it wouldn't be so difficult to write one,
+        // I decided not to take the risk)
+        List<Directive> directives = extractor.extract();
+        StopWatch.mark("extraction");
+
+        // the rules are known at this point, so they are compiled
+        // in the background, while the interpreter gets ready and
+        // runs the commands from the earlier directives
+        CompilerController.getInstance().precompile(
+                InterpreterUtils.getRuleFiles(directives)
+        );
+        
+        // once we have our nice list of directives, it is time to
+        // actually validate them (for example, we have a couple of
+        // keywords that cannot be used as directive parameters);
+        // another interesting feature of the validate() method is
+        // to replicate a directive that has the 'files' keyword on
+        // it, since it's the whole point of having 'files' in the
+        // first place; if you check the log file, you will see
+        // that the list of extracted directives might differ from
+        // the final list of directives to be effectively processed
+        // by nightingale
+        directives = DirectiveUtils.validate(directives);
+        StopWatch.mark("validation");
+        
+        // nightingale features now a stopwatch, so we can see how
+        // much time has passed since everything started; start(),
+        // for obvious reasons, start the stopwatch and keeps track
+        // of time for us; internally, this class makes use of
+        // nano time, so we might get an interesting precision here
+        // (although timinig is not a serious business in here, it's
+        // just a cool addition)
+        StopWatch.start();
+        
+        // this is surely the heart of nightingale; this class
+        // implements a powerful interpreter that will handle all
+        // rules and their corresponding tasks
+        Interpreter interpreter = new Interpreter();
+        
+        // once we have this bad boy ready, let's provide the list
+        // of directives previously extracted and validated; it is
+        // like loading a cannon, I guess
+        interpreter.setDirectives(directives);
+
+        // every directive is checked, that is, all rules are
+        // resolved, compiled and validated against their directive
+        // arguments, and all conditionals are compiled; the first
+        // directive is checked right now and the others in the
+        // background, while the first commands run, and a mistake
+        // in the last directive stops the build before the next
+        // directive starts, not after all of them ran for minutes
+        interpreter.preflight();
+        StopWatch.mark("preflight");
+        
+        // time to shine, now the interpreter class will interpret
+        // one directive at a time, get the corresponding rule,
+        // set the parameters, evaluate it, get the tasks, run them,
+        // evaluate the result and print the status; note that
+        // nightingale will try to evaluate things progressively,
+        // so in case of an error, the previous tasks were already
+        // processed and potentially executed
+        interpreter.execute();
+        StopWatch.mark("interpretation");
+
+        HistoryUtils.record(
+                HistoryUtils.getKey((File) ConfigurationController.
+                        getInstance().
+                        get("execution.reference")),
+                System.nanoTime() - beginning
+        );
+
+        return directives;
+    }
+
+    /**
+     * Saves the build history, the build profile and the build metrics,
+     * once the listeners are done with the pending build events.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    private static void save() throws NightingaleException {
+
+        // the listeners must be done with the build
+        // events before anything is saved
+        EventBus.flush();
+
+        // durations recorded during the build
+        // are persisted for future estimates
+        HistoryUtils.save();
+
+        // the build profile, when enabled, is saved
+        // as well, so other tools can analyze it
+        Profiler.save();
+
+        // and so are the build metrics, if a
+        // file was provided in the command line
+        if (ConfigurationController.
+                getInstance().
+                contains("execution.metrics")) {
+            Metrics.save((File) ConfigurationController.
+                    getInstance().
+                    get("execution.metrics"));
+        }
+    }
+
+    /**
+     * Starts serving the build metrics on the loopback port provided in the
+     * command line, if any, for the long-running modes.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    private static void serve() throws NightingaleException {
+        if (ConfigurationController.
+                getInstance().
+                contains("execution.metrics.port")) {
+            Metrics.serve((Integer) ConfigurationController.
+                    getInstance().
+                    get("execution.metrics.port"));
+        }
     }
 
 }
@@ -0,0 +1,487 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.controller;
+
+import com.github.cereda.nightingale.model.FlightEvents;
+import com.github.cereda.nightingale.model.Metrics;
+import com.github.cereda.nightingale.model.NightingaleException;
+import com.github.cereda.nightingale.model.Profiler;
+import com.github.cereda.nightingale.model.Rule;
+import com.github.cereda.nightingale.utils.CommonUtils;
+import com.github.cereda.nightingale.utils.LibraryUtils;
+import groovy.lang.Binding;
+import groovy.lang.GroovyClassLoader;
+import groovy.lang.GroovyCodeSource;
+import groovy.lang.GroovyShell;
+import groovy.lang.Script;
+import groovy.transform.CompileStatic;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.codehaus.groovy.ast.ClassHelper;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.classgen.GeneratorContext;
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.control.CompilePhase;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.SourceUnit;
+import org.codehaus.groovy.control.customizers.ASTTransformationCustomizer;
+import org.codehaus.groovy.control.customizers.CompilationCustomizer;
+import org.codehaus.groovy.runtime.InvokerHelper;
+
+/**
+ * Implements the compiler controller. This controller keeps the compiled
+ * rules and conditionals in memory, so a script is compiled only once per
+ * virtual machine and then instantiated as many times as needed. Rules are
+ * recompiled when their files change on disk. This controller is implemented
+ * as a singleton.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class CompilerController {
+
+    // the controller itself, since we have a singleton;
+    // this is the reference instance, instantiated once
+    private static final CompilerController instance =
+            new CompilerController();
+
+    // the base classes for rules and conditionals, set
+    // in the corresponding compiler configurations; the
+    // rule library is compiled with the same base class
+    public static final String RULE_BASE =
+            "com.github.cereda.nightingale.model.BaseRule";
+    private static final String CONDITIONAL_BASE =
+            "com.github.cereda.nightingale.model.BaseConditional";
+
+    // class loaders, one for rules and another one for
+    // conditionals, since they have different base classes
+    private GroovyClassLoader rules;
+    private GroovyClassLoader conditionals;
+
+    // compiled rules, indexed by their canonical paths; each
+    // entry also holds the file stamp it was compiled from;
+    // scripts already compiled are looked up without holding
+    // the controller, so the execution is not held back while
+    // the preflight compiles the next rules in the background
+    private final Map<String, Entry> compiledRules;
+
+    // compiled conditionals, indexed by their expressions
+    private final Map<String, Class> compiledConditionals;
+
+    // a counter to generate unique conditional script names
+    private long counter;
+
+    // a flag that indicates if the scripting engine was
+    // already warmed up in this virtual machine
+    private boolean warm;
+
+    /**
+     * Private constructor.
+     */
+    private CompilerController() {
+        compiledRules = new ConcurrentHashMap<String, Entry>();
+        compiledConditionals = new ConcurrentHashMap<String, Class>();
+        counter = 0;
+        warm = false;
+    }
+
+    /**
+     * Gets the singleton reference. Since this class is implemented as a
+     * singleton, you will get the same controller every single time.
+     * @return The compiler controller which holds the compiled scripts.
+     */
+    public static CompilerController getInstance() {
+        return instance;
+    }
+
+    /**
+     * Gets a new instance of the provided rule. A typed rule is simply
+     * instantiated, while a rule script is bound to the provided binding.
+     * The rule is compiled only if it was not compiled before or if the file
+     * has changed since the last compilation.
+     * @param file The rule file.
+     * @param binding The binding.
+     * @return A new typed rule or a new script instance of the rule.
+     * @throws CompilationFailedException The rule could not be compiled.
+     * @throws IOException The rule could not be read.
+     * @throws ReflectiveOperationException The typed rule could not be
+     * instantiated.
+     */
+    public Object getRule(File file, Binding binding)
+            throws CompilationFailedException, IOException,
+            ReflectiveOperationException {
+        Class clazz = compileRule(file);
+        if (Rule.class.isAssignableFrom(clazz)) {
+            return clazz.newInstance();
+        } else {
+            return InvokerHelper.createScript(clazz, binding);
+        }
+    }
+
+    /**
+     * Compiles the provided rule, if it was not compiled before or if the file
+     * has changed since the last compilation.
+     * @param file The rule file.
+     * @return The compiled script class.
+     * @throws CompilationFailedException The rule could not be compiled.
+     * @throws IOException The rule could not be read.
+     */
+    private Class compileRule(File file)
+            throws CompilationFailedException, IOException {
+        File canonical = file.getCanonicalFile();
+        String key = canonical.getPath();
+        Entry entry = compiledRules.get(key);
+        boolean hit = (entry != null) && entry.matches(canonical);
+        Metrics.count("nightingale_cache_requests", 1, "cache", "rule",
+                "result", hit ? "hit" : "miss");
+        if (hit) {
+            return entry.getScript();
+        }
+        synchronized (this) {
+
+            // another thread might have compiled
+            // the very same rule in the meantime
+            entry = compiledRules.get(key);
+            if ((entry != null) && entry.matches(canonical)) {
+                return entry.getScript();
+            }
+
+            // bundled rules are precompiled in the rule
+            // library, so the compilation only happens if
+            // the rule is not there or if its source differs
+            long start = System.nanoTime();
+            Object event = FlightEvents.begin(FlightEvents.Kind.COMPILATION);
+            Class clazz = getPrecompiledRule(canonical);
+            boolean precompiled = clazz != null;
+            Metrics.count("nightingale_cache_requests", 1, "cache",
+                    "library", "result", precompiled ? "hit" : "miss");
+            if (clazz == null) {
+                GroovyCodeSource source = new GroovyCodeSource(
+                        canonical,
+                        CompilerConfiguration.DEFAULT.getSourceEncoding()
+                );
+                clazz = getRuleLoader().parseClass(source, false);
+            }
+            Profiler.record("compile", canonical.getName(), start,
+                    System.nanoTime());
+            FlightEvents.commit(event, CommonUtils.getBasename(canonical),
+                    canonical, precompiled ? "precompiled" : "compiled");
+            entry = new Entry(clazz, canonical);
+            compiledRules.put(key, entry);
+        }
+        return entry.getScript();
+    }
+
+    /**
+     * Gets the precompiled class of the provided rule from the rule library.
+     * @param file The rule file.
+     * @return The precompiled class, or null if there is none or if the rule
+     * library could not be read.
+     */
+    private Class getPrecompiledRule(File file) {
+        try {
+            return LibraryUtils.getRule(file);
+        } catch (NightingaleException exception) {
+            return null;
+        }
+    }
+
+    /**
+     * Warms up the scripting engine in a background thread, that is, loads
+     * and initializes the Groovy runtime and compiler, and runs throwaway
+     * scripts on top of the rule and conditional base classes. Meanwhile,
+     * the main thread parses the command line and extracts the directives.
+     * The warm-up happens only once per virtual machine.
+     */
+    public synchronized void warmUp() {
+        if (!warm && isConcurrent()) {
+            warm = true;
+            start(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        Binding binding = new Binding();
+                        Class clazz = createLoader(RULE_BASE).parseClass(
+                                "rule = [ identifier : 'warmup' ]",
+                                "WarmupRule.groovy"
+                        );
+                        InvokerHelper.createScript(clazz, binding).run();
+                        clazz = createLoader(CONDITIONAL_BASE).parseClass(
+                                "1 == 1",
+                                "WarmupConditional.groovy"
+                        );
+                        InvokerHelper.createScript(clazz, binding).run();
+                    } catch (Exception exception) {
+                        // the warm-up is just a shortcut
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Compiles the provided rules in a background thread, so they are likely
+     * available when the interpreter reaches them. Any rule which fails to
+     * compile here is compiled again by the interpreter, which then reports
+     * the error properly.
+     * @param files The rule files.
+     */
+    public void precompile(List<File> files) {
+        if (!isConcurrent()) {
+            return;
+        }
+        final List<File> rules = new ArrayList<File>(files);
+        start(new Runnable() {
+            @Override
+            public void run() {
+                for (File rule : rules) {
+                    try {
+                        compileRule(rule);
+                    } catch (Exception exception) {
+                        // the interpreter reports it later on
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Checks if there is more than one processor available. With a single
+     * processor, there is nothing to overlap with the main thread, so the
+     * warm-up and the precompilation are skipped and the interpreter simply
+     * compiles the scripts on demand.
+     * @return A boolean value indicating if there is more than one processor
+     * available.
+     */
+    private boolean isConcurrent() {
+        return Runtime.getRuntime().availableProcessors() > 1;
+    }
+
+    /**
+     * Starts the provided task in a daemon thread, so it never holds the
+     * virtual machine from exiting.
+     * @param task The task.
+     */
+    private void start(Runnable task) {
+        Thread thread = new Thread(task, "nightingale-compiler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Gets a new instance of the provided conditional expression, bound to the
+     * provided binding. The expression is compiled only once.
+     * @param condition The conditional expression.
+     * @param binding The binding.
+     * @return A new script instance of the conditional expression.
+     * @throws CompilationFailedException The expression could not be compiled.
+     */
+    public Script getConditional(String condition,
+            Binding binding) throws CompilationFailedException {
+        return InvokerHelper.createScript(compileConditional(condition),
+                binding);
+    }
+
+    /**
+     * Compiles the provided conditional expression, if it was not compiled
+     * before.
+     * @param condition The conditional expression.
+     * @return The compiled script class.
+     * @throws CompilationFailedException The expression could not be compiled.
+     */
+    public Class compileConditional(String condition)
+            throws CompilationFailedException {
+        Class clazz = compiledConditionals.get(condition);
+        Metrics.count("nightingale_cache_requests", 1, "cache",
+                "conditional", "result", clazz != null ? "hit" : "miss");
+        if (clazz != null) {
+            return clazz;
+        }
+        synchronized (this) {
+
+            // another thread might have compiled
+            // the very same expression in the meantime
+            clazz = compiledConditionals.get(condition);
+            if (clazz != null) {
+                return clazz;
+            }
+            counter++;
+            GroovyCodeSource source = new GroovyCodeSource(
+                    condition,
+                    "Conditional".concat(String.valueOf(counter)).
+                            concat(".groovy"),
+                    GroovyShell.DEFAULT_CODE_BASE
+            );
+            clazz = getConditionalLoader().parseClass(source, false);
+            compiledConditionals.put(condition, clazz);
+        }
+        return clazz;
+    }
+
+    /**
+     * Gets the rule class loader, creating it if needed.
+     * @return The rule class loader.
+     */
+    private GroovyClassLoader getRuleLoader() {
+        if (rules == null) {
+            rules = createLoader(RULE_BASE);
+        }
+        return rules;
+    }
+
+    /**
+     * Gets the conditional class loader, creating it if needed.
+     * @return The conditional class loader.
+     */
+    private GroovyClassLoader getConditionalLoader() {
+        if (conditionals == null) {
+            conditionals = createLoader(CONDITIONAL_BASE);
+        }
+        return conditionals;
+    }
+
+    /**
+     * Creates a new class loader with the provided script base class.
+     * @param base The script base class.
+     * @return A new class loader.
+     */
+    private GroovyClassLoader createLoader(String base) {
+        return new GroovyClassLoader(
+                CompilerController.class.getClassLoader(),
+                createConfiguration(base)
+        );
+    }
+
+    /**
+     * Creates a new compiler configuration with the provided script base
+     * class. Classes implementing the rule contract, that is, typed rules,
+     * are statically compiled, while scripts remain dynamic.
+     * @param base The script base class.
+     * @return A new compiler configuration.
+     */
+    public static CompilerConfiguration createConfiguration(String base) {
+        CompilerConfiguration configuration = new CompilerConfiguration();
+        configuration.setScriptBaseClass(base);
+        configuration.addCompilationCustomizers(new TypedRuleCustomizer());
+        return configuration;
+    }
+
+    /**
+     * Applies static compilation to typed rules. The customizer runs in the
+     * same phase as the static compilation transformation, and only for
+     * classes implementing the rule contract, including the inner classes
+     * and closures they declare.
+     */
+    private static class TypedRuleCustomizer extends CompilationCustomizer {
+
+        // the rule contract, as seen by the compiler
+        private static final ClassNode RULE = ClassHelper.make(Rule.class);
+
+        // the static compilation transformation,
+        // applied on demand
+        private final ASTTransformationCustomizer transformation;
+
+        /**
+         * Constructor.
+         */
+        TypedRuleCustomizer() {
+            super(CompilePhase.INSTRUCTION_SELECTION);
+            transformation = new ASTTransformationCustomizer(
+                    CompileStatic.class);
+        }
+
+        /**
+         * Applies static compilation to the provided class, if it is a typed
+         * rule.
+         * @param source The source unit.
+         * @param context The generator context.
+         * @param node The class node.
+         */
+        @Override
+        public void call(SourceUnit source, GeneratorContext context,
+                ClassNode node) {
+            if (node.implementsInterface(RULE)) {
+                transformation.call(source, context, node);
+            }
+        }
+    }
+
+    /**
+     * Holds a compiled rule and the stamp of the file it was compiled from.
+     */
+    private static class Entry {
+
+        // the compiled script class
+        private final Class script;
+
+        // the file stamp, that is, the last
+        // modification time and the size
+        private final long modified;
+        private final long length;
+
+        /**
+         * Constructor.
+         * @param script The compiled script class.
+         * @param file The rule file.
+         */
+        Entry(Class script, File file) {
+            this.script = script;
+            this.modified = file.lastModified();
+            this.length = file.length();
+        }
+
+        /**
+         * Gets the compiled script class.
+         * @return The compiled script class.
+         */
+        Class getScript() {
+            return script;
+        }
+
+        /**
+         * Checks if the provided file still matches the stamp.
+         * @param file The rule file.
+         * @return A boolean value indicating if the file is unchanged.
+         */
+        boolean matches(File file) {
+            return (file.lastModified() == modified)
+                    && (file.length() == length);
+        }
+    }
+
+}
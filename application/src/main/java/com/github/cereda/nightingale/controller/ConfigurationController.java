@@ -56,6 +56,12 @@ public class ConfigurationController {
     // as long as you know what to retrieve later on
     private final Map<String, Object> map;
 
+    // the isolated map of the current thread, if
+    // any; when available, it takes precedence
+    // over the shared map
+    private final ThreadLocal<Map<String, Object>> local =
+            new ThreadLocal<Map<String, Object>>();
+
     /**
      * Private constructor.
      */
@@ -80,7 +86,7 @@ public class ConfigurationController {
      * @return An object indexed by the provided key.
      */
     public Object get(String key) {
-        return map.get(key);
+        return getMap().get(key);
     }
 
     /**
@@ -90,7 +96,7 @@ public class ConfigurationController {
      * @param value The object to be indexed by the provided key.
      */
     public void put(String key, Object value) {
-        map.put(key, value);
+        getMap().put(key, value);
     }
 
     /**
@@ -99,7 +105,83 @@ public class ConfigurationController {
      * @return A boolean value indicating if the map contains the provided key.
      */
     public boolean contains(String key) {
-        return map.containsKey(key);
+        return getMap().containsKey(key);
+    }
+
+    /**
+     * Removes an entry from the map according to the provided key.
+     * @param key The key to be removed.
+     */
+    public void remove(String key) {
+        getMap().remove(key);
+    }
+
+    /**
+     * Clears the map. This method is used when the application runs more than
+     * once in the same virtual machine, so settings from a previous execution
+     * do not leak into the next one.
+     */
+    public void clear() {
+        getMap().clear();
+    }
+
+    /**
+     * Isolates the settings of the current thread. From now on, the current
+     * thread works on its own copy of the settings, so concurrent builds in
+     * the same virtual machine (e.g, the batch mode) do not interfere with
+     * each other.
+     */
+    public void isolate() {
+        local.set(new HashMap<String, Object>(map));
+    }
+
+    /**
+     * Isolates the settings of the current thread with the provided
+     * settings. This method is used when a build hands work over to other
+     * threads, so they see the very same settings of the build, even when
+     * those settings are isolated.
+     * @param settings The settings, usually taken from a snapshot.
+     */
+    public void isolate(Map<String, Object> settings) {
+        local.set(new HashMap<String, Object>(settings));
+    }
+
+    /**
+     * Takes a snapshot of the isolated settings of the current thread, if
+     * any.
+     * @return A copy of the isolated settings of the current thread, or null
+     * if the current thread works on the shared settings.
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> current = local.get();
+        return current != null ? new HashMap<String, Object>(current) : null;
+    }
+
+    /**
+     * Releases the isolated settings of the current thread, if any.
+     */
+    public void release() {
+        local.remove();
+    }
+
+    /**
+     * Checks if the settings of the current thread are isolated, that is, if
+     * the current thread belongs to one of several concurrent builds.
+     * @return A boolean value indicating if the settings of the current
+     * thread are isolated.
+     */
+    public boolean isIsolated() {
+        return local.get() != null;
+    }
+
+    /**
+     * Gets the map the current thread should work on.
+     * @return The isolated map of the current thread, if any, or the shared
+     * map otherwise.
+     */
+    private Map<String, Object> getMap() {
+        Map<String, Object> current = local.get();
+        return current != null ? current : map;
     }
 
 }
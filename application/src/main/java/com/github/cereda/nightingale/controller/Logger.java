@@ -0,0 +1,95 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.controller;
+
+import org.slf4j.LoggerFactory;
+
+/**
+ * Implements the application logger. It only reaches the logging framework
+ * when logging is enabled, so regular executions neither initialize the
+ * framework nor pay for it; when disabled, every call is a single flag check.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class Logger {
+
+    // the class the entries refer to
+    private final Class<?> clazz;
+
+    // the underlying logger, obtained
+    // once logging is enabled
+    private volatile org.slf4j.Logger logger;
+
+    /**
+     * Constructor.
+     * @param clazz The class the entries refer to.
+     */
+    Logger(Class<?> clazz) {
+        this.clazz = clazz;
+    }
+
+    /**
+     * Logs the provided message at the information level.
+     * @param message The message.
+     */
+    public void info(String message) {
+        if (LoggingController.isEnabled()) {
+            getLogger().info(message);
+        }
+    }
+
+    /**
+     * Logs the provided message at the error level.
+     * @param message The message.
+     */
+    public void error(String message) {
+        if (LoggingController.isEnabled()) {
+            getLogger().error(message);
+        }
+    }
+
+    /**
+     * Gets the underlying logger, obtaining it from the logging framework on
+     * the first use.
+     * @return The underlying logger.
+     */
+    private org.slf4j.Logger getLogger() {
+        if (logger == null) {
+            logger = LoggerFactory.getLogger(clazz);
+        }
+        return logger;
+    }
+
+}
@@ -36,18 +36,27 @@ package com.github.cereda.nightingale.controller;
 import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.joran.JoranConfigurator;
 import ch.qos.logback.core.joran.spi.JoranException;
+import java.io.File;
 import java.io.InputStream;
 import org.slf4j.LoggerFactory;
 
 /**
  * Implements the logging controller. This class actually sets the logging
- * configuration in order to allow appending results to a file.
+ * configuration in order to allow appending results to a file. The logging
+ * framework is only initialized when logging is actually enabled, so regular
+ * executions do not pay for it.
  * @author Paulo Roberto Massa Cereda
  * @version 1.0
  * @since 1.0
  */
 public class LoggingController {
 
+    // flags indicating if the logging is enabled
+    // and if the logging framework was initialized
+    // at some point in this virtual machine
+    private static volatile boolean enabled = false;
+    private static boolean initialized = false;
+
     /**
      * Sets the logging configuration according to the provided boolean value.
      * If the value is set to true, the log entries will be appended to a file,
@@ -55,7 +64,26 @@ public class LoggingController {
      * @param enable A boolean value that indicates the logging behaviour
      * throughout the application.
      */
-    public static void enableLogging(boolean enable) {
+    public static synchronized void enableLogging(boolean enable) {
+
+        // when disabled, there is nothing to silence
+        // unless the logging framework was already
+        // initialized by a previous execution
+        enabled = enable;
+        if (!enable && !initialized) {
+            return;
+        }
+        configure(enable);
+    }
+
+    /**
+     * Configures the logging framework according to the provided boolean
+     * value.
+     * @param enable A boolean value that indicates the logging behaviour
+     * throughout the application.
+     */
+    private static void configure(boolean enable) {
+        initialized = true;
         
         // get the logger context from a factory, set a
         // new context and reset it
@@ -80,6 +108,11 @@ public class LoggingController {
                 // entries to the file
                 String name = (String) ConfigurationController.
                     getInstance().get("execution.log.name");
+                File directory = (File) ConfigurationController.
+                    getInstance().get("execution.directory");
+                if (directory != null) {
+                    name = new File(directory, name).getPath();
+                }
                 loggerContext.putProperty("name", name);
                 configurator.doConfigure(getResource());
             }
@@ -98,10 +131,34 @@ public class LoggingController {
     }
     
     /**
-     * Initializes the logging controller by disabling it.
+     * Gets a logger for the provided class. The logger only reaches the
+     * logging framework when logging is enabled; otherwise, every call is
+     * simply discarded.
+     * @param clazz The class.
+     * @return A logger for the provided class.
      */
-    public static void init() {
-        enableLogging(false);
+    public static Logger getLogger(Class<?> clazz) {
+        return new Logger(clazz);
+    }
+
+    /**
+     * Checks if logging is enabled.
+     * @return A boolean value indicating if logging is enabled.
+     */
+    static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Initializes the logging framework, silenced, unless it was already
+     * initialized. Third party components (e.g, the process executor) rely on
+     * the logging framework as well, so this method must be called before
+     * using them.
+     */
+    public static synchronized void init() {
+        if (!initialized) {
+            configure(false);
+        }
     }
 
 }
@@ -0,0 +1,119 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.controller;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.zeroturnaround.exec.listener.ProcessDestroyer;
+
+/**
+ * Implements the process controller. This controller keeps track of every
+ * system command currently running, so they can be destroyed on demand, for
+ * example, when a build is cancelled. This controller is implemented as a
+ * singleton.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class ProcessController implements ProcessDestroyer {
+
+    // the controller itself, since we have a singleton;
+    // this is the reference instance, instantiated once
+    private static final ProcessController instance =
+            new ProcessController();
+
+    // the set of processes currently running
+    private final Set<Process> processes;
+
+    /**
+     * Private constructor.
+     */
+    private ProcessController() {
+        processes = new LinkedHashSet<Process>();
+    }
+
+    /**
+     * Gets the singleton reference. Since this class is implemented as a
+     * singleton, you will get the same controller every single time.
+     * @return The process controller which holds the running processes.
+     */
+    public static ProcessController getInstance() {
+        return instance;
+    }
+
+    /**
+     * Adds the provided process to the set of running processes.
+     * @param process The process.
+     * @return A boolean value indicating if the process was added.
+     */
+    @Override
+    public synchronized boolean add(Process process) {
+        return processes.add(process);
+    }
+
+    /**
+     * Removes the provided process from the set of running processes.
+     * @param process The process.
+     * @return A boolean value indicating if the process was removed.
+     */
+    @Override
+    public synchronized boolean remove(Process process) {
+        return processes.remove(process);
+    }
+
+    /**
+     * Gets the number of running processes.
+     * @return The number of running processes.
+     */
+    @Override
+    public synchronized int size() {
+        return processes.size();
+    }
+
+    /**
+     * Destroys every running process.
+     */
+    public void destroyAll() {
+        List<Process> list;
+        synchronized (this) {
+            list = new ArrayList<Process>(processes);
+        }
+        for (Process process : list) {
+            process.destroy();
+        }
+    }
+
+}
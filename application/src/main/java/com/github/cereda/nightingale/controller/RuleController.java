@@ -0,0 +1,423 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.controller;
+
+import com.github.cereda.nightingale.model.Daemon;
+import com.github.cereda.nightingale.model.Messages;
+import com.github.cereda.nightingale.model.NightingaleException;
+import com.github.cereda.nightingale.model.Rule;
+import com.github.cereda.nightingale.utils.CommonUtils;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Implements the rule controller. This controller keeps an index of the rule
+ * directories, mapping each rule identifier to its file and content hash, so
+ * rules are found without probing the file system for every directive. Each
+ * directory is listed only once; when running as a daemon or in watch mode,
+ * the indexed directories are monitored and dropped from the index as soon as
+ * they change. Native rules, that is, rule implementations available in the
+ * class path as services, take precedence over the rule paths. This
+ * controller is implemented as a singleton.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class RuleController {
+
+    // the controller itself, since we have a singleton;
+    // this is the reference instance, instantiated once
+    private static final RuleController instance = new RuleController();
+
+    // the application messages obtained from the
+    // language controller
+    private static final LanguageController messages =
+            LanguageController.getInstance();
+
+    // the canonical rule directories, indexed by
+    // their absolute, not yet canonical, paths
+    private final Map<String, String> locations;
+
+    // the rule entries of each directory, indexed
+    // by the canonical directory paths
+    private final Map<String, Map<String, Entry>> directories;
+
+    // the service monitoring the indexed directories,
+    // only available for long running executions
+    private WatchService service;
+
+    // the native rule implementations, indexed by their
+    // identifiers, loaded on demand and only once, since
+    // the class path does not change
+    private Map<String, Class<? extends Rule>> natives;
+
+    /**
+     * Private constructor.
+     */
+    private RuleController() {
+        locations = new HashMap<String, String>();
+        directories = new HashMap<String, Map<String, Entry>>();
+    }
+
+    /**
+     * Gets the singleton reference. Since this class is implemented as a
+     * singleton, you will get the same controller every single time.
+     * @return The rule controller which holds the rule index.
+     */
+    public static RuleController getInstance() {
+        return instance;
+    }
+
+    /**
+     * Gets the rule file corresponding to the provided identifier, according
+     * to the current rule paths, in order of priority.
+     * @param identifier The rule identifier.
+     * @return The rule file, or null if the rule could not be found.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public synchronized File getRule(String identifier)
+            throws NightingaleException {
+        Entry entry = getEntry(identifier);
+        return entry == null ? null : entry.getFile();
+    }
+
+    /**
+     * Gets a new instance of the native rule corresponding to the provided
+     * identifier, if there is one. Native rules are resolved before the rule
+     * paths.
+     * @param identifier The rule identifier.
+     * @return A new instance of the native rule, or null if there is none.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public synchronized Rule getNativeRule(String identifier)
+            throws NightingaleException {
+        Class<? extends Rule> clazz = getNatives().get(identifier);
+        if (clazz == null) {
+            return null;
+        }
+        try {
+            return clazz.newInstance();
+        } catch (Exception exception) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_GETNATIVERULE_INSTANTIATION_FAILED,
+                            clazz.getName()
+                    ),
+                    exception
+            );
+        }
+    }
+
+    /**
+     * Checks if there is a native rule corresponding to the provided
+     * identifier.
+     * @param identifier The rule identifier.
+     * @return A boolean value indicating if there is a native rule.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public synchronized boolean isNative(String identifier)
+            throws NightingaleException {
+        return getNatives().containsKey(identifier);
+    }
+
+    /**
+     * Gets the content hash of the rule corresponding to the provided
+     * identifier. The hash is calculated only once per indexing.
+     * @param identifier The rule identifier.
+     * @return The content hash, or null if the rule could not be found.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public synchronized String getHash(String identifier)
+            throws NightingaleException {
+        Entry entry = getEntry(identifier);
+        return entry == null ? null : entry.getHash();
+    }
+
+    /**
+     * Gets the identifiers of all rules available in the current rule paths.
+     * @return A sorted set of rule identifiers.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public synchronized Set<String> getIdentifiers()
+            throws NightingaleException {
+        Set<String> result = new TreeSet<String>(getNatives().keySet());
+        for (String directory : getDirectories()) {
+            result.addAll(getEntries(directory).keySet());
+        }
+        return result;
+    }
+
+    /**
+     * Gets the canonical rule directories, according to the current rule
+     * paths, in order of priority. Relative paths are resolved against the
+     * directory of the reference file, if there is one, or against the
+     * working directory otherwise.
+     * @return A list of canonical rule directories.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public synchronized List<String> getDirectories()
+            throws NightingaleException {
+        @SuppressWarnings("unchecked")
+        List<String> paths = (List<String>) ConfigurationController.
+                getInstance().
+                get("execution.rule.paths");
+        File reference = (File) ConfigurationController.
+                getInstance().
+                get("execution.reference");
+        File parent = reference == null
+                ? CommonUtils.resolveFile(".")
+                : reference.getAbsoluteFile().getParentFile();
+        List<String> result = new ArrayList<String>();
+        for (String path : paths) {
+            File location = new File(path);
+            if (!location.isAbsolute()) {
+                location = new File(parent, path);
+            }
+            String key = location.getPath();
+            String directory = locations.get(key);
+            if (directory == null) {
+                directory = CommonUtils.getCanonicalFile(key).getPath();
+                locations.put(key, directory);
+            }
+            result.add(directory);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the native rule implementations, loading them if needed. When two
+     * implementations share the same identifier, the first one wins.
+     * @return A map of rule identifiers and their implementations.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    private Map<String, Class<? extends Rule>> getNatives()
+            throws NightingaleException {
+        if (natives == null) {
+            Map<String, Class<? extends Rule>> result =
+                    new HashMap<String, Class<? extends Rule>>();
+            try {
+                for (Rule rule : ServiceLoader.load(Rule.class,
+                        RuleController.class.getClassLoader())) {
+                    if (!result.containsKey(rule.getIdentifier())) {
+                        result.put(rule.getIdentifier(), rule.getClass());
+                    }
+                }
+            } catch (ServiceConfigurationError error) {
+                throw new NightingaleException(
+                        messages.getMessage(
+                                Messages.ERROR_GETNATIVERULE_INVALID_SERVICE,
+                                error.getMessage()
+                        )
+                );
+            }
+            natives = result;
+        }
+        return natives;
+    }
+
+    /**
+     * Gets the index entry corresponding to the provided identifier.
+     * @param identifier The rule identifier.
+     * @return The index entry, or null if the rule could not be found.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    private Entry getEntry(String identifier) throws NightingaleException {
+        for (String directory : getDirectories()) {
+            Entry entry = getEntries(directory).get(identifier);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the index entries of the provided directory, listing it if it was
+     * not indexed yet.
+     * @param directory The canonical directory path.
+     * @return A map of rule identifiers and their corresponding entries.
+     */
+    private Map<String, Entry> getEntries(String directory) {
+        Map<String, Entry> entries = directories.get(directory);
+        if (entries == null) {
+            entries = new HashMap<String, Entry>();
+            File[] files = new File(directory).listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    String name = file.getName();
+                    if (name.endsWith(".groovy") && file.isFile()) {
+                        entries.put(CommonUtils.getBasename(file),
+                                new Entry(file));
+                    }
+                }
+            }
+            directories.put(directory, entries);
+            monitor(directory);
+        }
+        return entries;
+    }
+
+    /**
+     * Monitors the provided directory, if this is a long running execution,
+     * that is, a daemon or the watch mode. Any change drops the directory from
+     * the index, so it is listed again in the next lookup. A directory which
+     * cannot be monitored is simply indexed once.
+     * @param directory The canonical directory path.
+     */
+    private void monitor(String directory) {
+        if (!Daemon.isRunning() && !ConfigurationController.
+                getInstance().
+                contains("execution.watch")) {
+            return;
+        }
+        try {
+            if (service == null) {
+                service = FileSystems.getDefault().newWatchService();
+                Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        refresh();
+                    }
+                }, "nightingale-rules");
+                thread.setDaemon(true);
+                thread.start();
+            }
+            new File(directory).toPath().register(
+                    service,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE,
+                    StandardWatchEventKinds.ENTRY_MODIFY
+            );
+        } catch (IOException exception) {
+            // the index is just a shortcut
+        }
+    }
+
+    /**
+     * Drops the monitored directories from the index as soon as they change.
+     * This method runs in a daemon thread for the whole virtual machine life.
+     */
+    private void refresh() {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean overflow = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        overflow = true;
+                    }
+                }
+                synchronized (this) {
+                    if (overflow) {
+                        directories.clear();
+                    } else {
+                        directories.remove(
+                                ((Path) key.watchable()).toString()
+                        );
+                    }
+                }
+                key.reset();
+            }
+        } catch (InterruptedException exception) {
+            // the virtual machine is shutting down
+        } catch (ClosedWatchServiceException exception) {
+            // the virtual machine is shutting down
+        }
+    }
+
+    /**
+     * Holds a rule file and its content hash.
+     */
+    private static class Entry {
+
+        // the rule file
+        private final File file;
+
+        // the content hash, calculated on demand
+        private String hash;
+
+        /**
+         * Constructor.
+         * @param file The rule file.
+         */
+        Entry(File file) {
+            this.file = file;
+        }
+
+        /**
+         * Gets the rule file.
+         * @return The rule file.
+         */
+        File getFile() {
+            return file;
+        }
+
+        /**
+         * Gets the content hash, calculating it if needed.
+         * @return The content hash.
+         * @throws NightingaleException Something wrong happened, to be caught
+         * in the higher levels.
+         */
+        String getHash() throws NightingaleException {
+            if (hash == null) {
+                hash = CommonUtils.calculateHash(file);
+            }
+            return hash;
+        }
+    }
+
+}
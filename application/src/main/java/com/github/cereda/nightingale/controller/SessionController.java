@@ -56,6 +56,12 @@ public class SessionController {
     // methods, so it could be easily manipulated
     private final Map<String, Object> map;
 
+    // the isolated map of the current thread, if
+    // any; when available, it takes precedence
+    // over the shared map
+    private final ThreadLocal<Map<String, Object>> local =
+            new ThreadLocal<Map<String, Object>>();
+
     /**
      * Private constructor.
      */
@@ -79,7 +85,7 @@ public class SessionController {
      * @return The object indexed by the provided map key.
      */
     public Object get(String key) {
-        return map.get(key);
+        return getMap().get(key);
     }
 
     /**
@@ -89,7 +95,7 @@ public class SessionController {
      * @param value The object to be indexed under the provided key.
      */
     public void put(String key, Object value) {
-        map.put(key, value);
+        getMap().put(key, value);
     }
 
     /**
@@ -100,7 +106,7 @@ public class SessionController {
      * provided key.
      */
     public boolean contains(String key) {
-        return map.containsKey(key);
+        return getMap().containsKey(key);
     }
 
     /**
@@ -110,7 +116,7 @@ public class SessionController {
      * be removed.
      */
     public void remove(String key) {
-        map.remove(key);
+        getMap().remove(key);
     }
 
     /**
@@ -118,7 +124,32 @@ public class SessionController {
      * the same name.
      */
     public void clear() {
-        map.clear();
+        getMap().clear();
+    }
+
+    /**
+     * Isolates the session of the current thread. From now on, the current
+     * thread works on its own, initially empty, session map.
+     */
+    public void isolate() {
+        local.set(new HashMap<String, Object>());
+    }
+
+    /**
+     * Releases the isolated session of the current thread, if any.
+     */
+    public void release() {
+        local.remove();
+    }
+
+    /**
+     * Gets the map the current thread should work on.
+     * @return The isolated map of the current thread, if any, or the shared
+     * map otherwise.
+     */
+    private Map<String, Object> getMap() {
+        Map<String, Object> current = local.get();
+        return current != null ? current : map;
     }
 
 }
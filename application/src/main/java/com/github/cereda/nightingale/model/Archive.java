@@ -0,0 +1,286 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.model;
+
+import com.github.cereda.nightingale.Nightingale;
+import com.github.cereda.nightingale.controller.LanguageController;
+import com.github.cereda.nightingale.controller.RuleController;
+import com.github.cereda.nightingale.utils.CommonUtils;
+import com.github.cereda.nightingale.utils.ConfigurationUtils;
+import com.github.cereda.nightingale.utils.DisplayUtils;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.zeroturnaround.exec.ProcessExecutor;
+
+/**
+ * Implements the class data sharing archive generation. A training build runs
+ * in a child virtual machine, in dry-run mode, over the rules available in the
+ * rule paths, and the classes it loads are dumped into an archive located at
+ * the application directory. The launcher scripts use this archive, when
+ * available, so the class loading and verification of the application and
+ * its libraries are skipped at startup.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class Archive {
+
+    // the application messages obtained from the
+    // language controller
+    private static final LanguageController messages =
+            LanguageController.getInstance();
+
+    /**
+     * Generates the class data sharing archive.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public void generate() throws NightingaleException {
+
+        // application class data sharing is only available
+        // from Java 10 on, and dynamic archives, which take
+        // a single run, from Java 13 on
+        int version = getVersion();
+        if (version < 10) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_ARCHIVE_UNSUPPORTED_VERSION,
+                            System.getProperty("java.specification.version")
+                    )
+            );
+        }
+
+        File archive = getArchiveFile();
+        File directory = null;
+        try {
+            directory = createTrainingDirectory();
+            List<String> documents = Arrays.asList(directory.list());
+            DisplayUtils.wrapText(
+                    messages.getMessage(
+                            Messages.INFO_ARCHIVE_TRAINING,
+                            String.valueOf(documents.size())
+                    )
+            );
+
+            FileUtils.deleteQuietly(archive);
+            if (version >= 13) {
+                train(directory, documents, Arrays.asList(
+                        "-XX:ArchiveClassesAtExit=".concat(archive.getPath())
+                ));
+            } else {
+
+                // older virtual machines need the list of
+                // loaded classes first, then a separate
+                // run to dump the archive from that list
+                File list = new File(directory, "classes.lst");
+                train(directory, documents, Arrays.asList(
+                        "-Xshare:off",
+                        "-XX:DumpLoadedClassList=".concat(list.getPath())
+                ));
+                List<String> options = new ArrayList<String>();
+                if (version == 10) {
+                    options.add("-XX:+UseAppCDS");
+                }
+                options.add("-Xshare:dump");
+                options.add("-XX:SharedClassListFile=".concat(list.getPath()));
+                options.add("-XX:SharedArchiveFile=".concat(archive.getPath()));
+                execute(directory, options, new ArrayList<String>());
+            }
+        } finally {
+            FileUtils.deleteQuietly(directory);
+        }
+
+        if (!archive.exists()) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_ARCHIVE_NOT_GENERATED
+                    )
+            );
+        }
+
+        DisplayUtils.wrapText(
+                messages.getMessage(
+                        Messages.INFO_ARCHIVE_GENERATED,
+                        archive.getPath()
+                )
+        );
+    }
+
+    /**
+     * Gets the class data sharing archive file, located at the application
+     * directory, next to the application jar file.
+     * @return The archive file.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public static File getArchiveFile() throws NightingaleException {
+        return new File(CommonUtils.buildPath(
+                ConfigurationUtils.getApplicationPath(), "nightingale.jsa"));
+    }
+
+    /**
+     * Creates a temporary directory holding one training document for each
+     * rule available in the rule paths. Each document is built separately,
+     * so a rule which fails without arguments does not halt the others.
+     * @return The training directory.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    private File createTrainingDirectory() throws NightingaleException {
+        try {
+            File directory = File.createTempFile("nightingale", "");
+            FileUtils.deleteQuietly(directory);
+            FileUtils.forceMkdir(directory);
+            for (String name : RuleController.getInstance().getIdentifiers()) {
+                FileUtils.writeStringToFile(
+                        new File(directory, name.concat(".tex")),
+                        "% nightingale: ".concat(name).concat("\n"),
+                        "UTF-8"
+                );
+            }
+            return directory;
+        } catch (IOException ioexception) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_ARCHIVE_IO_EXCEPTION
+                    ),
+                    ioexception
+            );
+        }
+    }
+
+    /**
+     * Runs the training build in a child virtual machine. The build result
+     * itself is irrelevant, only the classes it loads matter.
+     * @param directory The training directory.
+     * @param documents The training documents.
+     * @param options The virtual machine options.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    private void train(File directory, List<String> documents,
+            List<String> options) throws NightingaleException {
+        List<String> arguments = new ArrayList<String>();
+        arguments.add(Nightingale.class.getName());
+        arguments.add("--batch");
+        arguments.add("--dry-run");
+        arguments.addAll(documents);
+        execute(directory, options, arguments);
+    }
+
+    /**
+     * Executes a child virtual machine with the same class path of the
+     * current one. The class path entries are made absolute, since the
+     * archive records them and they must match at runtime.
+     * @param directory The working directory.
+     * @param options The virtual machine options.
+     * @param arguments The main class and its arguments.
+     * @return The exit value.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    private int execute(File directory, List<String> options,
+            List<String> arguments) throws NightingaleException {
+        List<String> classpath = new ArrayList<String>();
+        for (String entry : System.getProperty("java.class.path").
+                split(File.pathSeparator)) {
+            classpath.add(new File(entry).getAbsolutePath());
+        }
+
+        List<String> command = new ArrayList<String>();
+        command.add(CommonUtils.buildPath(
+                CommonUtils.buildPath(
+                        System.getProperty("java.home"), "bin"
+                ), "java"));
+        command.addAll(options);
+        command.add("-cp");
+        command.add(CommonUtils.getCollectionElements(classpath, "",
+                "", File.pathSeparator));
+        command.addAll(arguments);
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try {
+            return new ProcessExecutor().
+                    command(command).
+                    directory(directory).
+                    redirectOutput(buffer).
+                    redirectError(buffer).
+                    execute().
+                    getExitValue();
+        } catch (IOException ioexception) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_ARCHIVE_IO_EXCEPTION
+                    ),
+                    ioexception
+            );
+        } catch (InterruptedException iexception) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_ARCHIVE_INTERRUPTED_EXCEPTION
+                    ),
+                    iexception
+            );
+        } catch (Exception exception) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_ARCHIVE_GENERIC_EXCEPTION
+                    ),
+                    exception
+            );
+        }
+    }
+
+    /**
+     * Gets the major version of the current virtual machine.
+     * @return The major version.
+     */
+    private int getVersion() {
+        String version = System.getProperty("java.specification.version");
+        if (version.startsWith("1.")) {
+            version = version.substring(2);
+        }
+        try {
+            return Integer.parseInt(version);
+        } catch (NumberFormatException nfexception) {
+            return 0;
+        }
+    }
+
+}
@@ -34,12 +34,11 @@
 package com.github.cereda.nightingale.model;
 
 import com.github.cereda.nightingale.controller.ConfigurationController;
-import com.github.cereda.nightingale.controller.LanguageController;
 import com.github.cereda.nightingale.utils.CommonUtils;
+import com.github.cereda.nightingale.utils.RuleUtils;
 import groovy.lang.Script;
 import java.io.File;
 import java.util.List;
-import java.util.Map;
 
 /**
  *
@@ -49,11 +48,6 @@ import java.util.Map;
  */
 public class BaseRule extends Script {
 
-    // these are the rule parameters, set as an static
-    // attribute in order to avoid the explicit need
-    // to call a setter in the rule context
-    private static Map<String, Object> parameters;
-    
     // the file reference, not necessarily the current file
     // being processed; this file represents the main file
     // from which the directives were extracted (the main
@@ -63,11 +57,6 @@ public class BaseRule extends Script {
     // the session object which holds the session map
     // in order to provide data exchange for rules
     private final Session session;
-    
-    // the application messages obtained from the
-    // language controller
-    private static final LanguageController messages =
-            LanguageController.getInstance();
 
     /**
      * Constructor. It sets the file reference obtained from the configuration
@@ -98,14 +87,6 @@ public class BaseRule extends Script {
         return this;
     }
 
-    /**
-     * Sets the parameters accordingly.
-     * @param parameters A map containing the rule parameters.
-     */
-    public static void setParameters(Map<String, Object> parameters) {
-        BaseRule.parameters = parameters;
-    }
-
     /**
      * Checks if every key in the array of strings is available in the
      * parameters map.
@@ -114,17 +95,7 @@ public class BaseRule extends Script {
      * the higher levels.
      */
     public void required(String... keys) throws NightingaleException {
-        for (String key : keys) {
-            if (!parameters.containsKey(key)) {
-                throw new NightingaleException(
-                        CommonUtils.getRuleErrorHeader().
-                        concat(messages.getMessage(
-                                Messages.ERROR_REQUIRED_INVALID_KEY,
-                                key
-                        ))
-                );
-            }
-        }
+        RuleUtils.required(RuleUtils.getParameters(), keys);
     }
 
     /**
@@ -133,7 +104,7 @@ public class BaseRule extends Script {
      * @return A boolean value indicating if the key is defined.
      */
     public boolean defined(String key) {
-        return parameters.containsKey(key);
+        return RuleUtils.getParameters().containsKey(key);
     }
 
     /**
@@ -154,18 +125,7 @@ public class BaseRule extends Script {
      * the higher levels.
      */
     public void ensure(String key, Object value) throws NightingaleException {
-        if (CommonUtils.isValidArgumentKey(key)) {
-            if (undefined(key)) {
-                parameters.put(key, value);
-            }
-        } else {
-            throw new NightingaleException(
-                    messages.getMessage(
-                            Messages.ERROR_ENSURE_UNKNOWN_KEY,
-                            key
-                    )
-            );
-        }
+        RuleUtils.ensure(RuleUtils.getParameters(), key, value);
     }
 
     /**
@@ -178,31 +138,7 @@ public class BaseRule extends Script {
      */
     public void ensure(List<String> keys, List<Object> values)
             throws NightingaleException {
-        if (keys.size() != values.size()) {
-            throw new NightingaleException(
-                    CommonUtils.getRuleErrorHeader().
-                    concat(messages.getMessage(
-                            Messages.ERROR_ENSURE_DIFFERENT_SIZES,
-                            keys.size(),
-                            values.size())
-                    )
-            );
-        } else {
-            for (int i = 0; i < keys.size(); i++) {
-                if (CommonUtils.isValidArgumentKey(keys.get(i))) {
-                    if (undefined(keys.get(i))) {
-                        parameters.put(keys.get(i), values.get(i));
-                    }
-                } else {
-                    throw new NightingaleException(
-                            messages.getMessage(
-                                    Messages.ERROR_ENSURE_UNKNOWN_KEY,
-                                    keys.get(i)
-                            )
-                    );
-                }
-            }
-        }
+        RuleUtils.ensure(RuleUtils.getParameters(), keys, values);
     }
 
     /**
@@ -213,17 +149,7 @@ public class BaseRule extends Script {
      * the higher levels.
      */
     public Object obtain(String key) throws NightingaleException {
-        if (undefined(key)) {
-            throw new NightingaleException(
-                    CommonUtils.getRuleErrorHeader().
-                    concat(messages.getMessage(
-                            Messages.ERROR_OBTAIN_INVALID_KEY,
-                            key)
-                    )
-            );
-        } else {
-            return parameters.get(key);
-        }
+        return RuleUtils.obtain(RuleUtils.getParameters(), key);
     }
 
     /**
@@ -235,7 +161,7 @@ public class BaseRule extends Script {
      * the key is undefined.
      */
     public Object obtain(String key, Object value) {
-        return (undefined(key) ? value : parameters.get(key));
+        return (undefined(key) ? value : RuleUtils.getParameters().get(key));
     }
 
     /**
@@ -249,33 +175,7 @@ public class BaseRule extends Script {
      */
     public boolean check(boolean expected, String key)
             throws NightingaleException {
-        if (undefined(key)) {
-            throw new NightingaleException(
-                    CommonUtils.getRuleErrorHeader().
-                    concat(messages.getMessage(
-                            Messages.ERROR_CHECK_INVALID_KEY,
-                            key)
-                    )
-            );
-        } else {
-            Object value = parameters.get(key);
-            if (value instanceof Boolean) {
-                return (expected == (Boolean) value);
-            } else {
-                if (value instanceof String) {
-                    return (expected ==
-                            CommonUtils.checkBoolean((String) value));
-                } else {
-                    throw new NightingaleException(
-                            CommonUtils.getRuleErrorHeader().
-                            concat(messages.getMessage(
-                                    Messages.ERROR_CHECK_UNKNOWN_TYPE,
-                                    key)
-                            )
-                    );
-                }
-            }
-        }
+        return RuleUtils.check(RuleUtils.getParameters(), expected, key);
     }
 
     /**
@@ -481,17 +381,7 @@ public class BaseRule extends Script {
      * the higher levels.
      */
     public String basename(File file) throws NightingaleException {
-        if (file.isFile()) {
-            return CommonUtils.getBasename(file);
-        } else {
-            throw new NightingaleException(
-                    CommonUtils.getRuleErrorHeader().
-                    concat(messages.getMessage(
-                            Messages.ERROR_BASENAME_NOT_A_FILE,
-                            file.getName())
-                    )
-            );
-        }
+        return RuleUtils.basename(file);
     }
 
     /**
@@ -514,16 +404,7 @@ public class BaseRule extends Script {
      * the higher levels.
      */
     public String filetype(File file) throws NightingaleException {
-        if (file.isFile()) {
-            return CommonUtils.getFiletype(file);
-        } else {
-            throw new NightingaleException(CommonUtils.getRuleErrorHeader().
-                    concat(messages.getMessage(
-                            Messages.ERROR_FILETYPE_NOT_A_FILE,
-                            file.getName())
-                    )
-            );
-        }
+        return RuleUtils.filetype(file);
     }
 
     /**
@@ -590,6 +471,109 @@ public class BaseRule extends Script {
         return CommonUtils.checkRegex(file, regex);
     }
 
+    /**
+     * Creates a built-in command which deletes the provided files, and
+     * directories recursively. Missing files are not an error.
+     * @param files The files to be deleted.
+     * @return The built-in command.
+     * @throws NightingaleException There are no files.
+     */
+    public Builtin delete(Object... files) throws NightingaleException {
+        return new Builtin("delete", files);
+    }
+
+    /**
+     * Creates a built-in command which copies the provided files. The last
+     * file is the target, either a file or an existing directory.
+     * @param files The source files, followed by the target.
+     * @return The built-in command.
+     * @throws NightingaleException There are not enough files.
+     */
+    public Builtin copy(Object... files) throws NightingaleException {
+        return new Builtin("copy", files);
+    }
+
+    /**
+     * Creates a built-in command which moves the provided files. The last
+     * file is the target, either a file or an existing directory.
+     * @param files The source files, followed by the target.
+     * @return The built-in command.
+     * @throws NightingaleException There are not enough files.
+     */
+    public Builtin move(Object... files) throws NightingaleException {
+        return new Builtin("move", files);
+    }
+
+    /**
+     * Creates a built-in command which creates the provided directories,
+     * including any missing parent directories.
+     * @param directories The directories to be created.
+     * @return The built-in command.
+     * @throws NightingaleException There are no directories.
+     */
+    public Builtin mkdir(Object... directories) throws NightingaleException {
+        return new Builtin("mkdir", directories);
+    }
+
+    /**
+     * Creates a built-in command which creates the provided files, or updates
+     * their last modified time if they already exist.
+     * @param files The files to be touched.
+     * @return The built-in command.
+     * @throws NightingaleException There are no files.
+     */
+    public Builtin touch(Object... files) throws NightingaleException {
+        return new Builtin("touch", files);
+    }
+
+    /**
+     * Creates a built-in command which concatenates the provided files. The
+     * last file is the target, which is overwritten.
+     * @param files The source files, followed by the target.
+     * @return The built-in command.
+     * @throws NightingaleException There are not enough files.
+     */
+    public Builtin concatenate(Object... files) throws NightingaleException {
+        return new Builtin("concatenate", files);
+    }
+
+    /**
+     * Connects the provided commands in a pipeline, that is, the standard
+     * output of each command is fed to the standard input of the next one,
+     * with no intermediate files in between.
+     * @param commands The commands, one for each pipeline stage.
+     * @return The pipeline.
+     * @throws NightingaleException One of the values is not a command.
+     */
+    public Pipeline pipe(Object... commands) throws NightingaleException {
+        return new Pipeline(commands);
+    }
+
+    /**
+     * Marks the provided commands as candidates for coalescing, that is,
+     * consecutive commands sharing everything but their last element are run
+     * as a single invocation, still reported one by one.
+     * @param commands The commands.
+     * @return The group of commands.
+     * @throws NightingaleException One of the values is not a command.
+     */
+    public Coalescence coalesce(Object... commands)
+            throws NightingaleException {
+        return new Coalescence(commands);
+    }
+
+    /**
+     * Groups the provided commands as independent from each other, so they
+     * can run at the same time. Each command is still reported on its own,
+     * in the provided order.
+     * @param commands The system commands, pipelines and built-in commands.
+     * @return The group of commands.
+     * @throws NightingaleException One of the commands cannot run on its own.
+     */
+    public Parallel parallel(Object... commands) throws NightingaleException {
+        return new Parallel(commands);
+    }
+
     /**
      * Throws the provided text as an exception.
      * @param text A string containing the error text.
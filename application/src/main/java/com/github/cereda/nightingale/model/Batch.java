@@ -0,0 +1,464 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.model;
+
+import com.github.cereda.nightingale.Nightingale;
+import com.github.cereda.nightingale.controller.ConfigurationController;
+import com.github.cereda.nightingale.controller.LanguageController;
+import com.github.cereda.nightingale.controller.SessionController;
+import com.github.cereda.nightingale.utils.CommonUtils;
+import com.github.cereda.nightingale.utils.DisplayUtils;
+import com.github.cereda.nightingale.utils.HistoryUtils;
+import com.github.cereda.nightingale.utils.SchedulingUtils;
+import com.github.cereda.nightingale.utils.ThreadOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Implements the batch model. Several documents are built in the same virtual
+ * machine, on a work stealing pool, each one with its own isolated settings,
+ * session and output. Documents are started longest first, according to their
+ * build history. Once all builds are done, a consolidated summary with the
+ * status and timing of each document is displayed, together with the
+ * predicted and actual makespan.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class Batch {
+
+    // the application messages obtained from the
+    // language controller
+    private static final LanguageController messages =
+            LanguageController.getInstance();
+
+    /**
+     * Builds all documents provided in the command line.
+     * @return A boolean value indicating if all documents were successfully
+     * built.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public boolean run() throws NightingaleException {
+        @SuppressWarnings("unchecked")
+        List<String> references = expand((List<String>) ConfigurationController.
+                getInstance().
+                get("execution.batch"));
+        long jobs = (Long) ConfigurationController.
+                getInstance().
+                get("execution.jobs");
+
+        // the output of each build is kept aside and
+        // only displayed once the build is done, so
+        // concurrent builds do not mix their output
+        final PrintStream out = System.out;
+        PrintStream err = System.err;
+        final ThreadOutputStream stream = new ThreadOutputStream(out);
+        PrintStream dispatcher = new PrintStream(stream, true);
+        System.setOut(dispatcher);
+        System.setErr(dispatcher);
+
+        // documents are submitted longest first, according
+        // to their estimates, but the results are kept in
+        // the command line order
+        Map<Integer, Long> estimates = new HashMap<Integer, Long>();
+        int known = estimate(references, estimates);
+        List<Integer> indices = new ArrayList<Integer>();
+        for (int i = 0; i < references.size(); i++) {
+            indices.add(i);
+        }
+
+        List<Result> results = new ArrayList<Result>();
+        ForkJoinPool pool = new ForkJoinPool((int) jobs);
+        long beginning = System.nanoTime();
+
+        try {
+            Map<Integer, ForkJoinTask<Result>> tasks =
+                    new HashMap<Integer, ForkJoinTask<Result>>();
+            for (Integer index : SchedulingUtils.order(indices, estimates)) {
+                final String reference = references.get(index);
+                tasks.put(index, pool.submit(new Callable<Result>() {
+                    public Result call() {
+                        return build(reference, stream, out);
+                    }
+                }));
+            }
+            for (Integer index : indices) {
+                results.add(tasks.get(index).join());
+            }
+        } finally {
+            pool.shutdownNow();
+            System.setOut(out);
+            System.setErr(err);
+        }
+        StopWatch.mark("batch");
+
+        long end = System.nanoTime();
+        boolean success = summarize(results, jobs, end - beginning);
+
+        // the estimates are only meaningful when at
+        // least one document has a history, otherwise
+        // they are just source sizes
+        if (known == 0) {
+            DisplayUtils.wrapText(
+                    messages.getMessage(
+                            Messages.INFO_BATCH_NO_HISTORY
+                    )
+            );
+        } else {
+            DisplayUtils.wrapText(
+                    messages.getMessage(
+                            Messages.INFO_BATCH_PREDICTION,
+                            StopWatch.format(TimeUnit.MILLISECONDS.toNanos(
+                                    SchedulingUtils.makespan(
+                                            estimates.values(),
+                                            (int) jobs
+                                    )
+                            )),
+                            StopWatch.format(end - beginning),
+                            known,
+                            references.size()
+                    )
+            );
+        }
+
+        return success;
+    }
+
+    /**
+     * Estimates the duration of each document, in milliseconds, based on its
+     * build history. Documents without history are estimated from their
+     * source size, using the time per byte observed in the documents with
+     * history; when no history is available at all, the source size itself
+     * is used, which still gives a sensible order.
+     * @param references The list of references.
+     * @param estimates The map of estimates, indexed by reference position.
+     * @return The number of documents with history.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    private int estimate(List<String> references, Map<Integer, Long> estimates)
+            throws NightingaleException {
+        Map<Integer, Long> sizes = new HashMap<Integer, Long>();
+        long time = 0;
+        long size = 0;
+        int known = 0;
+
+        for (int i = 0; i < references.size(); i++) {
+            File file = locate(references.get(i));
+            if (file == null) {
+                estimates.put(i, 0L);
+            } else {
+                Long duration = HistoryUtils.get(HistoryUtils.getKey(file));
+                if (duration == null) {
+                    sizes.put(i, file.length());
+                } else {
+                    estimates.put(i, duration);
+                    time = time + duration;
+                    size = size + file.length();
+                    known++;
+                }
+            }
+        }
+
+        for (Map.Entry<Integer, Long> entry : sizes.entrySet()) {
+            if (known == 0) {
+                estimates.put(entry.getKey(), entry.getValue());
+            } else {
+                estimates.put(entry.getKey(), size == 0
+                        ? time / known
+                        : Math.round((double) entry.getValue() * time / size)
+                );
+            }
+        }
+
+        return known;
+    }
+
+    /**
+     * Looks up the file of the provided reference, without touching the
+     * settings of the current thread.
+     * @param reference The reference.
+     * @return The file, or null if the lookup failed.
+     */
+    private File locate(String reference) {
+        ConfigurationController.getInstance().isolate();
+        try {
+            CommonUtils.discoverFile(reference);
+            return (File) ConfigurationController.
+                    getInstance().
+                    get("execution.reference");
+        } catch (NightingaleException exception) {
+            return null;
+        } finally {
+            ConfigurationController.getInstance().release();
+        }
+    }
+
+    /**
+     * Builds a single document in an isolated context.
+     * @param reference The document reference.
+     * @param stream The output stream which captures the build output.
+     * @param out The stream in which the build output is displayed.
+     * @return The build result.
+     */
+    private Result build(String reference, ThreadOutputStream stream,
+            PrintStream out) {
+        ConfigurationController.getInstance().isolate();
+        SessionController.getInstance().isolate();
+        stream.capture();
+
+        // system commands are displayed in verbose mode by
+        // threads of their own, so they need the buffer
+        // itself, not the stream dispatching by thread
+        ConfigurationController.getInstance().put("execution.output",
+                stream.getTarget());
+
+        Result result = new Result();
+        result.reference = reference;
+        long beginning = System.nanoTime();
+
+        try {
+            CommonUtils.discoverFile(reference);
+            Nightingale.build();
+            result.status = ((Boolean) ConfigurationController.
+                    getInstance().
+                    get("execution.success"))
+                    ? Messages.INFO_LABEL_ON_SUCCESS
+                    : Messages.INFO_LABEL_ON_FAILURE;
+        } catch (NightingaleException exception) {
+            DisplayUtils.printException(exception);
+            result.status = Messages.INFO_LABEL_ON_ERROR;
+        } finally {
+            result.time = System.nanoTime() - beginning;
+            byte[] output = stream.release();
+            synchronized (out) {
+                out.write(output, 0, output.length);
+                out.println();
+                out.flush();
+            }
+            ConfigurationController.getInstance().release();
+            SessionController.getInstance().release();
+        }
+
+        return result;
+    }
+
+    /**
+     * Displays the consolidated summary.
+     * @param results The list of results, in the command line order.
+     * @param jobs The number of concurrent jobs.
+     * @param time The elapsed time, in nanoseconds.
+     * @return A boolean value indicating if all documents were successfully
+     * built.
+     */
+    private boolean summarize(List<Result> results, long jobs, long time) {
+        int width = (Integer) ConfigurationController.
+                getInstance().
+                get("application.width");
+        int succeeded = 0;
+
+        DisplayUtils.wrapText(
+                messages.getMessage(
+                        Messages.INFO_BATCH_SUMMARY,
+                        results.size(),
+                        jobs
+                )
+        );
+        System.out.println(DisplayUtils.displaySeparator());
+
+        for (Result result : results) {
+            if (result.status == Messages.INFO_LABEL_ON_SUCCESS) {
+                succeeded++;
+            }
+            String tail = " ".concat(messages.getMessage(result.status)).
+                    concat(" (").concat(StopWatch.format(result.time)).concat(" s)");
+            String name = StringUtils.abbreviate(
+                    result.reference,
+                    Math.max(4, width - tail.length() - 2)
+            ).concat(" ");
+            System.out.println(
+                    StringUtils.rightPad(
+                            name,
+                            width - tail.length(),
+                            "."
+                    ).concat(tail)
+            );
+        }
+
+        System.out.println(DisplayUtils.displaySeparator());
+        DisplayUtils.wrapText(
+                messages.getMessage(
+                        Messages.INFO_BATCH_TOTAL,
+                        StopWatch.format(time),
+                        succeeded,
+                        results.size() - succeeded
+                )
+        );
+
+        return succeeded == results.size();
+    }
+
+    /**
+     * Expands the provided references, replacing globs by the files they
+     * match. A glob without matches is kept as is, so the file lookup reports
+     * it later on.
+     * @param references The list of references.
+     * @return The expanded list of references.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    List<String> expand(List<String> references)
+            throws NightingaleException {
+        List<String> result = new ArrayList<String>();
+        for (String reference : references) {
+            if (StringUtils.containsAny(reference, "*?[{")) {
+                List<String> matches = glob(reference);
+                if (matches.isEmpty()) {
+                    result.add(reference);
+                } else {
+                    result.addAll(matches);
+                }
+            } else {
+                result.add(reference);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the files matching the provided glob. The leading path segments
+     * without wildcards form the directory in which the search starts.
+     * @param glob The glob.
+     * @return A sorted list of matching files.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    private List<String> glob(String glob) throws NightingaleException {
+        List<String> segments = Arrays.asList(
+                glob.replace(File.separatorChar, '/').split("/", -1)
+        );
+        int index = 0;
+        while (!StringUtils.containsAny(segments.get(index), "*?[{")) {
+            index++;
+        }
+
+        String prefix = StringUtils.join(segments.subList(0, index), "/");
+        final String root = index == 0 ? "" : prefix.concat("/");
+        String pattern = StringUtils.join(
+                segments.subList(index, segments.size()), "/"
+        );
+        final PathMatcher matcher = FileSystems.getDefault().
+                getPathMatcher("glob:".concat(pattern));
+        final Path base = CommonUtils.resolveFile(
+                index == 0 ? "." : (prefix.isEmpty() ? "/" : prefix)
+        ).toPath();
+        int depth = pattern.contains("**")
+                ? Integer.MAX_VALUE
+                : segments.size() - index;
+        final List<String> result = new ArrayList<String>();
+
+        try {
+            if (base.toFile().isDirectory()) {
+                Files.walkFileTree(
+                        base,
+                        EnumSet.noneOf(FileVisitOption.class),
+                        depth,
+                        new SimpleFileVisitor<Path>() {
+                            @Override
+                            public FileVisitResult visitFile(Path file,
+                                    BasicFileAttributes attributes) {
+                                Path relative = base.relativize(file);
+                                if (attributes.isRegularFile()
+                                        && matcher.matches(relative)) {
+                                    result.add(root.concat(
+                                            relative.toString().replace(
+                                                    File.separatorChar, '/'
+                                            )
+                                    ));
+                                }
+                                return FileVisitResult.CONTINUE;
+                            }
+                        }
+                );
+            }
+        } catch (IOException ioexception) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_BATCH_IO_EXCEPTION
+                    ),
+                    ioexception
+            );
+        }
+
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * Holds the result of a single build.
+     */
+    private static class Result {
+
+        // the document reference, the
+        // status label and the elapsed
+        // time, in nanoseconds
+        private String reference;
+        private Messages status;
+        private long time;
+
+    }
+
+}
@@ -0,0 +1,448 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.model;
+
+import java.io.File;
+
+/**
+ * Implements the build events, published on the event bus as the build goes
+ * on. Each event knows when and in which thread it happened; the event types
+ * are nested classes, so listeners can tell them apart with instanceof.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public abstract class BuildEvent {
+
+    // the moment the event happened, in nano
+    // time, and the thread in which it did
+    private final long timestamp;
+    private final Thread thread;
+
+    /**
+     * Constructor.
+     */
+    protected BuildEvent() {
+        timestamp = System.nanoTime();
+        thread = Thread.currentThread();
+    }
+
+    /**
+     * Gets the moment the event happened.
+     * @return The moment the event happened, in nano time.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Gets the thread in which the event happened.
+     * @return The thread.
+     */
+    public Thread getThread() {
+        return thread;
+    }
+
+    /**
+     * The build of a file has started.
+     */
+    public static final class BuildStarted extends BuildEvent {
+
+        // the file being built
+        private final File reference;
+
+        /**
+         * Constructor.
+         * @param reference The file being built.
+         */
+        public BuildStarted(File reference) {
+            this.reference = reference;
+        }
+
+        /**
+         * Gets the file being built.
+         * @return The file.
+         */
+        public File getReference() {
+            return reference;
+        }
+
+    }
+
+    /**
+     * The build of a file has finished.
+     */
+    public static final class BuildFinished extends BuildEvent {
+
+        // the file built, whether the build
+        // succeeded and how long it took
+        private final File reference;
+        private final boolean success;
+        private final long duration;
+
+        /**
+         * Constructor.
+         * @param reference The file built.
+         * @param success Whether the build succeeded.
+         * @param duration The build duration, in nanoseconds.
+         */
+        public BuildFinished(File reference, boolean success, long duration) {
+            this.reference = reference;
+            this.success = success;
+            this.duration = duration;
+        }
+
+        /**
+         * Gets the file built.
+         * @return The file.
+         */
+        public File getReference() {
+            return reference;
+        }
+
+        /**
+         * Checks if the build succeeded.
+         * @return A boolean value indicating if the build succeeded.
+         */
+        public boolean isSuccess() {
+            return success;
+        }
+
+        /**
+         * Gets the build duration.
+         * @return The build duration, in nanoseconds.
+         */
+        public long getDuration() {
+            return duration;
+        }
+
+    }
+
+    /**
+     * A directive is about to be processed.
+     */
+    public static final class DirectiveStarted extends BuildEvent {
+
+        // the directive
+        private final Directive directive;
+
+        /**
+         * Constructor.
+         * @param directive The directive.
+         */
+        public DirectiveStarted(Directive directive) {
+            this.directive = directive;
+        }
+
+        /**
+         * Gets the directive.
+         * @return The directive.
+         */
+        public Directive getDirective() {
+            return directive;
+        }
+
+    }
+
+    /**
+     * A directive was skipped, since its prior evaluation did not hold.
+     */
+    public static final class DirectiveSkipped extends BuildEvent {
+
+        // the directive
+        private final Directive directive;
+
+        /**
+         * Constructor.
+         * @param directive The directive.
+         */
+        public DirectiveSkipped(Directive directive) {
+            this.directive = directive;
+        }
+
+        /**
+         * Gets the directive.
+         * @return The directive.
+         */
+        public Directive getDirective() {
+            return directive;
+        }
+
+    }
+
+    /**
+     * A directive was processed.
+     */
+    public static final class DirectiveFinished extends BuildEvent {
+
+        // the directive, the number of conditional
+        // evaluations, how long it took and whether
+        // it was successful
+        private final Directive directive;
+        private final long evaluations;
+        private final long duration;
+        private final boolean successful;
+
+        /**
+         * Constructor.
+         * @param directive The directive.
+         * @param evaluations The number of conditional evaluations.
+         * @param duration The directive duration, in nanoseconds.
+         * @param successful Whether the directive was successful, that is,
+         * none of its entries failed and no error was raised.
+         */
+        public DirectiveFinished(Directive directive, long evaluations,
+                long duration, boolean successful) {
+            this.directive = directive;
+            this.evaluations = evaluations;
+            this.duration = duration;
+            this.successful = successful;
+        }
+
+        /**
+         * Gets the directive.
+         * @return The directive.
+         */
+        public Directive getDirective() {
+            return directive;
+        }
+
+        /**
+         * Gets the number of conditional evaluations, that is, the loop
+         * iterations of the directive.
+         * @return The number of evaluations.
+         */
+        public long getEvaluations() {
+            return evaluations;
+        }
+
+        /**
+         * Gets the directive duration.
+         * @return The directive duration, in nanoseconds.
+         */
+        public long getDuration() {
+            return duration;
+        }
+
+        /**
+         * Checks if the directive was successful.
+         * @return A boolean value indicating if none of the directive entries
+         * failed and no error was raised.
+         */
+        public boolean isSuccessful() {
+            return successful;
+        }
+
+    }
+
+    /**
+     * A conditional was evaluated.
+     */
+    public static final class ConditionEvaluated extends BuildEvent {
+
+        // the conditional, its result and
+        // how long the evaluation took
+        private final Conditional conditional;
+        private final boolean result;
+        private final long duration;
+
+        /**
+         * Constructor.
+         * @param conditional The conditional.
+         * @param result The result.
+         * @param duration The evaluation duration, in nanoseconds.
+         */
+        public ConditionEvaluated(Conditional conditional, boolean result,
+                long duration) {
+            this.conditional = conditional;
+            this.result = result;
+            this.duration = duration;
+        }
+
+        /**
+         * Gets the conditional.
+         * @return The conditional.
+         */
+        public Conditional getConditional() {
+            return conditional;
+        }
+
+        /**
+         * Gets the result, regardless of the conditional type.
+         * @return The result.
+         */
+        public boolean getResult() {
+            return result;
+        }
+
+        /**
+         * Gets the evaluation duration.
+         * @return The evaluation duration, in nanoseconds.
+         */
+        public long getDuration() {
+            return duration;
+        }
+
+    }
+
+    /**
+     * A command is about to run, that is, a system command, a pipeline or a
+     * built-in command.
+     */
+    public static final class CommandSpawned extends BuildEvent {
+
+        // the command
+        private final Object command;
+
+        /**
+         * Constructor.
+         * @param command The command.
+         */
+        public CommandSpawned(Object command) {
+            this.command = command;
+        }
+
+        /**
+         * Gets the command.
+         * @return The command.
+         */
+        public Object getCommand() {
+            return command;
+        }
+
+    }
+
+    /**
+     * A command wrote to its output.
+     */
+    public static final class OutputChunk extends BuildEvent {
+
+        // the command and a copy of what it wrote
+        private final Object command;
+        private final byte[] data;
+
+        /**
+         * Constructor.
+         * @param command The command.
+         * @param data The bytes written, owned by the event.
+         */
+        public OutputChunk(Object command, byte[] data) {
+            this.command = command;
+            this.data = data;
+        }
+
+        /**
+         * Gets the command.
+         * @return The command.
+         */
+        public Object getCommand() {
+            return command;
+        }
+
+        /**
+         * Gets the bytes written. They must not be changed.
+         * @return The bytes written.
+         */
+        public byte[] getData() {
+            return data;
+        }
+
+    }
+
+    /**
+     * A command has finished.
+     */
+    public static final class CommandFinished extends BuildEvent {
+
+        // the command, its result, how long it
+        // took and how many bytes it wrote
+        private final Object command;
+        private final Object result;
+        private final long duration;
+        private final long bytes;
+
+        /**
+         * Constructor.
+         * @param command The command.
+         * @param result The result, that is, the exit value of a system
+         * command, the exit values of a pipeline or the boolean result of a
+         * built-in command.
+         * @param duration The command duration, in nanoseconds.
+         * @param bytes The number of bytes written to the output.
+         */
+        public CommandFinished(Object command, Object result, long duration,
+                long bytes) {
+            this.command = command;
+            this.result = result;
+            this.duration = duration;
+            this.bytes = bytes;
+        }
+
+        /**
+         * Gets the command.
+         * @return The command.
+         */
+        public Object getCommand() {
+            return command;
+        }
+
+        /**
+         * Gets the command result.
+         * @return The result, that is, the exit value of a system command,
+         * the exit values of a pipeline or the boolean result of a built-in
+         * command.
+         */
+        public Object getResult() {
+            return result;
+        }
+
+        /**
+         * Gets the command duration.
+         * @return The command duration, in nanoseconds.
+         */
+        public long getDuration() {
+            return duration;
+        }
+
+        /**
+         * Gets the number of bytes written to the output.
+         * @return The number of bytes.
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+    }
+
+}
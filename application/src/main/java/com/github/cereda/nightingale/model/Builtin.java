@@ -0,0 +1,275 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.model;
+
+import com.github.cereda.nightingale.controller.LanguageController;
+import com.github.cereda.nightingale.utils.CommonUtils;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implements the built-in commands, that is, file operations which rules can
+ * return in place of system commands. They run inside the application itself,
+ * so no process is spawned for them. Relative paths are resolved against the
+ * working directory, as system commands would do.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class Builtin {
+
+    // the minimum number of elements of each
+    // built-in command; for copy, move and
+    // concatenate, the last element is the
+    // target, and all the others are sources
+    private static final Map<String, Integer> arities;
+
+    static {
+        arities = new HashMap<String, Integer>();
+        arities.put("delete", 1);
+        arities.put("copy", 2);
+        arities.put("move", 2);
+        arities.put("mkdir", 1);
+        arities.put("touch", 1);
+        arities.put("concatenate", 2);
+    }
+
+    // the built-in command name and its
+    // elements, represented as strings
+    private final String name;
+    private final List<String> elements;
+
+    // the application messages obtained from the
+    // language controller
+    private static final LanguageController messages =
+            LanguageController.getInstance();
+
+    /**
+     * Constructor. The values are flattened and empty ones are discarded, as
+     * in system commands.
+     * @param name The built-in command name.
+     * @param values The built-in command elements.
+     * @throws NightingaleException The built-in command does not exist or
+     * there are not enough elements.
+     */
+    public Builtin(String name, Object... values) throws NightingaleException {
+        this.name = name;
+        elements = new ArrayList<String>();
+        List result = CommonUtils.flatten(Arrays.asList(values));
+        for (Object value : result) {
+            String element = String.valueOf(value);
+            if (!CommonUtils.checkEmptyString(element)) {
+                elements.add(element);
+            }
+        }
+        if (!arities.containsKey(name)) {
+            throw new NightingaleException(
+                    CommonUtils.getRuleErrorHeader().
+                    concat(messages.getMessage(
+                            Messages.ERROR_BUILTIN_UNKNOWN_COMMAND,
+                            name
+                    ))
+            );
+        }
+        if (elements.size() < arities.get(name)) {
+            throw new NightingaleException(
+                    CommonUtils.getRuleErrorHeader().
+                    concat(messages.getMessage(
+                            Messages.ERROR_BUILTIN_MISSING_ELEMENTS,
+                            name,
+                            arities.get(name)
+                    ))
+            );
+        }
+    }
+
+    /**
+     * Gets the built-in command name.
+     * @return The built-in command name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the built-in command elements.
+     * @return The built-in command elements.
+     */
+    public List<String> getElements() {
+        return elements;
+    }
+
+    /**
+     * Provides a textual representation of the built-in command.
+     * @return The textual representation.
+     */
+    @Override
+    public String toString() {
+        return name.concat(" ").concat(CommonUtils.getCollectionElements(
+                elements, "[ ", " ]", ", "));
+    }
+
+    /**
+     * Runs the built-in command.
+     * @throws IOException The file operation failed.
+     */
+    public void process() throws IOException {
+        List<Path> paths = new ArrayList<Path>();
+        for (String element : elements) {
+            paths.add(CommonUtils.resolveFile(element).toPath());
+        }
+        switch (name) {
+            case "delete":
+                for (Path path : paths) {
+                    delete(path);
+                }
+                break;
+            case "copy":
+            case "move":
+                Path target = paths.remove(paths.size() - 1);
+
+                // several sources never go to the same
+                // file, otherwise only the last one
+                // would survive
+                if ((paths.size() > 1) && !Files.isDirectory(target)) {
+                    throw new IOException(
+                            messages.getMessage(
+                                    Messages.ERROR_BUILTIN_TARGET_NOT_A_DIRECTORY,
+                                    target
+                            )
+                    );
+                }
+                for (Path source : paths) {
+                    Path destination = Files.isDirectory(target)
+                            ? target.resolve(source.getFileName())
+                            : target;
+                    if (name.equals("copy")) {
+                        Files.copy(source, destination,
+                                StandardCopyOption.REPLACE_EXISTING,
+                                StandardCopyOption.COPY_ATTRIBUTES);
+                    } else {
+                        Files.move(source, destination,
+                                StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+                break;
+            case "mkdir":
+                for (Path path : paths) {
+                    Files.createDirectories(path);
+                }
+                break;
+            case "touch":
+                for (Path path : paths) {
+                    if (Files.exists(path)) {
+                        Files.setLastModifiedTime(path, FileTime.
+                                fromMillis(System.currentTimeMillis()));
+                    } else {
+                        Files.createFile(path);
+                    }
+                }
+                break;
+            case "concatenate":
+                Path output = paths.remove(paths.size() - 1);
+
+                // the target is truncated as soon as it is
+                // opened, so it cannot be one of the sources
+                for (Path source : paths) {
+                    if (Files.exists(output)
+                            && Files.isSameFile(source, output)) {
+                        throw new IOException(
+                                messages.getMessage(
+                                        Messages.ERROR_BUILTIN_TARGET_IS_SOURCE,
+                                        output
+                                )
+                        );
+                    }
+                }
+                OutputStream stream = Files.newOutputStream(output);
+                try {
+                    for (Path source : paths) {
+                        Files.copy(source, stream);
+                    }
+                } finally {
+                    stream.close();
+                }
+                break;
+        }
+    }
+
+    /**
+     * Deletes the provided path, recursively if it is a directory. A missing
+     * path is not an error, so deleting is idempotent.
+     * @param path The path.
+     * @throws IOException The path could not be deleted.
+     */
+    private void delete(Path path) throws IOException {
+        if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+            Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file,
+                        BasicFileAttributes attributes) throws IOException {
+                    Files.delete(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path directory,
+                        IOException exception) throws IOException {
+                    if (exception != null) {
+                        throw exception;
+                    }
+                    Files.delete(directory);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } else {
+            Files.deleteIfExists(path);
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.model;
+
+import com.github.cereda.nightingale.controller.LanguageController;
+import com.github.cereda.nightingale.utils.CommonUtils;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Implements a group of commands which may be coalesced, that is, consecutive
+ * commands sharing everything but their last element are run as a single
+ * invocation holding all those last elements, as long as the argument length
+ * limit of the underlying operating system allows it. The interpreter still
+ * reports each command on its own, with the exit value of the invocation it
+ * was part of.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class Coalescence {
+
+    // the list of commands
+    // to be coalesced
+    private final List<Command> elements;
+
+    // the application messages obtained from the
+    // language controller
+    private static final LanguageController messages =
+            LanguageController.getInstance();
+
+    /**
+     * Constructor. The values are flattened, and each one of them must be a
+     * command object.
+     * @param values The commands.
+     * @throws NightingaleException One of the values is not a command.
+     */
+    public Coalescence(Object... values) throws NightingaleException {
+        elements = new ArrayList<Command>();
+        for (Object value : CommonUtils.flatten(Arrays.asList(values))) {
+            if (!CommonUtils.checkClass(Command.class, value)) {
+                throw new NightingaleException(
+                        CommonUtils.getRuleErrorHeader().
+                        concat(messages.getMessage(
+                                Messages.ERROR_COALESCENCE_INVALID_ELEMENT,
+                                String.valueOf(value)
+                        ))
+                );
+            }
+            elements.add((Command) value);
+        }
+    }
+
+    /**
+     * Gets the list of commands.
+     * @return The list of commands.
+     */
+    public List<Command> getElements() {
+        return elements;
+    }
+
+    /**
+     * Provides a textual representation of the group of commands.
+     * @return The textual representation.
+     */
+    @Override
+    public String toString() {
+        return CommonUtils.getCollectionElements(elements, "[ ", " ]", ", ");
+    }
+
+}
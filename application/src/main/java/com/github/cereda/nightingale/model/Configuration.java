@@ -138,6 +138,15 @@ public class Configuration {
                 CommonUtils.buildPath(ConfigurationUtils.getApplicationPath(),
                         "rules"))
         );
+        mapping.put("execution.directory",
+                new File(System.getProperty("user.dir"))
+        );
+        mapping.put("execution.environment", new HashMap<String, String>());
+        mapping.put("daemon.idle", 30L);
+        mapping.put("watch.debounce", 250L);
+        mapping.put("execution.jobs",
+                (long) Runtime.getRuntime().availableProcessors());
+        mapping.put("execution.runner", new SystemRunner());
 
         // get the configuration controller and
         // set every map key to it
@@ -0,0 +1,235 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.model;
+
+import com.github.cereda.nightingale.Nightingale;
+import com.github.cereda.nightingale.controller.ConfigurationController;
+import com.github.cereda.nightingale.controller.LanguageController;
+import com.github.cereda.nightingale.utils.DaemonOutputStream;
+import com.github.cereda.nightingale.utils.DaemonUtils;
+import com.github.cereda.nightingale.utils.DisplayUtils;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Implements the daemon model. The daemon keeps a warm virtual machine, with
+ * compiled rules, conditionals and the change database in memory, and accepts
+ * build requests from clients over a loopback socket. Requests are handled one
+ * at a time, and the daemon shuts down after a configurable idle period.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class Daemon {
+
+    // a flag that indicates if there is a
+    // daemon running in this virtual machine
+    private static boolean running = false;
+
+    // the application messages obtained from the
+    // language controller
+    private static final LanguageController messages =
+            LanguageController.getInstance();
+
+    /**
+     * Checks if there is a daemon running in this virtual machine.
+     * @return A boolean value indicating if there is a daemon running.
+     */
+    public static boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Serves build requests until the idle period is reached.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public void serve() throws NightingaleException {
+        if (running) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_DAEMON_ALREADY_RUNNING
+                    )
+            );
+        }
+
+        long idle = (Long) ConfigurationController.
+                getInstance().
+                get("daemon.idle");
+        File file = DaemonUtils.getDaemonFile();
+        ServerSocket server = null;
+
+        try {
+
+            // the daemon only listens on the loopback
+            // interface, and clients must provide the
+            // token written in the daemon file
+            server = new ServerSocket(0, 50, InetAddress.getByName(null));
+            server.setSoTimeout((int) TimeUnit.MINUTES.toMillis(idle));
+            String token = DaemonUtils.generateToken();
+            DaemonUtils.writeDaemonFile(file, server.getLocalPort(), token);
+            running = true;
+
+            DisplayUtils.wrapText(
+                    messages.getMessage(
+                            Messages.INFO_DAEMON_LISTENING,
+                            String.valueOf(server.getLocalPort()),
+                            idle
+                    )
+            );
+
+            // wait for requests, one at a time; if nothing
+            // shows up within the idle period, the accept
+            // call times out and the daemon shuts down
+            while (true) {
+                Socket socket;
+                try {
+                    socket = server.accept();
+                } catch (SocketTimeoutException stexception) {
+                    break;
+                }
+                handle(socket, token);
+            }
+
+            DisplayUtils.wrapText(
+                    messages.getMessage(
+                            Messages.INFO_DAEMON_SHUTDOWN
+                    )
+            );
+
+        } catch (IOException ioexception) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_DAEMON_IO_EXCEPTION
+                    ),
+                    ioexception
+            );
+        } finally {
+            running = false;
+            file.delete();
+            IOUtils.closeQuietly(server);
+        }
+    }
+
+    /**
+     * Handles a single build request. The output is streamed back to the
+     * client, followed by the exit code.
+     * @param socket The client socket.
+     * @param token The access token.
+     */
+    private void handle(Socket socket, String token) {
+        try {
+
+            // a client which connects and sends nothing
+            // must not hold the daemon forever
+            socket.setSoTimeout(DaemonUtils.REQUEST_TIMEOUT);
+            DataInputStream input = new DataInputStream(
+                    new BufferedInputStream(socket.getInputStream())
+            );
+            DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(socket.getOutputStream())
+            );
+
+            // requests without the proper
+            // token are simply discarded
+            if (!token.equals(DaemonUtils.readString(input,
+                    DaemonUtils.TOKEN_LIMIT))) {
+                return;
+            }
+
+            // read the working directory, the command
+            // line arguments and the environment
+            File directory = new File(DaemonUtils.readString(input));
+            String[] arguments = new String[DaemonUtils.readCount(input)];
+            for (int i = 0; i < arguments.length; i++) {
+                arguments[i] = DaemonUtils.readString(input);
+            }
+            Map<String, String> environment = new HashMap<String, String>();
+            int size = DaemonUtils.readCount(input);
+            for (int i = 0; i < size; i++) {
+                String key = DaemonUtils.readString(input);
+                environment.put(key, DaemonUtils.readString(input));
+            }
+
+            // redirect the standard streams to the
+            // client while the build is running
+            PrintStream out = System.out;
+            PrintStream err = System.err;
+            PrintStream stream = new PrintStream(
+                    new BufferedOutputStream(
+                            new DaemonOutputStream(output)
+                    ),
+                    true
+            );
+            System.setOut(stream);
+            System.setErr(stream);
+
+            int status;
+            try {
+                status = Nightingale.run(arguments, directory, environment);
+            } catch (RuntimeException exception) {
+                exception.printStackTrace(stream);
+                status = 1;
+            } finally {
+                stream.flush();
+                System.setOut(out);
+                System.setErr(err);
+            }
+
+            output.writeByte(DaemonUtils.FRAME_EXIT);
+            output.writeInt(status);
+            output.flush();
+
+        } catch (IOException ioexception) {
+            // the client went away, there is
+            // nothing else to do about it
+        } finally {
+            IOUtils.closeQuietly(socket);
+        }
+    }
+
+}
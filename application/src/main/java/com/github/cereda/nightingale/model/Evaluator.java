@@ -33,13 +33,12 @@
  */
 package com.github.cereda.nightingale.model;
 
+import com.github.cereda.nightingale.controller.CompilerController;
 import com.github.cereda.nightingale.controller.ConfigurationController;
 import com.github.cereda.nightingale.controller.LanguageController;
 import com.github.cereda.nightingale.utils.CommonUtils;
 import groovy.lang.Binding;
-import groovy.lang.GroovyShell;
 import org.codehaus.groovy.control.CompilationFailedException;
-import org.codehaus.groovy.control.CompilerConfiguration;
 
 /**
  * Implements the evaluator model, on which a conditional can be analyzed and
@@ -83,6 +82,15 @@ public class Evaluator {
         halt = false;
     }
 
+    /**
+     * Gets the number of evaluations so far, that is, the loop iterations
+     * of a directive.
+     * @return The number of evaluations.
+     */
+    public long getCounter() {
+        return counter;
+    }
+
     /**
      * Evaluate the provided conditional.
      * @param conditional The conditional object.
@@ -127,21 +135,35 @@ public class Evaluator {
             return false;
         } else {
 
-            // create a new evaluation context,
-            // set the base class and evaluate
-            // the expression
-            String base = "com.github.cereda.nightingale.model.BaseConditional";
-            Binding binding = new Binding();
-            CompilerConfiguration configuration = new CompilerConfiguration();
-            configuration.setScriptBaseClass(base);
-            GroovyShell shell = new GroovyShell(binding, configuration);
-
             try {
 
+                // trivial conditionals, that is, plain
+                // boolean literals, do not need the
+                // scripting engine at all; otherwise,
+                // create a new evaluation context and
+                // evaluate the expression; note that the
+                // expression is compiled only once
+                Object result;
+                long start = System.nanoTime();
+                Object event = FlightEvents.begin(
+                        FlightEvents.Kind.EVALUATION);
+                String condition = conditional.getCondition().trim();
+                if (condition.equals("true") || condition.equals("false")) {
+                    result = Boolean.valueOf(condition);
+                } else {
+                    Binding binding = new Binding();
+                    result = CompilerController.getInstance().
+                            getConditional(conditional.getCondition(),
+                                    binding).run();
+                }
+                FlightEvents.commit(event, conditional,
+                        ConfigurationController.
+                                getInstance().
+                                get("execution.file"), result);
+
                 // get the result and try to analyze
                 // it according to its class type
                 // and conditional type
-                Object result = shell.evaluate(conditional.getCondition());
                 if (!CommonUtils.checkClass(Boolean.class, result)) {
                     throw new NightingaleException(
                             messages.getMessage(
@@ -156,6 +178,11 @@ public class Evaluator {
                             value = !value;
                             break;
                     }
+                    if (EventBus.isActive()) {
+                        EventBus.publish(new BuildEvent.ConditionEvaluated(
+                                conditional, value,
+                                System.nanoTime() - start));
+                    }
                     return value;
                 }
             } catch (CompilationFailedException cfexception) {
@@ -0,0 +1,290 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.model;
+
+import com.github.cereda.nightingale.controller.LanguageController;
+import com.github.cereda.nightingale.controller.Logger;
+import com.github.cereda.nightingale.controller.LoggingController;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Implements the event bus. Build events are published into a bounded ring
+ * buffer without locks: each publisher claims a slot with an atomic
+ * increment and stores the event there, and a single dispatcher thread takes
+ * the events out, in order, and hands them to the listeners. Publishing is
+ * therefore just an enqueue; only when the buffer is full, publishers wait
+ * for the dispatcher to catch up, so no event is ever lost. The dispatcher
+ * sleeps while the buffer is empty and publishers wake it up. When there are
+ * no listeners, the bus is inactive and nothing is published at all.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class EventBus {
+
+    // the buffer capacity, a power of two, so
+    // the slot of a sequence is just a mask
+    private static final int CAPACITY = 1024;
+    private static final int MASK = CAPACITY - 1;
+
+    // how long a flush waits for the listeners,
+    // in milliseconds, so a stuck listener does
+    // not hold the application back forever
+    private static final long FLUSH_TIMEOUT = 10000;
+
+    // the ring buffer, the next sequence to be
+    // claimed by a publisher and the next one to
+    // be dispatched
+    private static final AtomicReferenceArray<BuildEvent> buffer =
+            new AtomicReferenceArray<BuildEvent>(CAPACITY);
+    private static final AtomicLong head = new AtomicLong();
+    private static final AtomicLong tail = new AtomicLong();
+
+    // the listeners, and whether the bus is
+    // active, that is, has at least one listener
+    private static final List<BuildListener> listeners =
+            new CopyOnWriteArrayList<BuildListener>();
+    private static volatile boolean active = false;
+
+    // whether the listeners available as services
+    // were discovered already, the dispatcher, and
+    // whether it is sleeping on an empty buffer
+    private static boolean discovered = false;
+    private static volatile Thread dispatcher = null;
+    private static volatile boolean sleeping = false;
+
+    // the threads waiting for the listeners to
+    // catch up, and the monitor they wait on
+    private static volatile int flushing = 0;
+    private static final Object monitor = new Object();
+
+    // the class logger obtained from
+    // the logger factory
+    private static final Logger logger =
+            LoggingController.getLogger(EventBus.class);
+
+    // the application messages obtained from the
+    // language controller
+    private static final LanguageController messages =
+            LanguageController.getInstance();
+
+    /**
+     * Discovers the listeners available as services in the class path. This
+     * happens only once in the lifetime of the virtual machine.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public static synchronized void discover() throws NightingaleException {
+        if (discovered) {
+            return;
+        }
+        discovered = true;
+        try {
+            for (BuildListener listener : ServiceLoader.load(
+                    BuildListener.class, EventBus.class.getClassLoader())) {
+                subscribe(listener);
+            }
+        } catch (ServiceConfigurationError error) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_EVENTBUS_INVALID_SERVICE,
+                            error.getMessage()
+                    )
+            );
+        }
+    }
+
+    /**
+     * Subscribes the provided listener to the bus. A listener already
+     * subscribed is not subscribed again.
+     * @param listener The listener.
+     */
+    public static synchronized void subscribe(BuildListener listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+        if (dispatcher == null) {
+            dispatcher = new Thread(new Runnable() {
+
+                /**
+                 * Dispatches the events forever.
+                 */
+                @Override
+                public void run() {
+                    dispatch();
+                }
+            }, "nightingale-events");
+            dispatcher.setDaemon(true);
+            dispatcher.start();
+        }
+        active = true;
+    }
+
+    /**
+     * Unsubscribes the provided listener from the bus. Once the last
+     * listener is gone, the bus is inactive again.
+     * @param listener The listener.
+     */
+    public static synchronized void unsubscribe(BuildListener listener) {
+        listeners.remove(listener);
+        active = !listeners.isEmpty();
+    }
+
+    /**
+     * Checks if the bus is active, that is, if there is at least one
+     * listener. Publishers check it before creating an event, so an inactive
+     * bus costs nothing.
+     * @return A boolean value indicating if the bus is active.
+     */
+    public static boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Publishes the provided event, if the bus is active.
+     * @param event The event.
+     */
+    public static void publish(BuildEvent event) {
+        if (!active) {
+            return;
+        }
+        long sequence = head.getAndIncrement();
+        while (sequence - tail.get() >= CAPACITY) {
+            Thread.yield();
+        }
+
+        // the event is stored before the dispatcher
+        // state is read, so either the dispatcher
+        // sees the event or it is woken up
+        buffer.set((int) (sequence & MASK), event);
+        if (sleeping) {
+            LockSupport.unpark(dispatcher);
+        }
+    }
+
+    /**
+     * Waits until every event published so far was handled by the
+     * listeners, or until the flush timeout is reached, in which case the
+     * remaining events are still handled in the background.
+     */
+    public static void flush() {
+        if (dispatcher == null) {
+            return;
+        }
+        long target = head.get();
+        long deadline = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(FLUSH_TIMEOUT);
+        synchronized (monitor) {
+            flushing++;
+            try {
+                while (tail.get() < target) {
+                    long remaining = TimeUnit.NANOSECONDS.toMillis(
+                            deadline - System.nanoTime());
+                    if (remaining <= 0) {
+                        logger.error(
+                                messages.getMessage(
+                                        Messages.LOG_ERROR_EVENTBUS_FLUSH_TIMEOUT,
+                                        TimeUnit.MILLISECONDS.toSeconds(
+                                                FLUSH_TIMEOUT)
+                                )
+                        );
+                        return;
+                    }
+                    monitor.wait(remaining);
+                }
+            } catch (InterruptedException iexception) {
+                Thread.currentThread().interrupt();
+            } finally {
+                flushing--;
+            }
+        }
+    }
+
+    /**
+     * Takes the events out of the buffer, in order, and hands them to the
+     * listeners. A slot still empty means its publisher has not stored the
+     * event yet, so the dispatcher sleeps until a publisher wakes it up.
+     */
+    private static void dispatch() {
+        while (true) {
+            long sequence = tail.get();
+            int index = (int) (sequence & MASK);
+            BuildEvent event = buffer.get(index);
+            if (event == null) {
+
+                // the buffer is checked once more after
+                // announcing the sleep, so an event stored
+                // in between is not missed
+                sleeping = true;
+                if (buffer.get(index) == null) {
+                    LockSupport.park();
+                }
+                sleeping = false;
+                continue;
+            }
+            buffer.lazySet(index, null);
+            for (BuildListener listener : listeners) {
+                try {
+                    listener.onEvent(event);
+                } catch (Throwable throwable) {
+
+                    // a faulty listener must not keep
+                    // the others from being notified,
+                    // nor stop the dispatcher
+                    logger.error(
+                            messages.getMessage(
+                                    Messages.LOG_ERROR_EVENTBUS_LISTENER_FAILED,
+                                    listener.getClass().getName(),
+                                    throwable
+                            )
+                    );
+                }
+            }
+            tail.set(sequence + 1);
+            if (flushing > 0) {
+                synchronized (monitor) {
+                    monitor.notifyAll();
+                }
+            }
+        }
+    }
+
+}
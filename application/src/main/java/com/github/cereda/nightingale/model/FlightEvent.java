@@ -0,0 +1,181 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.model;
+
+import com.github.cereda.nightingale.utils.InterpreterUtils;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Implements a flight recorder event. All events share the same fields, so
+ * they can be explored side by side. This class must only be referenced
+ * when the flight recorder is available.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+@Category("Nightingale")
+abstract class FlightEvent extends Event {
+
+    // the fields shared by all events, set only
+    // when the event is actually committed
+    @Label("Identifier")
+    String identifier;
+
+    @Label("File")
+    String file;
+
+    @Label("Lines")
+    @Description("Line numbers of the current directive")
+    String lines;
+
+    @Label("Outcome")
+    String outcome;
+
+    /**
+     * Ends and commits the event, if it is being recorded.
+     * @param identifier The identifier.
+     * @param file The file involved, if any.
+     * @param outcome The outcome, if any.
+     */
+    void finish(Object identifier, Object file, Object outcome) {
+        end();
+        if (shouldCommit()) {
+            this.identifier = identifier == null
+                    ? null : String.valueOf(identifier);
+            this.file = file == null ? null : String.valueOf(file);
+            this.lines = InterpreterUtils.getDirectiveLineNumbers();
+            this.outcome = outcome == null ? null : String.valueOf(outcome);
+            commit();
+        }
+    }
+
+    /**
+     * Creates the events. It is kept apart from the event classes, since the
+     * flight recorder loads the classes referenced by an event class while
+     * instrumenting it, and an event class cannot be loaded twice.
+     */
+    static class Factory {
+
+        /**
+         * Creates and begins an event of the provided kind.
+         * @param kind The event kind.
+         * @return The event.
+         */
+        static FlightEvent create(FlightEvents.Kind kind) {
+            FlightEvent event;
+            switch (kind) {
+                case DIRECTIVE:
+                    event = new DirectiveEvent();
+                    break;
+                case COMPILATION:
+                    event = new CompilationEvent();
+                    break;
+                case EVALUATION:
+                    event = new EvaluationEvent();
+                    break;
+                case LOOKUP:
+                    event = new LookupEvent();
+                    break;
+                case HASHING:
+                    event = new HashingEvent();
+                    break;
+                default:
+                    event = new ProcessEvent();
+                    break;
+            }
+            event.begin();
+            return event;
+        }
+
+    }
+
+    /**
+     * The processing of a directive.
+     */
+    @Name("com.github.cereda.nightingale.Directive")
+    @Label("Directive")
+    @Description("A directive processed by the interpreter")
+    static class DirectiveEvent extends FlightEvent {
+    }
+
+    /**
+     * The compilation of a rule.
+     */
+    @Name("com.github.cereda.nightingale.Compilation")
+    @Label("Rule Compilation")
+    @Description("A rule compiled or loaded from the rule library")
+    static class CompilationEvent extends FlightEvent {
+    }
+
+    /**
+     * The evaluation of a conditional.
+     */
+    @Name("com.github.cereda.nightingale.Evaluation")
+    @Label("Conditional Evaluation")
+    @Description("A conditional evaluated for a directive")
+    static class EvaluationEvent extends FlightEvent {
+    }
+
+    /**
+     * A lookup in the database of file changes.
+     */
+    @Name("com.github.cereda.nightingale.Lookup")
+    @Label("Change Lookup")
+    @Description("A file checked against the database of changes")
+    static class LookupEvent extends FlightEvent {
+    }
+
+    /**
+     * The computation of a file hash.
+     */
+    @Name("com.github.cereda.nightingale.Hashing")
+    @Label("Hash Computation")
+    @Description("The checksum of a file")
+    static class HashingEvent extends FlightEvent {
+    }
+
+    /**
+     * The execution of a process.
+     */
+    @Name("com.github.cereda.nightingale.Process")
+    @Label("Process Execution")
+    @Description("A command run from spawn to exit")
+    static class ProcessEvent extends FlightEvent {
+    }
+
+}
@@ -0,0 +1,112 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.model;
+
+/**
+ * Implements the flight recorder events. When the virtual machine supports
+ * the flight recorder (Java 11 or later, and recent Java 8 updates), the hot
+ * paths of the interpreter are reported as custom events, so a standard
+ * recording of a build can be explored in tools like JDK Mission Control
+ * with directives, rules and commands in place of generic frames. Otherwise,
+ * every call is a single flag check. The event classes themselves are only
+ * loaded when the flight recorder is available.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class FlightEvents {
+
+    // whether the flight recorder is available
+    // in the current virtual machine
+    private static final boolean available = check();
+
+    /**
+     * The event kinds.
+     */
+    public enum Kind {
+        DIRECTIVE,
+        COMPILATION,
+        EVALUATION,
+        LOOKUP,
+        HASHING,
+        PROCESS
+    }
+
+    /**
+     * Begins an event of the provided kind.
+     * @param kind The event kind.
+     * @return The event, to be committed later on, or null if the flight
+     * recorder is not available.
+     */
+    public static Object begin(Kind kind) {
+        if (available) {
+            return FlightEvent.Factory.create(kind);
+        }
+        return null;
+    }
+
+    /**
+     * Ends and commits the provided event, if the flight recorder is
+     * recording it. The values are only converted to strings when the event
+     * is committed.
+     * @param event The event, as returned by the begin method.
+     * @param identifier The identifier, that is, the rule, the conditional
+     * type, the algorithm or the command.
+     * @param file The file involved, if any.
+     * @param outcome The outcome, if any.
+     */
+    public static void commit(Object event, Object identifier, Object file,
+            Object outcome) {
+        if (event != null) {
+            ((FlightEvent) event).finish(identifier, file, outcome);
+        }
+    }
+
+    /**
+     * Checks if the flight recorder is available in the current virtual
+     * machine.
+     * @return A boolean value indicating if the flight recorder is available.
+     */
+    private static boolean check() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException cnfexception) {
+            return false;
+        } catch (LinkageError lerror) {
+            return false;
+        }
+    }
+
+}
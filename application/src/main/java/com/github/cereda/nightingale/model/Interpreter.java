@@ -33,24 +33,38 @@
  */
 package com.github.cereda.nightingale.model;
 
+import com.github.cereda.nightingale.controller.CompilerController;
 import com.github.cereda.nightingale.controller.ConfigurationController;
 import com.github.cereda.nightingale.controller.LanguageController;
+import com.github.cereda.nightingale.controller.Logger;
+import com.github.cereda.nightingale.controller.LoggingController;
+import com.github.cereda.nightingale.controller.RuleController;
 import com.github.cereda.nightingale.utils.CommonUtils;
 import com.github.cereda.nightingale.utils.DisplayUtils;
+import com.github.cereda.nightingale.utils.HistoryUtils;
 import com.github.cereda.nightingale.utils.InterpreterUtils;
+import com.github.cereda.nightingale.utils.RuleUtils;
 import groovy.lang.Binding;
-import groovy.lang.Closure;
-import groovy.lang.GroovyShell;
 import groovy.lang.MissingPropertyException;
+import groovy.lang.Script;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import org.codehaus.groovy.control.CompilationFailedException;
-import org.codehaus.groovy.control.CompilerConfiguration;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 /**
  * Interprets the list of directives.
@@ -63,6 +77,37 @@ public class Interpreter {
     // list of directives to be
     // interpreted in here
     private List<Directive> directives;
+
+    // the rules resolved so far, indexed by the
+    // directive position, since they are resolved
+    // by the preflight, partly in the background,
+    // and then reused by the execution
+    private final Map<Integer, File> rules;
+
+    // the number of directives checked so far
+    // by the preflight, whether it is still
+    // checking them in the background, the
+    // first error it found, if any, and the
+    // monitor the execution waits on
+    private int checked;
+    private boolean pending;
+    private NightingaleException problem;
+    private final Object monitor = new Object();
+    
+    // the pool running the commands grouped by
+    // the 'parallel' method, created on demand and
+    // shared by every build in this virtual machine,
+    // so concurrent builds (e.g, the batch mode) do
+    // not multiply the number of jobs
+    private static ThreadPoolExecutor pool = null;
+
+    // the commands launched in the pool by this
+    // interpreter, cancelled when it is done
+    private final List<Future<Object>> launched;
+
+    // whether an entry of the current
+    // directive has failed
+    private boolean failure;
     
     // the application messages obtained from the
     // language controller
@@ -72,7 +117,18 @@ public class Interpreter {
     // the class logger obtained from
     // the logger factory
     private static final Logger logger =
-            LoggerFactory.getLogger(Interpreter.class);
+            LoggingController.getLogger(Interpreter.class);
+
+    /**
+     * Constructor.
+     */
+    public Interpreter() {
+        rules = Collections.synchronizedMap(new HashMap<Integer, File>());
+        checked = 0;
+        pending = false;
+        problem = null;
+        launched = new ArrayList<Future<Object>>();
+    }
 
     /**
      * Sets the list of directives.
@@ -89,186 +145,333 @@ public class Interpreter {
      * the higher levels.
      */
     public void execute() throws NightingaleException {
+        long beginning = System.nanoTime();
+        File reference = (File) ConfigurationController.
+                getInstance().
+                get("execution.reference");
+        if (EventBus.isActive()) {
+            EventBus.publish(new BuildEvent.BuildStarted(reference));
+        }
+        boolean completed = false;
+        try {
+            interpret();
+            completed = true;
+        } finally {
+            if (EventBus.isActive()) {
+                EventBus.publish(new BuildEvent.BuildFinished(reference,
+                        completed && (Boolean) ConfigurationController.
+                                getInstance().
+                                get("execution.success"),
+                        System.nanoTime() - beginning));
+            }
+
+            // commands still running at this point were
+            // left behind by a halted rule evaluation
+            for (Future<Object> task : launched) {
+                task.cancel(true);
+            }
+            launched.clear();
+        }
+    }
+
+    /**
+     * Interprets each directive, evaluating the rules and running their
+     * commands accordingly.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    private void interpret() throws NightingaleException {
+
+        // the occurrences of each rule so far, so
+        // durations of repeated directives are
+        // kept apart in the build history
+        Map<String, Integer> occurrences = new HashMap<String, Integer>();
         
-        
+        // the overall result of the execution,
+        // updated when a command fails; other
+        // models (e.g, the batch mode) rely on
+        // it to report the document status
+        ConfigurationController.
+                getInstance().
+                put("execution.success", true);
+
         // for every directive in the list of
         // directives, this method will evaluate
         // the rules and tasks and run them
         // accordingly
-        for (Directive directive : directives) {
+        for (int index = 0; index < directives.size(); index++) {
+            Directive directive = directives.get(index);
 
-            // add the current info to
-            // the logging framework
-            logger.info(messages.getMessage(
-                    Messages.LOG_INFO_INTERPRET_RULE,
-                    directive.getIdentifier())
-            );
+            // the directive might still be checked by
+            // the preflight, in the background, and a
+            // broken directive ahead stops the build
+            await(index);
 
-            // set the current file being executed;
-            // this is needed in order to make methods
-            // like changed() and exists() to work for
-            // file extensions; note that this value might
-            // be different from the main file being
-            // processed by nightingale
-            ConfigurationController.
-                    getInstance().
-                    put("execution.file",
-                            directive.getParameters().get("file")
-                    );
-            
-            // obtain rule from a list of paths
-            // (at least the application path)
-            // or throw an error in case the
-            // rule is not found
-            File rule = getRule(directive);
-
-            // add the current info to the
-            // logging framework
-            logger.info(messages.getMessage(
-                    Messages.LOG_INFO_RULE_LOCATION,
-                    rule.getParent())
+            // the build might have been cancelled
+            // in the meantime (e.g, the watch mode
+            // detected new changes), so there is
+            // no point in going any further
+            if (Thread.interrupted()) {
+                throw new NightingaleException(
+                        messages.getMessage(
+                                Messages.ERROR_INTERPRETER_INTERRUPTED
+                        )
+                );
+            }
+            long beginning = System.nanoTime();
+            Object event = FlightEvents.begin(FlightEvents.Kind.DIRECTIVE);
+            if (EventBus.isActive()) {
+                EventBus.publish(new BuildEvent.DirectiveStarted(directive));
+            }
+            Integer occurrence = occurrences.get(directive.getIdentifier());
+            occurrence = occurrence == null ? 1 : occurrence + 1;
+            occurrences.put(directive.getIdentifier(), occurrence);
+
+            // the directive returns when it is done or
+            // halted; the listeners and the flight recorder
+            // are told it finished even when it raised an
+            // error, so profiles, traces, metrics and
+            // recordings account for it
+            long evaluations = 0;
+            boolean successful = false;
+            try {
+                evaluations = perform(directive, index);
+                successful = !failure;
+            } finally {
+                if (EventBus.isActive()) {
+                    EventBus.publish(new BuildEvent.DirectiveFinished(
+                            directive, evaluations,
+                            System.nanoTime() - beginning, successful));
+                }
+                FlightEvents.commit(event, directive.getIdentifier(),
+                        directive.getParameters().get("file"), successful);
+            }
+
+            // its duration goes to the build history
+            // even if it failed, since failures are
+            // often the slowest ones
+            HistoryUtils.record(
+                    HistoryUtils.getKey(
+                            (File) ConfigurationController.
+                                    getInstance().
+                                    get("execution.reference"),
+                            directive.getIdentifier(),
+                            occurrence
+                    ),
+                    System.nanoTime() - beginning
             );
 
-            // set the current rule identifier,
-            // path and lines to the configuration
-            // controller
-            ConfigurationController.
-                    getInstance().
-                    put("execution.info.rule.id",
-                            directive.getIdentifier()
-                    );
-            ConfigurationController.
-                    getInstance().
-                    put("execution.info.rule.path",
-                            rule.getParent()
-                    );
-            ConfigurationController.
-                    getInstance().
-                    put("execution.directive.lines",
-                            directive.getLineNumbers()
-                    );
+            // two situations might make the execution
+            // stop: a failure (if the flag on halting
+            // on errors is enabled) or a 'halt' trigger
+            if (halted()) {
+                return;
+            }
+        }
+    }
 
-            // set the shell configuration, binding,
-            // configuration and base class
-            String base = "com.github.cereda.nightingale.model.BaseRule";
-            Binding binding = new Binding();
-            BaseRule.setParameters(directive.getParameters());
-            CompilerConfiguration configuration = new CompilerConfiguration();
-            configuration.setScriptBaseClass(base);
-            GroovyShell shell = new GroovyShell(binding, configuration);
+    /**
+     * Interprets the provided directive, evaluating its rule and running the
+     * commands accordingly, until the directive is done or halted.
+     * @param directive The directive.
+     * @param index The directive position.
+     * @return The number of conditional evaluations.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    private long perform(Directive directive, int index)
+            throws NightingaleException {
+        failure = false;
 
-            try {
-                
-                // evaluate rule, checking header, validating
-                // identifier, version and arguments
-                shell.evaluate(rule);
-                Object holder = shell.getVariable("rule");
-                InterpreterUtils.checkHeader(holder);
-                InterpreterUtils.validateIdentifier(holder, rule);
-                InterpreterUtils.checkVersion(holder);
-                InterpreterUtils.validateArguments(
-                        holder,
-                        directive.getParameters()
+        // add the current info to
+        // the logging framework
+        logger.info(messages.getMessage(
+                Messages.LOG_INFO_INTERPRET_RULE,
+                directive.getIdentifier())
+        );
+
+        // set the current file being executed;
+        // this is needed in order to make methods
+        // like changed() and exists() to work for
+        // file extensions; note that this value might
+        // be different from the main file being
+        // processed by nightingale
+        ConfigurationController.
+                getInstance().
+                put("execution.file",
+                        directive.getParameters().get("file")
                 );
+        
+        // native rules come first; otherwise, obtain
+        // rule from a list of paths (at least the
+        // application path) or throw an error in
+        // case the rule is not found
+        Rule definition = RuleController.
+                getInstance().
+                getNativeRule(directive.getIdentifier());
+        File rule = definition == null ? getRule(index) : null;
+        locate(directive, definition, rule);
 
-                // get the rule name, the list of authors, and
-                // put the arguments list in the configuration
-                // controller in order to make methods like
-                // ensure() to not accept unknown keys
-                String name = InterpreterUtils.getRuleName(holder);
-                List<String> authors = InterpreterUtils.getAuthors(holder);
+        // add the rule location to the logging
+        // framework, right before running it
+        logger.info(messages.getMessage(
+                Messages.LOG_INFO_RULE_LOCATION,
                 ConfigurationController.
                         getInstance().
-                        put("execution.rule.arguments",
-                                InterpreterUtils.getRuleArguments(holder)
-                        );
-
-                // get the rule commands, check them
-                // and create a new evaluator
-                holder = shell.getVariable("commands");
-                InterpreterUtils.checkCommands(holder);
-                Evaluator evaluator = new Evaluator();
-
-                // check if the current directive has a prior
-                // evaluation; if so, we need to evaluate it
-                // right now
-                boolean available = true;
-                if (InterpreterUtils.runPriorEvaluation(
-                        directive.getConditional())) {
-                    available = evaluator.evaluate(directive.getConditional());
+                        get("execution.info.rule.path"))
+        );
+
+        // set the rule parameters; the rule itself is
+        // compiled only once and kept by the compiler
+        // controller
+        RuleUtils.setParameters(directive.getParameters());
+
+        try {
+            
+            // evaluate rule, checking header, validating
+            // identifier, version and arguments
+            definition = load(directive, definition, rule);
+
+            // get the rule name, the list of authors, and
+            // put the arguments list in the configuration
+            // controller in order to make methods like
+            // ensure() to not accept unknown keys
+            String name = definition.getName();
+            List<String> authors = definition.getAuthors();
+            ConfigurationController.
+                    getInstance().
+                    put("execution.rule.arguments",
+                            InterpreterUtils.getRuleArguments(definition)
+                    );
+
+            // get the rule commands, which are checked
+            // for rule scripts, and create a new evaluator
+            List<RuleCommand> commands = definition.getCommands();
+            Evaluator evaluator = new Evaluator();
+
+            // check if the current directive has a prior
+            // evaluation; if so, we need to evaluate it
+            // right now
+            boolean available = true;
+            if (InterpreterUtils.runPriorEvaluation(
+                    directive.getConditional())) {
+                available = evaluator.evaluate(directive.getConditional());
+                if (!available && EventBus.isActive()) {
+                    EventBus.publish(
+                            new BuildEvent.DirectiveSkipped(directive));
                 }
+            }
 
-                // we are good to go, so let's
-                // evaluate each command
-                if (available) {
+            // we are good to go, so let's
+            // evaluate each command
+            if (available) {
+                
+                // it's a loop because we can have conditionals that
+                // might require repeating such executions; in the end
+                // of this block, there is a conditional evaluation
+                do {
                     
-                    // it's a loop because we can have conditionals that
-                    // might require repeating such executions; in the end
-                    // of this block, there is a conditional evaluation
-                    do {
-                        
-                        // get the list of commands, so
-                        // we can evaluate them
-                        List<Map> commands = InterpreterUtils
-                                .getCommands(holder);
-                        
-                        // for each command found in the
-                        // list of commands of the current
-                        // rule, let's evaluate it
-                        for (Map command : commands) {
-
-                            // get the first command and
-                            // run the closure
-                            Closure closure = (Closure) command.get("command");
-                            Object result = closure.call();
-
-                            // this list will hold the
-                            // commands execution
-                            List<Object> execution = new ArrayList<Object>();
-
-                            // if we got a list as result,
-                            // let's flatten the list and
-                            // add each command to the list;
-                            // otherwise, we simply add the
-                            // result to the list
-                            if (CommonUtils.checkClass(List.class, result)) {
-                                execution = CommonUtils.
-                                        flatten((List<?>) result);
-                            } else {
-                                execution.add(result);
-                            }
+                    // for each command found in the
+                    // list of commands of the current
+                    // rule, let's evaluate it
+                    for (RuleCommand command : commands) {
+
+                        // get the first command and
+                        // run its body
+                        Object result = command.execute();
+
+                        // this list will hold the
+                        // commands execution
+                        List<Object> execution = new ArrayList<Object>();
 
-                            // for each command in the
-                            // execution list, we check
-                            // if it's not null and if
-                            // types are valid
-                            for (Object current : execution) {
-                                if (current == null) {
-                                    throw new NightingaleException(
-                                            messages.getMessage(
-                                                    Messages.ERROR_INTERPRETER_NULL_COMMAND_LIST
-                                            )
+                        // if we got a list as result,
+                        // let's flatten the list and
+                        // add each command to the list;
+                        // otherwise, we simply add the
+                        // result to the list
+                        if (CommonUtils.checkClass(List.class, result)) {
+                            execution = CommonUtils.
+                                    flatten((List<?>) result);
+                        } else {
+                            execution.add(result);
+                        }
+
+                        // commands grouped by the 'parallel' method
+                        // are launched at once; their results are
+                        // collected below, in order, as if they
+                        // were run one after another
+                        Map<Integer, Future<Object>> tasks =
+                                new HashMap<Integer, Future<Object>>();
+                        execution = schedule(execution, tasks);
+
+                        // for each command in the
+                        // execution list, we check
+                        // if it's not null and if
+                        // types are valid
+                        for (int position = 0;
+                                position < execution.size();
+                                position++) {
+                            Object current = execution.get(position);
+                            if (current == null) {
+                                throw new NightingaleException(
+                                        messages.getMessage(
+                                                Messages.ERROR_INTERPRETER_NULL_COMMAND_LIST
+                                        )
+                                );
+                            } else {
+                                
+                                // check if it's not an empty string,
+                                // otherwise nothing happends
+                                if (!CommonUtils.
+                                        checkEmptyString(
+                                                String.valueOf(current))
+                                        ) {
+                                    DisplayUtils.printEntry(
+                                            name,
+                                            command.getName()
                                     );
-                                } else {
+
+                                    boolean success = true;
                                     
-                                    // check if it's not an empty string,
-                                    // otherwise nothing happends
-                                    if (!CommonUtils.
-                                            checkEmptyString(
-                                                    String.valueOf(current))
-                                            ) {
-                                        DisplayUtils.printEntry(
-                                                name,
-                                                (String) command.get("name")
-                                        );
-
-                                        boolean success = true;
+                                    // we check if it's a boolean result,
+                                    // that is, the computation happened
+                                    // inside the command closure
+                                    if (CommonUtils.checkClass(
+                                            Boolean.class,
+                                            current)) {
+                                        if (((Boolean) ConfigurationController.
+                                                getInstance().
+                                                get("execution.dryrun")) == false) {
+                                            if (((Boolean) ConfigurationController.
+                                                    getInstance().
+                                                    get("execution.verbose")) == true) {
+                                                DisplayUtils.wrapText(
+                                                        messages.getMessage(
+                                                                Messages.INFO_INTERPRETER_VERBOSE_MODE_BOOLEAN_MODE
+                                                        )
+                                                );
+                                            }
+                                        } else {
+                                            DisplayUtils.printAuthors(authors);
+                                            DisplayUtils.wrapText(
+                                                    messages.getMessage(
+                                                            Messages.INFO_INTERPRETER_DRYRUN_MODE_BOOLEAN_MODE
+                                                    )
+                                            );
+                                            DisplayUtils.printConditional(
+                                                    directive.getConditional()
+                                            );
+                                        }
+                                        
+                                        success = (Boolean) current;
                                         
-                                        // we check if it's a boolean result,
-                                        // that is, the computation happened
-                                        // inside the command closure
+                                    } else {
+                                        
+                                        // let's check if it's a trigger,
+                                        // which can alter the application
+                                        // behaviour
                                         if (CommonUtils.checkClass(
-                                                Boolean.class,
+                                                Trigger.class,
                                                 current)) {
                                             if (((Boolean) ConfigurationController.
                                                     getInstance().
@@ -278,7 +481,7 @@ public class Interpreter {
                                                         get("execution.verbose")) == true) {
                                                     DisplayUtils.wrapText(
                                                             messages.getMessage(
-                                                                    Messages.INFO_INTERPRETER_VERBOSE_MODE_BOOLEAN_MODE
+                                                                    Messages.INFO_INTERPRETER_VERBOSE_MODE_TRIGGER_MODE
                                                             )
                                                     );
                                                 }
@@ -286,185 +489,735 @@ public class Interpreter {
                                                 DisplayUtils.printAuthors(authors);
                                                 DisplayUtils.wrapText(
                                                         messages.getMessage(
-                                                                Messages.INFO_INTERPRETER_DRYRUN_MODE_BOOLEAN_MODE
+                                                                Messages.INFO_INTERPRETER_DRYRUN_MODE_TRIGGER_MODE
                                                         )
                                                 );
                                                 DisplayUtils.printConditional(
                                                         directive.getConditional()
                                                 );
                                             }
-                                            
-                                            success = (Boolean) current;
-                                            
-                                        } else {
-                                            
-                                            // let's check if it's a trigger,
-                                            // which can alter the application
-                                            // behaviour
-                                            if (CommonUtils.checkClass(
-                                                    Trigger.class,
-                                                    current)) {
+
+                                            Trigger trigger = (Trigger) current;
+                                            trigger.process();
+
+                                        } else if (CommonUtils.checkClass(
+                                                Builtin.class,
+                                                current)) {
+
+                                            // a built-in command runs inside
+                                            // the application itself, so no
+                                            // process is spawned for it
+                                            Builtin builtin = (Builtin) current;
+                                            if (!launched.contains(
+                                                    tasks.get(position))) {
+                                                announce(current);
+                                            }
+
+                                            if (((Boolean) ConfigurationController.
+                                                    getInstance().get("execution.dryrun")) == false) {
                                                 if (((Boolean) ConfigurationController.
                                                         getInstance().
-                                                        get("execution.dryrun")) == false) {
-                                                    if (((Boolean) ConfigurationController.
-                                                            getInstance().
-                                                            get("execution.verbose")) == true) {
-                                                        DisplayUtils.wrapText(
-                                                                messages.getMessage(
-                                                                        Messages.INFO_INTERPRETER_VERBOSE_MODE_TRIGGER_MODE
-                                                                )
-                                                        );
-                                                    }
-                                                } else {
-                                                    DisplayUtils.printAuthors(authors);
+                                                        get("execution.verbose")) == true) {
                                                     DisplayUtils.wrapText(
                                                             messages.getMessage(
-                                                                    Messages.INFO_INTERPRETER_DRYRUN_MODE_TRIGGER_MODE
+                                                                    Messages.INFO_INTERPRETER_VERBOSE_MODE_BUILTIN_COMMAND,
+                                                                    builtin
                                                             )
                                                     );
-                                                    DisplayUtils.printConditional(
-                                                            directive.getConditional()
-                                                    );
                                                 }
+                                                success = tasks.containsKey(position)
+                                                        ? (Boolean) collect(tasks.get(position))
+                                                        : InterpreterUtils.execute(builtin);
+                                            } else {
+                                                DisplayUtils.printAuthors(authors);
+                                                DisplayUtils.wrapText(
+                                                        messages.getMessage(
+                                                                Messages.INFO_INTERPRETER_DRYRUN_MODE_BUILTIN_COMMAND,
+                                                                builtin
+                                                        )
+                                                );
+                                                DisplayUtils.printConditional(directive.getConditional());
+                                            }
+
+                                        } else if (CommonUtils.checkClass(
+                                                Pipeline.class,
+                                                current)) {
+
+                                            // each stage of a pipeline has
+                                            // its own exit value, and all of
+                                            // them must be successful
+                                            if (!launched.contains(
+                                                    tasks.get(position))) {
+                                                announce(current);
+                                            }
 
-                                                Trigger trigger = (Trigger) current;
-                                                trigger.process();
+                                            if (((Boolean) ConfigurationController.
+                                                    getInstance().get("execution.dryrun")) == false) {
 
+                                                @SuppressWarnings("unchecked")
+                                                List<Integer> codes = tasks.containsKey(position)
+                                                        ? (List<Integer>) collect(tasks.get(position))
+                                                        : InterpreterUtils.runPipeline((Pipeline) current);
+                                                for (int code : codes) {
+                                                    if (!exit(command, code)) {
+                                                        success = false;
+                                                    }
+                                                }
                                             } else {
-                                                
-                                                // not a boolean nor a trigger,
-                                                // so it's either a command or
-                                                // a string
-                                                Object representation = CommonUtils.
-                                                        checkClass(
-                                                                Command.class,
+                                                DisplayUtils.printAuthors(authors);
+                                                DisplayUtils.wrapText(
+                                                        messages.getMessage(
+                                                                Messages.INFO_INTERPRETER_DRYRUN_MODE_SYSTEM_COMMAND,
                                                                 current
                                                         )
-                                                        ? current
-                                                        : String.valueOf(current);
+                                                );
+                                                DisplayUtils.printConditional(directive.getConditional());
+                                            }
 
-                                                logger.info(
+                                        } else {
+                                            
+                                            // not a boolean nor a trigger,
+                                            // so it's either a command or
+                                            // a string
+                                            Object representation = CommonUtils.
+                                                    checkClass(
+                                                            Command.class,
+                                                            current
+                                                    )
+                                                    ? current
+                                                    : String.valueOf(current);
+
+                                            if (!launched.contains(
+                                                    tasks.get(position))) {
+                                                announce(current);
+                                            }
+
+                                            if (((Boolean) ConfigurationController.
+                                                    getInstance().get("execution.dryrun")) == false) {
+
+                                                int code = tasks.containsKey(position)
+                                                        ? (Integer) collect(tasks.get(position))
+                                                        : InterpreterUtils.run(representation);
+                                                success = exit(command, code);
+                                            } else {
+                                                DisplayUtils.printAuthors(authors);
+                                                DisplayUtils.wrapText(
                                                         messages.getMessage(
-                                                                Messages.LOG_INFO_SYSTEM_COMMAND,
+                                                                Messages.INFO_INTERPRETER_DRYRUN_MODE_SYSTEM_COMMAND,
                                                                 representation
                                                         )
                                                 );
-
-                                                if (((Boolean) ConfigurationController.
-                                                        getInstance().get("execution.dryrun")) == false) {
-
-                                                    int code = InterpreterUtils.run(representation);
-                                                    Closure evaluation = (Closure) command.get("exit");
-                                                    Object check = evaluation.call(code);
-                                                    if (CommonUtils.checkClass(
-                                                            Boolean.class,
-                                                            check)) {
-                                                        success = (Boolean) check;
-                                                    } else {
-                                                        throw new NightingaleException(
-                                                                messages.getMessage(
-                                                                        Messages.ERROR_INTERPRETER_WRONG_EXIT_CLOSURE_RETURN
-                                                                )
-                                                        );
-                                                    }
-                                                } else {
-                                                    DisplayUtils.printAuthors(authors);
-                                                    DisplayUtils.wrapText(
-                                                            messages.getMessage(
-                                                                    Messages.INFO_INTERPRETER_DRYRUN_MODE_SYSTEM_COMMAND,
-                                                                    representation
-                                                            )
-                                                    );
-                                                    DisplayUtils.printConditional(directive.getConditional());
-                                                }
-
+                                                DisplayUtils.printConditional(directive.getConditional());
                                             }
-                                        }
 
-                                        DisplayUtils.printEntryResult(success);
+                                        }
+                                    }
 
-                                        // two situations might make the current
-                                        // rule evaluation stop: a failure (if
-                                        // the flag on halting on errors is
-                                        // enabled) or through a 'halt' trigger
-                                        if (((Boolean) ConfigurationController.
+                                    DisplayUtils.printEntryResult(success);
+                                    if (!success) {
+                                        failure = true;
+                                        ConfigurationController.
                                                 getInstance().
-                                                get("trigger.halt"))
-                                                || (((Boolean) ConfigurationController.
-                                                        getInstance().
-                                                        get("execution.errors.halt")
-                                                && !success))) {
-                                            return;
-                                        }
+                                                put("execution.success",
+                                                        false
+                                                );
+                                    }
+
+                                    // two situations might make the current
+                                    // rule evaluation stop: a failure (if
+                                    // the flag on halting on errors is
+                                    // enabled) or through a 'halt' trigger
+                                    if (halted()) {
+                                        return evaluator.getCounter();
                                     }
                                 }
                             }
+                        }
+
+                    }
+                } while (evaluator.evaluate(directive.getConditional()));
+            }
+
+            // the number of evaluations tells how many
+            // times loops went around, if any
+            return evaluator.getCounter();
+        } catch (Exception exception) {
+            throw translate(exception);
+        }
+    }
+
+    /**
+     * Checks if the execution must stop, either because of a failure, when
+     * the flag on halting on errors is enabled, or because of a 'halt'
+     * trigger.
+     * @return A boolean value indicating if the execution must stop.
+     */
+    private boolean halted() {
+        return ((Boolean) ConfigurationController.
+                getInstance().
+                get("trigger.halt"))
+                || (((Boolean) ConfigurationController.
+                        getInstance().
+                        get("execution.errors.halt"))
+                && !((Boolean) ConfigurationController.
+                        getInstance().
+                        get("execution.success")));
+    }
+
+    /**
+     * Checks every directive, so a broken rule, a wrong argument or a
+     * malformed conditional expression in the last directive is reported
+     * before the next directive starts, instead of after the earlier
+     * directives ran. Each rule is resolved, compiled and checked exactly as
+     * the execution does it, and each conditional expression is compiled;
+     * the compiled scripts are kept, so this work is not repeated later on.
+     * The first directive is checked right away, and the others in the
+     * background, in order, while the commands of the first directives run,
+     * so this work stays off the critical path.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public void preflight() throws NightingaleException {
+        rules.clear();
+        checked = 0;
+        problem = null;
+        if (directives.isEmpty()) {
+            return;
+        }
+        check(0);
+        checked = 1;
+        if (directives.size() == 1) {
+            return;
+        }
 
+        // the checking thread sets the rule location
+        // of each directive, so it works on its own
+        // copy of the settings of the current build
+        final Map<String, Object> settings = ConfigurationController.
+                getInstance().snapshot();
+        pending = true;
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                if (settings != null) {
+                    ConfigurationController.getInstance().isolate(settings);
+                } else {
+                    ConfigurationController.getInstance().isolate();
+                }
+                try {
+                    for (int index = 1; index < directives.size(); index++) {
+                        check(index);
+                        synchronized (monitor) {
+                            checked = index + 1;
+                            monitor.notifyAll();
                         }
-                    } while (evaluator.evaluate(directive.getConditional()));
+                    }
+                } catch (NightingaleException exception) {
+                    synchronized (monitor) {
+                        problem = exception;
+                    }
+                } catch (RuntimeException exception) {
+                    synchronized (monitor) {
+                        problem = translate(exception);
+                    }
+                } finally {
+                    ConfigurationController.getInstance().release();
+                    synchronized (monitor) {
+                        pending = false;
+                        monitor.notifyAll();
+                    }
                 }
-            } catch (CompilationFailedException cfexception) {
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Checks the directive at the provided position, that is, resolves,
+     * compiles and checks its rule, and compiles its conditional expression.
+     * @param index The directive position.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    private void check(int index) throws NightingaleException {
+        Directive directive = directives.get(index);
+        Rule definition = RuleController.
+                getInstance().
+                getNativeRule(directive.getIdentifier());
+        File rule = definition == null ? getRule(index) : null;
+        locate(directive, definition, rule);
+        try {
+            load(directive, definition, rule).getCommands();
+        } catch (Exception exception) {
+            throw translate(exception);
+        }
+
+        // trivial conditionals are evaluated without
+        // the scripting engine, so there is nothing
+        // to compile for them
+        Conditional conditional = directive.getConditional();
+        if (conditional.getType() != Conditional.ConditionalType.NONE) {
+            String condition = conditional.getCondition();
+            if (!condition.trim().equals("true")
+                    && !condition.trim().equals("false")) {
+                try {
+                    CompilerController.getInstance().
+                            compileConditional(condition);
+                } catch (CompilationFailedException cfexception) {
+                    throw new NightingaleException(
+                            CommonUtils.getRuleErrorHeader().
+                            concat(messages.getMessage(
+                                    Messages.ERROR_EVALUATE_COMPILATION_FAILED)
+                            ),
+                            cfexception
+                    );
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits until the directive at the provided position was checked in the
+     * background. An error found in this directive or in any directive ahead
+     * is raised right away, since every directive before it was fine.
+     * @param index The directive position.
+     * @throws NightingaleException The directive or one ahead is broken, or
+     * the build was interrupted while waiting.
+     */
+    private void await(int index) throws NightingaleException {
+        synchronized (monitor) {
+            try {
+                while (pending && (problem == null) && (checked <= index)) {
+                    monitor.wait();
+                }
+            } catch (InterruptedException iexception) {
                 throw new NightingaleException(
-                        CommonUtils.getRuleErrorHeader().
-                        concat(messages.getMessage(
-                                Messages.ERROR_INTERPRETER_COMPILATION_FAILED)
+                        messages.getMessage(
+                                Messages.ERROR_INTERPRETER_INTERRUPTED
                         ),
-                        cfexception
+                        iexception
                 );
-            } catch (IOException ioexception) {
-                throw new NightingaleException(
-                        CommonUtils.getRuleErrorHeader().
-                        concat(messages.getMessage(
-                                Messages.ERROR_INTERPRETER_IO_EXCEPTION)
-                        ),
-                        ioexception
+            }
+            if (problem != null) {
+                throw problem;
+            }
+        }
+    }
+
+    /**
+     * Sets the location of the provided rule, that is, its identifier, path
+     * and directive lines, to the configuration controller, so errors point
+     * to the right place.
+     * @param directive The directive.
+     * @param definition The native rule, or null if there is none.
+     * @param rule The rule file, or null if the rule is native.
+     */
+    private void locate(Directive directive, Rule definition, File rule) {
+        String location = definition != null
+                ? definition.getClass().getName()
+                : rule.getParent();
+
+        // set the current rule identifier,
+        // path and lines to the configuration
+        // controller
+        ConfigurationController.
+                getInstance().
+                put("execution.info.rule.id",
+                        directive.getIdentifier()
                 );
-            } catch (MissingPropertyException mpexception) {
-                throw new NightingaleException(
-                        CommonUtils.getRuleErrorHeader().
-                        concat(messages.getMessage(
-                                Messages.ERROR_INTERPRETER_MISSING_PROPERTY)
-                        ),
-                        mpexception
+        ConfigurationController.
+                getInstance().
+                put("execution.info.rule.path",
+                        location
                 );
-            } catch (Exception exception) {
-                throw new NightingaleException(
-                        CommonUtils.getRuleErrorHeader().
-                        concat(messages.getMessage(
-                                Messages.ERROR_INTERPRETER_GENERIC_EXCEPTION)
-                        ),
-                        exception
+        ConfigurationController.
+                getInstance().
+                put("execution.directive.lines",
+                        directive.getLineNumbers()
                 );
+    }
+
+    /**
+     * Loads the rule of the provided directive, checking its header, and
+     * validates the identifier, the version and the directive arguments.
+     * Native and typed rules were already checked by the compiler, so only
+     * their header values are checked here.
+     * @param directive The directive.
+     * @param definition The native rule, or null if there is none.
+     * @param rule The rule file, or null if the rule is native.
+     * @return The rule.
+     * @throws Exception Something wrong happened, to be translated by the
+     * interpreter.
+     */
+    private Rule load(Directive directive, Rule definition, File rule)
+            throws Exception {
+        if (definition != null) {
+            StopWatch.mark("first rule");
+            InterpreterUtils.checkRule(definition);
+        } else {
+
+            // the binding is only created here, since
+            // it brings the scripting runtime along,
+            // which native rules do not need at all
+            Binding binding = new Binding();
+            Object instance = CompilerController.getInstance().
+                    getRule(rule, binding);
+            if (instance instanceof Rule) {
+                definition = (Rule) instance;
+                StopWatch.mark("first rule");
+                InterpreterUtils.checkRule(definition);
+            } else {
+                ((Script) instance).run();
+                StopWatch.mark("first rule");
+                Object holder = binding.getVariable("rule");
+                InterpreterUtils.checkHeader(holder);
+                definition = new ScriptRule(holder,
+                        binding.getVariable("commands"));
+            }
+            InterpreterUtils.validateIdentifier(definition, rule);
+        }
+        InterpreterUtils.checkVersion(definition);
+        InterpreterUtils.validateArguments(
+                definition,
+                directive.getParameters()
+        );
+        return definition;
+    }
+
+    /**
+     * Expands the groups of commands found in the provided list of commands.
+     * Unless in dry-run or verbose mode, independent commands are launched in
+     * the pool, bounded by the number of jobs; in verbose mode, they run one
+     * after another, so their output is not mixed up. Unless in dry-run mode,
+     * commands to be coalesced share a single invocation, run on demand.
+     * @param execution The list of commands.
+     * @param tasks The map holding the launched commands, indexed by their
+     * position in the expanded list.
+     * @return The expanded list of commands.
+     */
+    private List<Object> schedule(List<Object> execution,
+            Map<Integer, Future<Object>> tasks) {
+        boolean dryrun = (Boolean) ConfigurationController.
+                getInstance().
+                get("execution.dryrun");
+        boolean concurrent = !dryrun
+                && !((Boolean) ConfigurationController.
+                        getInstance().
+                        get("execution.verbose"));
+        List<Object> expanded = new ArrayList<Object>();
+        for (Object current : execution) {
+            if (CommonUtils.checkClass(Coalescence.class, current)) {
+                List<Command> commands = ((Coalescence) current).getElements();
+                for (List<Integer> run : InterpreterUtils.coalesce(commands)) {
+                    if (!dryrun && (run.size() > 1)) {
+                        final List<Command> group = new ArrayList<Command>();
+                        for (Integer position : run) {
+                            group.add(commands.get(position));
+                        }
+                        Future<Object> task = new FutureTask<Object>(
+                                new Callable<Object>() {
+                            @Override
+                            public Object call() throws Exception {
+                                Command command = InterpreterUtils.merge(group);
+                                logger.info(
+                                        messages.getMessage(
+                                                Messages.LOG_INFO_COALESCED_COMMAND,
+                                                group.size(),
+                                                command
+                                        )
+                                );
+                                return InterpreterUtils.run(command);
+                            }
+                        });
+                        for (int i = 0; i < run.size(); i++) {
+                            tasks.put(expanded.size() + i, task);
+                        }
+                    }
+                    for (Integer position : run) {
+                        expanded.add(commands.get(position));
+                    }
+                }
+            } else if (CommonUtils.checkClass(Parallel.class, current)) {
+
+                // the pool threads do not belong to the current build, so
+                // they take the isolated settings of the current thread, if
+                // any (e.g, in batch mode), for the directory, the
+                // environment and the timeout of each command
+                final Map<String, Object> settings = ConfigurationController.
+                        getInstance().snapshot();
+                for (final Object element : ((Parallel) current).getElements()) {
+                    if (concurrent && !CommonUtils.checkEmptyString(
+                            String.valueOf(element))) {
+                        announce(element);
+                        Future<Object> task = getPool().submit(
+                                new Callable<Object>() {
+                            @Override
+                            public Object call() throws Exception {
+                                if (settings != null) {
+                                    ConfigurationController.getInstance().
+                                            isolate(settings);
+                                }
+                                try {
+                                    if (CommonUtils.checkClass(
+                                            Builtin.class, element)) {
+                                        return InterpreterUtils.execute(
+                                                (Builtin) element);
+                                    }
+                                    if (CommonUtils.checkClass(
+                                            Pipeline.class, element)) {
+                                        return InterpreterUtils.runPipeline(
+                                                (Pipeline) element);
+                                    }
+                                    return InterpreterUtils.run(
+                                            CommonUtils.checkClass(
+                                                    Command.class, element)
+                                            ? element
+                                            : String.valueOf(element));
+                                } finally {
+                                    if (settings != null) {
+                                        ConfigurationController.
+                                                getInstance().release();
+                                    }
+                                }
+                            }
+                        });
+                        launched.add(task);
+                        tasks.put(expanded.size(), task);
+                    }
+                    expanded.add(element);
+                }
+            } else {
+                expanded.add(current);
             }
         }
+        return expanded;
+    }
+
+    /**
+     * Adds the provided command to the logging framework. A command launched
+     * in the pool is added when launched, so it comes right before its
+     * output; any other command is added when reached.
+     * @param command The command, that is, a built-in command, a pipeline, a
+     * command object or a string.
+     */
+    private void announce(Object command) {
+        if (CommonUtils.checkClass(Builtin.class, command)) {
+            logger.info(
+                    messages.getMessage(
+                            Messages.LOG_INFO_BUILTIN_COMMAND,
+                            command
+                    )
+            );
+        } else {
+            logger.info(
+                    messages.getMessage(
+                            Messages.LOG_INFO_SYSTEM_COMMAND,
+                            CommonUtils.checkClass(Pipeline.class, command)
+                            || CommonUtils.checkClass(Command.class, command)
+                            ? command
+                            : String.valueOf(command)
+                    )
+            );
+        }
+    }
+
+    /**
+     * Gets the pool running the commands grouped by the 'parallel' method,
+     * creating it if needed. The pool is shared by every build in this
+     * virtual machine and bounded by the number of jobs of the current
+     * execution; idle threads are discarded after a while.
+     * @return The pool.
+     */
+    private static synchronized ExecutorService getPool() {
+        int jobs = (int) (long) (Long) ConfigurationController.
+                getInstance().
+                get("execution.jobs");
+        if (pool == null) {
+            pool = new ThreadPoolExecutor(jobs, jobs, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            pool.allowCoreThreadTimeOut(true);
+        } else if (jobs > pool.getMaximumPoolSize()) {
+            pool.setMaximumPoolSize(jobs);
+            pool.setCorePoolSize(jobs);
+        } else if (jobs < pool.getMaximumPoolSize()) {
+            pool.setCorePoolSize(jobs);
+            pool.setMaximumPoolSize(jobs);
+        }
+        return pool;
     }
 
     /**
-     * Gets the rule according to the provided directive.
-     * @param directive The provided directive.
+     * Waits for the provided command, either launched in the pool or run on
+     * demand, and gets its result.
+     * @param task The launched command.
+     * @return The command result, that is, the exit value of a system
+     * command, the exit values of a pipeline or the boolean result of a
+     * built-in command.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    private Object collect(Future<Object> task) throws NightingaleException {
+
+        // a coalesced invocation is run right here, the
+        // first time one of its commands is reached; a
+        // task already run or running is not affected,
+        // and a command launched in the pool is only
+        // waited for, so the number of jobs holds
+        if ((task instanceof RunnableFuture) && !launched.contains(task)) {
+            ((RunnableFuture) task).run();
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException iexception) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_INTERPRETER_INTERRUPTED
+                    ),
+                    iexception
+            );
+        } catch (ExecutionException eexception) {
+            if (eexception.getCause() instanceof NightingaleException) {
+                throw (NightingaleException) eexception.getCause();
+            }
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_RUN_GENERIC_EXCEPTION
+                    ),
+                    eexception
+            );
+        }
+    }
+
+    /**
+     * Evaluates the exit closure of the provided command for the provided
+     * exit value, keeping track of the time spent in it.
+     * @param command The rule command.
+     * @param code The exit value.
+     * @return A boolean value indicating if the command was successful.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    private boolean exit(RuleCommand command, int code)
+            throws NightingaleException {
+        long start = System.nanoTime();
+        try {
+            return command.exit(code);
+        } finally {
+            Profiler.record("exit", command.getName(), start,
+                    System.nanoTime());
+        }
+    }
+
+    /**
+     * Translates the provided exception, raised while interpreting a rule,
+     * into a proper application exception.
+     * @param exception The exception.
+     * @return The application exception.
+     */
+    private NightingaleException translate(Exception exception) {
+        if (exception instanceof CompilationFailedException) {
+            return new NightingaleException(
+                    CommonUtils.getRuleErrorHeader().
+                    concat(messages.getMessage(
+                            Messages.ERROR_INTERPRETER_COMPILATION_FAILED)
+                    ),
+                    exception
+            );
+        } else if (exception instanceof IOException) {
+            return new NightingaleException(
+                    CommonUtils.getRuleErrorHeader().
+                    concat(messages.getMessage(
+                            Messages.ERROR_INTERPRETER_IO_EXCEPTION)
+                    ),
+                    exception
+            );
+        } else if (exception instanceof MissingPropertyException) {
+            return new NightingaleException(
+                    CommonUtils.getRuleErrorHeader().
+                    concat(messages.getMessage(
+                            Messages.ERROR_INTERPRETER_MISSING_PROPERTY)
+                    ),
+                    exception
+            );
+        } else {
+            return new NightingaleException(
+                    CommonUtils.getRuleErrorHeader().
+                    concat(messages.getMessage(
+                            Messages.ERROR_INTERPRETER_GENERIC_EXCEPTION)
+                    ),
+                    exception
+            );
+        }
+    }
+
+    /**
+     * Gets the rule according to the directive at the provided position.
+     * @param index The directive position.
      * @return The absolute canonical path of the rule, given the provided
      * directive.
      * @throws NightingaleException Something wrong happened, to be caught in
      * the higher levels.
      */
-    private File getRule(Directive directive) throws NightingaleException {
-        File file = InterpreterUtils.buildRulePath(directive.getIdentifier());
+    private File getRule(int index) throws NightingaleException {
+        Directive directive = directives.get(index);
+        File file = resolve(index);
         if (file == null) {
-            throw new NightingaleException(
-                    messages.getMessage(
-                            Messages.ERROR_INTERPRETER_RULE_NOT_FOUND,
-                            directive.getIdentifier(),
-                            CommonUtils.getCollectionElements(
-                                    CommonUtils.getAllRulePaths(),
-                                    "(",
-                                    ")",
-                                    "; "
-                            )
+            String message = messages.getMessage(
+                    Messages.ERROR_INTERPRETER_RULE_NOT_FOUND,
+                    directive.getIdentifier(),
+                    CommonUtils.getCollectionElements(
+                            CommonUtils.getAllRulePaths(),
+                            "(",
+                            ")",
+                            "; "
                     )
             );
+
+            // the rule index knows every rule available,
+            // so similar names are suggested, if any
+            List<String> similar = InterpreterUtils.
+                    getSimilarRules(directive.getIdentifier());
+            if (!similar.isEmpty()) {
+                message = message.concat(" ").concat(
+                        messages.getMessage(
+                                Messages.ERROR_INTERPRETER_RULE_NOT_FOUND_SIMILAR,
+                                CommonUtils.getCollectionElements(
+                                        similar,
+                                        "'",
+                                        "'",
+                                        "', '"
+                                )
+                        )
+                );
+            }
+            throw new NightingaleException(message);
         } else {
             return file;
         }
     }
+
+    /**
+     * Resolves the rule of the directive at the provided position, only once.
+     * @param index The directive position.
+     * @return The rule file, or null if the rule could not be found.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    private File resolve(int index) throws NightingaleException {
+        if (!rules.containsKey(index)) {
+            rules.put(index, InterpreterUtils.buildRulePath(
+                    directives.get(index).getIdentifier())
+            );
+        }
+        return rules.get(index);
+    }
+
 }
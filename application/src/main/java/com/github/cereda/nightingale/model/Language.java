@@ -93,6 +93,14 @@ public class Language {
         }
     }
 
+    /**
+     * Gets the language code.
+     * @return A string representing the language code.
+     */
+    public String getCode() {
+        return code;
+    }
+
     /**
      * Gets the language name.
      * @return A string representing the language name.
@@ -48,8 +48,20 @@ import ch.qos.cal10n.LocaleData;
     @Locale(value = "en", charset = "UTF-8")
 })
 public enum Messages {
+    ERROR_ARCHIVE_GENERIC_EXCEPTION,
+    ERROR_ARCHIVE_INTERRUPTED_EXCEPTION,
+    ERROR_ARCHIVE_IO_EXCEPTION,
+    ERROR_ARCHIVE_NOT_GENERATED,
+    ERROR_ARCHIVE_UNSUPPORTED_VERSION,
     ERROR_BASENAME_NOT_A_FILE,
+    ERROR_BATCH_IO_EXCEPTION,
+    ERROR_BUILTIN_FAILED,
+    ERROR_BUILTIN_MISSING_ELEMENTS,
+    ERROR_BUILTIN_TARGET_IS_SOURCE,
+    ERROR_BUILTIN_TARGET_NOT_A_DIRECTORY,
+    ERROR_BUILTIN_UNKNOWN_COMMAND,
     ERROR_CALCULATEHASH_IO_EXCEPTION,
+    ERROR_CHECKRULE_NULL_VALUE,
     ERROR_CHECK_INVALID_KEY,
     ERROR_CHECK_UNKNOWN_TYPE,
     ERROR_CHECKBOOLEAN_NOT_VALID_BOOLEAN,
@@ -79,35 +91,70 @@ public enum Messages {
     ERROR_CHECKPATHS_NOT_A_STRING,
     ERROR_CHECKREGEX_IO_EXCEPTION,
     ERROR_CHECKVERSION_VERSION_TOO_OLD,
+    ERROR_CLIENT_CONNECTION_LOST,
+    ERROR_COALESCENCE_INVALID_ELEMENT,
     ERROR_CONFIGURATION_LOOPS_INVALID_RANGE,
     ERROR_CONFIGURATION_TIMEOUT_INVALID_RANGE,
+    ERROR_DAEMON_ALREADY_RUNNING,
+    ERROR_DAEMON_IO_EXCEPTION,
     ERROR_DISCOVERFILE_FILE_NOT_FOUND,
     ERROR_ENSURE_DIFFERENT_SIZES,
     ERROR_ENSURE_UNKNOWN_KEY,
     ERROR_EVALUATE_COMPILATION_FAILED,
     ERROR_EVALUATE_GENERIC_EXCEPTION,
     ERROR_EVALUATE_NOT_BOOLEAN_VALUE,
+    ERROR_EVENTBUS_INVALID_SERVICE,
     ERROR_EXTRACTOR_IO_ERROR,
     ERROR_FILETYPE_NOT_A_FILE,
     ERROR_FILETYPE_UNKNOWN_EXTENSION,
     ERROR_GETAPPLICATIONPATH_ENCODING_EXCEPTION,
     ERROR_GETCANONICALFILE_IO_EXCEPTION,
     ERROR_GETCANONICALPATH_IO_EXCEPTION,
+    ERROR_GETNATIVERULE_INSTANTIATION_FAILED,
+    ERROR_GETNATIVERULE_INVALID_SERVICE,
     ERROR_GETPARENTCANONICALPATH_IO_EXCEPTION,
+    ERROR_HISTORY_COULD_NOT_SAVE,
     ERROR_INTERPRETER_COMPILATION_FAILED,
     ERROR_INTERPRETER_GENERIC_EXCEPTION,
+    ERROR_INTERPRETER_INTERRUPTED,
     ERROR_INTERPRETER_IO_EXCEPTION,
     ERROR_INTERPRETER_MISSING_PROPERTY,
     ERROR_INTERPRETER_NULL_COMMAND_LIST,
     ERROR_INTERPRETER_RULE_NOT_FOUND,
+    ERROR_INTERPRETER_RULE_NOT_FOUND_SIMILAR,
     ERROR_INTERPRETER_WRONG_EXIT_CLOSURE_RETURN,
     ERROR_LANGUAGE_INVALID_CODE,
+    ERROR_LIBRARY_COMPILATION_FAILED,
+    ERROR_LIBRARY_IO_EXCEPTION,
     ERROR_LOAD_COULD_NOT_LOAD_XML,
+    ERROR_METRICS_IO_EXCEPTION,
+    ERROR_METRICS_SERVER_EXCEPTION,
     ERROR_OBTAIN_INVALID_KEY,
+    ERROR_PARALLEL_INVALID_ELEMENT,
+    ERROR_PARSECONFIGURATION_INVALID_TIMEOUT_UNIT,
+    ERROR_PARSECONFIGURATION_NOT_A_MAP,
+    ERROR_PARSECONFIGURATION_YAML_EXCEPTION,
+    ERROR_PARSER_IDLE_INVALID_RANGE,
+    ERROR_PARSER_IDLE_NAN,
+    ERROR_PARSER_JOBS_INVALID_RANGE,
+    ERROR_PARSER_JOBS_NAN,
     ERROR_PARSER_LOOPS_INVALID_RANGE,
     ERROR_PARSER_LOOPS_NAN,
+    ERROR_PARSER_METRICS_PORT_INVALID_RANGE,
+    ERROR_PARSER_METRICS_PORT_NAN,
+    ERROR_PARSER_PROFILE_NOT_ALLOWED_IN_BATCH,
+    ERROR_PARSER_RECORD_REPLAY,
+    ERROR_PARSER_SCALE_INVALID_RANGE,
+    ERROR_PARSER_SCALE_NAN,
     ERROR_PARSER_TIMEOUT_INVALID_RANGE,
     ERROR_PARSER_TIMEOUT_NAN,
+    ERROR_PIPELINE_EMPTY,
+    ERROR_PIPELINE_INVALID_STAGE,
+    ERROR_PROFILER_IO_EXCEPTION,
+    ERROR_RECORD_IO_EXCEPTION,
+    ERROR_REPLAY_COMMAND_NOT_FOUND,
+    ERROR_REPLAY_INVALID_RECORDING,
+    ERROR_REPLAY_IO_EXCEPTION,
     ERROR_REPLICATELIST_MISSING_FORMAT_ARGUMENTS_EXCEPTION,
     ERROR_REQUIRED_INVALID_KEY,
     ERROR_RULE_IDENTIFIER_AND_PATH,
@@ -115,6 +162,8 @@ public enum Messages {
     ERROR_RUN_INTERRUPTED_EXCEPTION,
     ERROR_RUN_INVALID_EXIT_VALUE_EXCEPTION,
     ERROR_RUN_IO_EXCEPTION,
+    ERROR_RUN_PIPELINE_IO_EXCEPTION,
+    ERROR_RUN_PIPELINE_REPLAY,
     ERROR_RUN_TIMEOUT_EXCEPTION,
     ERROR_RUN_TIMEOUT_INVALID_RANGE,
     ERROR_SAVE_COULD_NOT_SAVE_XML,
@@ -135,13 +184,28 @@ public enum Messages {
     ERROR_VALIDATECONFIGURATION_IO_EXCEPTION,
     ERROR_VALIDATECONFIGURATION_UNSUPPORTED_CHARSET,
     ERROR_VALIDATEIDENTIFIER_WRONG_IDENTIFIER,
+    ERROR_WATCH_IO_EXCEPTION,
+    ERROR_WATCH_NOT_ALLOWED_IN_DAEMON,
+    INFO_ARCHIVE_GENERATED,
+    INFO_ARCHIVE_TRAINING,
+    INFO_BATCH_NO_HISTORY,
+    INFO_BATCH_PREDICTION,
+    INFO_BATCH_SUMMARY,
+    INFO_BATCH_TOTAL,
+    INFO_DAEMON_LISTENING,
+    INFO_DAEMON_SHUTDOWN,
+    INFO_DISPLAY_CRITICAL_PATH,
     INFO_DISPLAY_EXCEPTION_MORE_DETAILS,
     INFO_DISPLAY_EXECUTION_TIME,
     INFO_DISPLAY_FILE_INFORMATION,
+    INFO_DISPLAY_PHASES,
+    INFO_DISPLAY_PROFILE,
     INFO_INTERPRETER_DRYRUN_MODE_BOOLEAN_MODE,
+    INFO_INTERPRETER_DRYRUN_MODE_BUILTIN_COMMAND,
     INFO_INTERPRETER_DRYRUN_MODE_SYSTEM_COMMAND,
     INFO_INTERPRETER_DRYRUN_MODE_TRIGGER_MODE,
     INFO_INTERPRETER_VERBOSE_MODE_BOOLEAN_MODE,
+    INFO_INTERPRETER_VERBOSE_MODE_BUILTIN_COMMAND,
     INFO_INTERPRETER_VERBOSE_MODE_TRIGGER_MODE,
     INFO_LABEL_AUTHOR,
     INFO_LABEL_AUTHORS,
@@ -152,16 +216,45 @@ public enum Messages {
     INFO_LABEL_ON_FAILURE,
     INFO_LABEL_ON_SUCCESS,
     INFO_PARSER_ALL_RIGHTS_RESERVED,
+    INFO_PARSER_BATCH_DESCRIPTION,
+    INFO_PARSER_DAEMON_DESCRIPTION,
     INFO_PARSER_DRYRUN_MODE_DESCRIPTION,
+    INFO_PARSER_GENERATE_CDS_DESCRIPTION,
     INFO_PARSER_HELP_DESCRIPTION,
+    INFO_PARSER_IDLE_DESCRIPTION,
+    INFO_PARSER_JOBS_DESCRIPTION,
     INFO_PARSER_LANGUAGE_DESCRIPTION,
     INFO_PARSER_LOG_DESCRIPTION,
     INFO_PARSER_LOOPS_DESCRIPTION,
+    INFO_PARSER_METRICS_DESCRIPTION,
+    INFO_PARSER_METRICS_PORT_DESCRIPTION,
     INFO_PARSER_NOTES,
+    INFO_PARSER_PHASES_DESCRIPTION,
+    INFO_PARSER_PROFILE_DESCRIPTION,
+    INFO_PARSER_RECORD_DESCRIPTION,
+    INFO_PARSER_REPLAY_DESCRIPTION,
+    INFO_PARSER_SCALE_DESCRIPTION,
+    INFO_PARSER_SIMULATE_DESCRIPTION,
     INFO_PARSER_TIMEOUT_DESCRIPTION,
+    INFO_PARSER_TRACE_DESCRIPTION,
     INFO_PARSER_VERBOSE_MODE_DESCRIPTION,
     INFO_PARSER_VERSION_DESCRIPTION,
+    INFO_PARSER_WATCH_DESCRIPTION,
+    INFO_SIMULATION_CONFIGURATION,
+    INFO_SIMULATION_CRITICAL_PATH,
+    INFO_SIMULATION_NO_HISTORY,
+    INFO_SIMULATION_POLICY_LONGEST,
+    INFO_SIMULATION_POLICY_ORDER,
+    INFO_SIMULATION_RESULT,
+    INFO_SIMULATION_SUMMARY,
+    INFO_WATCH_BUILD_CANCELLED,
+    INFO_WATCH_CHANGES_DETECTED,
+    INFO_WATCH_WAITING,
+    LOG_ERROR_EVENTBUS_FLUSH_TIMEOUT,
+    LOG_ERROR_EVENTBUS_LISTENER_FAILED,
     LOG_INFO_BEGIN_BUFFER,
+    LOG_INFO_BUILTIN_COMMAND,
+    LOG_INFO_COALESCED_COMMAND,
     LOG_INFO_DIRECTIVES_BLOCK,
     LOG_INFO_END_BUFFER,
     LOG_INFO_INTERPRET_RULE,
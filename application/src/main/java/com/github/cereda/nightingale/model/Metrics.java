@@ -0,0 +1,439 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.model;
+
+import com.github.cereda.nightingale.controller.LanguageController;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Implements the metrics registry. It holds counters and histograms about
+ * the builds, namely directive durations, command exit codes and output,
+ * conditional iterations, cache requests and database lookups, exported in
+ * the OpenMetrics text format, either to a file in the end of each run or
+ * through a loopback port while a long-running mode is active. The values
+ * are never reset, so they keep growing across the builds of such modes, as
+ * expected from counters.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class Metrics {
+
+    // the metric families, in the order
+    // they are exported
+    private static final Map<String, Family> families =
+            new LinkedHashMap<String, Family>();
+
+    // the application messages obtained from the
+    // language controller
+    private static final LanguageController messages =
+            LanguageController.getInstance();
+
+    // whether the registry is enabled, and the
+    // server exposing it, if any
+    private static volatile boolean enabled = false;
+    private static HttpServer server = null;
+
+    // the listener which turns build
+    // events into metric samples
+    private static final BuildListener LISTENER = new Listener();
+
+    static {
+        register(new Family("nightingale_directive_duration_seconds",
+                "histogram", "Time spent in each directive, by rule and "
+                + "result.",
+                0.01, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 300));
+        register(new Family("nightingale_command_exits",
+                "counter", "Commands run, by exit code."));
+        register(new Family("nightingale_command_output_bytes",
+                "counter", "Bytes written by commands to the standard "
+                + "output and error streams."));
+        register(new Family("nightingale_conditional_iterations",
+                "histogram", "Conditional evaluations of each directive, "
+                + "by conditional type.",
+                1, 2, 3, 4, 5, 10, 25, 50, 100));
+        register(new Family("nightingale_cache_requests",
+                "counter", "Cache requests, by cache and result."));
+        register(new Family("nightingale_database_lookup_seconds",
+                "histogram", "Time spent looking files up in the database "
+                + "of changes.",
+                0.0001, 0.0005, 0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1));
+    }
+
+    /**
+     * Checks if the registry is enabled.
+     * @return A boolean value indicating if the registry is enabled.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables the registry. Once enabled, it stays enabled for the lifetime
+     * of the virtual machine.
+     */
+    public static void enable() {
+        enabled = true;
+        EventBus.subscribe(LISTENER);
+    }
+
+    /**
+     * Increments the provided counter, if the registry is enabled.
+     * @param name The counter name.
+     * @param amount The amount.
+     * @param labels The label names and values, in pairs.
+     */
+    public static void count(String name, long amount, Object... labels) {
+        if (enabled) {
+            synchronized (Metrics.class) {
+                families.get(name).sample(labels)[0] += amount;
+            }
+        }
+    }
+
+    /**
+     * Observes a value in the provided histogram, if the registry is
+     * enabled.
+     * @param name The histogram name.
+     * @param value The value.
+     * @param labels The label names and values, in pairs.
+     */
+    public static void observe(String name, double value, Object... labels) {
+        if (enabled) {
+            synchronized (Metrics.class) {
+                Family family = families.get(name);
+                double[] sample = family.sample(labels);
+                for (int i = 0; i < family.buckets.length; i++) {
+                    if (value <= family.buckets[i]) {
+                        sample[i]++;
+                    }
+                }
+                sample[family.buckets.length]++;
+                sample[family.buckets.length + 1] += value;
+            }
+        }
+    }
+
+    /**
+     * Exports the registry in the OpenMetrics text format.
+     * @return The exposition text.
+     */
+    public static synchronized String export() {
+        StringBuilder builder = new StringBuilder();
+        for (Family family : families.values()) {
+            builder.append("# TYPE ").append(family.name).append(" ").
+                    append(family.type).append("\n");
+            builder.append("# HELP ").append(family.name).append(" ").
+                    append(family.help).append("\n");
+            for (Map.Entry<String, double[]> entry :
+                    family.samples.entrySet()) {
+                String labels = entry.getKey();
+                double[] sample = entry.getValue();
+                if (family.type.equals("counter")) {
+                    append(builder, family.name.concat("_total"), labels,
+                            null, sample[0]);
+                } else {
+                    for (int i = 0; i < family.buckets.length; i++) {
+                        append(builder, family.name.concat("_bucket"),
+                                labels, String.valueOf(family.buckets[i]),
+                                sample[i]);
+                    }
+                    append(builder, family.name.concat("_bucket"), labels,
+                            "+Inf", sample[family.buckets.length]);
+                    append(builder, family.name.concat("_count"), labels,
+                            null, sample[family.buckets.length]);
+                    append(builder, family.name.concat("_sum"), labels,
+                            null, sample[family.buckets.length + 1]);
+                }
+            }
+        }
+        builder.append("# EOF\n");
+        return builder.toString();
+    }
+
+    /**
+     * Saves the registry to the provided file, in the OpenMetrics text
+     * format. The file is written in full and then moved over the previous
+     * one, so a collector never reads a partial file.
+     * @param file The file.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public static void save(File file) throws NightingaleException {
+        File temporary = new File(file.getAbsoluteFile().getParentFile(),
+                file.getName().concat(".tmp"));
+        OutputStream stream = null;
+        try {
+            stream = new FileOutputStream(temporary);
+            stream.write(export().getBytes("UTF-8"));
+            stream.close();
+            if (!temporary.renameTo(file)) {
+                file.delete();
+                if (!temporary.renameTo(file)) {
+                    throw new IOException(temporary.getPath());
+                }
+            }
+        } catch (IOException ioexception) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_METRICS_IO_EXCEPTION,
+                            file.getName()
+                    ),
+                    ioexception
+            );
+        } finally {
+            IOUtils.closeQuietly(stream);
+        }
+    }
+
+    /**
+     * Starts serving the registry on the provided port of the loopback
+     * interface, in the OpenMetrics text format.
+     * @param port The port.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public static synchronized void serve(int port)
+            throws NightingaleException {
+        try {
+            server = HttpServer.create(new InetSocketAddress(
+                    InetAddress.getByName(null), port), 0);
+            server.createContext("/", new HttpHandler() {
+
+                /**
+                 * Handles a scrape, that is, replies with the exposition
+                 * text.
+                 * @param exchange The exchange.
+                 * @throws IOException The reply could not be sent.
+                 */
+                @Override
+                public void handle(HttpExchange exchange) throws IOException {
+                    byte[] body = export().getBytes("UTF-8");
+                    exchange.getResponseHeaders().set("Content-Type",
+                            "application/openmetrics-text; "
+                            + "version=1.0.0; charset=utf-8");
+                    exchange.sendResponseHeaders(200, body.length);
+                    OutputStream stream = exchange.getResponseBody();
+                    try {
+                        stream.write(body);
+                    } finally {
+                        stream.close();
+                    }
+                }
+            });
+            server.start();
+        } catch (IOException ioexception) {
+            server = null;
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_METRICS_SERVER_EXCEPTION,
+                            String.valueOf(port)
+                    ),
+                    ioexception
+            );
+        }
+    }
+
+    /**
+     * Stops serving the registry, if it was being served.
+     */
+    public static synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    /**
+     * Registers the provided metric family.
+     * @param family The metric family.
+     */
+    private static void register(Family family) {
+        families.put(family.name, family);
+    }
+
+    /**
+     * Appends a single sample line to the provided builder.
+     * @param builder The builder.
+     * @param name The sample name.
+     * @param labels The rendered labels, possibly empty.
+     * @param bucket The bucket bound, or null if this is not a bucket.
+     * @param value The sample value.
+     */
+    private static void append(StringBuilder builder, String name,
+            String labels, String bucket, double value) {
+        builder.append(name);
+        if (bucket != null) {
+            labels = labels.isEmpty()
+                    ? "le=\"".concat(bucket).concat("\"")
+                    : labels.concat(",le=\"").concat(bucket).concat("\"");
+        }
+        if (!labels.isEmpty()) {
+            builder.append("{").append(labels).append("}");
+        }
+        builder.append(" ");
+        if ((value == Math.rint(value)) && !Double.isInfinite(value)) {
+            builder.append((long) value);
+        } else {
+            builder.append(value);
+        }
+        builder.append("\n");
+    }
+
+    /**
+     * Implements the listener which turns build events into metric samples.
+     */
+    private static class Listener implements BuildListener {
+
+        /**
+         * Observes directive durations and conditional iterations, and
+         * counts command exit codes and output bytes.
+         * @param event The build event.
+         */
+        @Override
+        public void onEvent(BuildEvent event) {
+            if (event instanceof BuildEvent.DirectiveFinished) {
+                BuildEvent.DirectiveFinished finished =
+                        (BuildEvent.DirectiveFinished) event;
+                Directive directive = finished.getDirective();
+                observe("nightingale_directive_duration_seconds",
+                        finished.getDuration() / 1000000000.0,
+                        "rule", directive.getIdentifier(), "result",
+                        finished.isSuccessful() ? "success" : "failure");
+                if (directive.getConditional().getType()
+                        != Conditional.ConditionalType.NONE) {
+                    observe("nightingale_conditional_iterations",
+                            finished.getEvaluations(), "type",
+                            directive.getConditional().getType());
+                }
+            } else if (event instanceof BuildEvent.CommandFinished) {
+                BuildEvent.CommandFinished finished =
+                        (BuildEvent.CommandFinished) event;
+
+                // built-in commands report a boolean
+                // value instead of an exit code
+                if (finished.getResult() instanceof Integer) {
+                    count("nightingale_command_exits", 1, "code",
+                            finished.getResult());
+                } else if (finished.getResult() instanceof List) {
+                    for (Object code : (List<?>) finished.getResult()) {
+                        count("nightingale_command_exits", 1, "code", code);
+                    }
+                }
+                count("nightingale_command_output_bytes",
+                        finished.getBytes());
+            }
+        }
+
+    }
+
+    /**
+     * Implements a metric family, that is, a metric and all its samples,
+     * one for each combination of label values.
+     */
+    private static class Family {
+
+        // the family name, type and help text, the
+        // histogram buckets, and the samples, keyed
+        // by their rendered labels; a counter sample
+        // holds its value, and a histogram sample
+        // holds the bucket counts, the total count
+        // and the sum of the observed values
+        private final String name;
+        private final String type;
+        private final String help;
+        private final double[] buckets;
+        private final Map<String, double[]> samples =
+                new TreeMap<String, double[]>();
+
+        /**
+         * Constructor.
+         * @param name The family name.
+         * @param type The family type.
+         * @param help The help text.
+         * @param buckets The histogram buckets, in ascending order.
+         */
+        private Family(String name, String type, String help,
+                double... buckets) {
+            this.name = name;
+            this.type = type;
+            this.help = help;
+            this.buckets = Arrays.copyOf(buckets, buckets.length);
+        }
+
+        /**
+         * Gets the sample of the provided labels, creating it if needed.
+         * @param labels The label names and values, in pairs.
+         * @return The sample.
+         */
+        private double[] sample(Object... labels) {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i + 1 < labels.length; i = i + 2) {
+                if (builder.length() > 0) {
+                    builder.append(",");
+                }
+                builder.append(labels[i]).append("=\"").
+                        append(String.valueOf(labels[i + 1]).
+                                replace("\\", "\\\\").
+                                replace("\"", "\\\"").
+                                replace("\n", "\\n")).
+                        append("\"");
+            }
+            String key = builder.toString();
+            double[] sample = samples.get(key);
+            if (sample == null) {
+                sample = new double[type.equals("counter")
+                        ? 1 : buckets.length + 2];
+                samples.put(key, sample);
+            }
+            return sample;
+        }
+
+    }
+
+}
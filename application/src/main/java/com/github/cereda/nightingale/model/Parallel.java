@@ -0,0 +1,105 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.model;
+
+import com.github.cereda.nightingale.controller.LanguageController;
+import com.github.cereda.nightingale.utils.CommonUtils;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Implements a group of independent commands, that is, system commands,
+ * pipelines and built-in commands which do not depend on each other and thus
+ * can run at the same time. The interpreter still reports each command on
+ * its own, in the order they were provided.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class Parallel {
+
+    // the list of independent commands
+    private final List<Object> elements;
+
+    // the application messages obtained from the
+    // language controller
+    private static final LanguageController messages =
+            LanguageController.getInstance();
+
+    /**
+     * Constructor. The values are flattened, and each one of them must be a
+     * system command, either as a command object or as a string, a pipeline
+     * or a built-in command.
+     * @param values The independent commands.
+     * @throws NightingaleException One of the values cannot run on its own.
+     */
+    public Parallel(Object... values) throws NightingaleException {
+        elements = new ArrayList<Object>();
+        for (Object value : CommonUtils.flatten(Arrays.asList(values))) {
+            if ((value == null)
+                    || CommonUtils.checkClass(Boolean.class, value)
+                    || CommonUtils.checkClass(Trigger.class, value)
+                    || CommonUtils.checkClass(Parallel.class, value)
+                    || CommonUtils.checkClass(Coalescence.class, value)) {
+                throw new NightingaleException(
+                        CommonUtils.getRuleErrorHeader().
+                        concat(messages.getMessage(
+                                Messages.ERROR_PARALLEL_INVALID_ELEMENT,
+                                String.valueOf(value)
+                        ))
+                );
+            }
+            elements.add(value);
+        }
+    }
+
+    /**
+     * Gets the list of independent commands.
+     * @return The list of independent commands.
+     */
+    public List<Object> getElements() {
+        return elements;
+    }
+
+    /**
+     * Provides a textual representation of the group of commands.
+     * @return The textual representation.
+     */
+    @Override
+    public String toString() {
+        return CommonUtils.getCollectionElements(elements, "[ ", " ]", ", ");
+    }
+
+}
@@ -38,6 +38,7 @@ import com.github.cereda.nightingale.controller.LanguageController;
 import com.github.cereda.nightingale.controller.LoggingController;
 import com.github.cereda.nightingale.utils.CommonUtils;
 import com.github.cereda.nightingale.utils.DisplayUtils;
+import java.util.Arrays;
 import java.util.Locale;
 import org.apache.commons.cli.BasicParser;
 import org.apache.commons.cli.CommandLine;
@@ -79,6 +80,21 @@ public class Parser {
     private Option timeout;
     private Option language;
     private Option loops;
+    private Option daemon;
+    private Option idle;
+    private Option watch;
+    private Option batch;
+    private Option jobs;
+    private Option phases;
+    private Option archive;
+    private Option record;
+    private Option replay;
+    private Option scale;
+    private Option simulate;
+    private Option profile;
+    private Option trace;
+    private Option metrics;
+    private Option port;
 
     /**
      * Constructor.
@@ -112,6 +128,29 @@ public class Parser {
         language.setArgName("code");
         loops = new Option("m", "max-loops", true, "");
         loops.setArgName("number");
+        daemon = new Option("d", "daemon", false, "");
+        idle = new Option("i", "idle", true, "");
+        idle.setArgName("number");
+        watch = new Option("w", "watch", false, "");
+        batch = new Option("b", "batch", false, "");
+        jobs = new Option("j", "jobs", true, "");
+        jobs.setArgName("number");
+        phases = new Option("p", "phases", false, "");
+        archive = new Option(null, "generate-cds", false, "");
+        record = new Option(null, "record", true, "");
+        record.setArgName("file");
+        replay = new Option(null, "replay", true, "");
+        replay.setArgName("file");
+        scale = new Option(null, "scale", true, "");
+        scale.setArgName("factor");
+        simulate = new Option(null, "simulate", false, "");
+        profile = new Option(null, "profile", false, "");
+        trace = new Option(null, "trace", true, "");
+        trace.setArgName("file");
+        metrics = new Option(null, "metrics", true, "");
+        metrics.setArgName("file");
+        port = new Option(null, "metrics-port", true, "");
+        port.setArgName("number");
 
         // add all options to the options
         // group, so they are recognized
@@ -125,6 +164,21 @@ public class Parser {
         options.addOption(timeout);
         options.addOption(language);
         options.addOption(loops);
+        options.addOption(daemon);
+        options.addOption(idle);
+        options.addOption(watch);
+        options.addOption(batch);
+        options.addOption(jobs);
+        options.addOption(phases);
+        options.addOption(archive);
+        options.addOption(record);
+        options.addOption(replay);
+        options.addOption(scale);
+        options.addOption(simulate);
+        options.addOption(profile);
+        options.addOption(trace);
+        options.addOption(metrics);
+        options.addOption(port);
 
         // update all descriptions based
         // on the localized messages
@@ -175,18 +229,145 @@ public class Parser {
                 return false;
             }
 
-            // nightingale expects only one file
-            // to be processed at a time, so if
-            // there are no files or more than
-            // one file, print info and return
-            // false, so the application should
-            // gracefully exit
-            if (line.getArgs().length != 1) {
-                printVersion();
-                printUsage();
+            // there is an option for the daemon
+            // idle period, get the argument and
+            // validate it
+            if (line.hasOption("idle")) {
+                try {
+                    long value = Long.parseLong(line.getOptionValue("idle"));
+                    if (value <= 0) {
+                        throw new NightingaleException(
+                                messages.getMessage(
+                                        Messages.ERROR_PARSER_IDLE_INVALID_RANGE
+                                )
+                        );
+                    } else {
+                        ConfigurationController.
+                                getInstance().
+                                put("daemon.idle", value);
+                    }
+                } catch (NumberFormatException nfexception) {
+                    throw new NightingaleException(
+                            messages.getMessage(
+                                    Messages.ERROR_PARSER_IDLE_NAN
+                            )
+                    );
+                }
+            }
+
+            // there is an option for the metrics
+            // port, get the argument and validate
+            // it; the metrics are only served in
+            // the long-running modes, though
+            if (line.hasOption("metrics-port")) {
+                try {
+                    int value = Integer.parseInt(
+                            line.getOptionValue("metrics-port"));
+                    if ((value <= 0) || (value > 65535)) {
+                        throw new NightingaleException(
+                                messages.getMessage(
+                                        Messages.ERROR_PARSER_METRICS_PORT_INVALID_RANGE
+                                )
+                        );
+                    } else {
+                        ConfigurationController.
+                                getInstance().
+                                put("execution.metrics.port", value);
+                        Metrics.enable();
+                    }
+                } catch (NumberFormatException nfexception) {
+                    throw new NightingaleException(
+                            messages.getMessage(
+                                    Messages.ERROR_PARSER_METRICS_PORT_NAN
+                            )
+                    );
+                }
+            }
+
+            // there is a daemon option, so no file
+            // is processed right now; set the flag
+            // and return false, so the application
+            // starts waiting for build requests
+            if (line.hasOption("daemon")) {
+                ConfigurationController.
+                        getInstance().
+                        put("execution.daemon", true);
+                return false;
+            }
+
+            // there is an option for generating the
+            // class data sharing archive, so no file
+            // is processed right now; set the flag
+            // and return false, so the application
+            // runs the training build instead
+            if (line.hasOption("generate-cds")) {
+                ConfigurationController.
+                        getInstance().
+                        put("execution.archive", true);
                 return false;
+            }
+
+            // there is a batch option, so all the
+            // file references (or globs) are kept
+            // for later; at least one reference is
+            // expected, though; the simulation takes
+            // the very same references
+            boolean multiple = line.hasOption("batch")
+                    || line.hasOption("simulate");
+            if (multiple) {
+                if (line.getArgs().length == 0) {
+                    printVersion();
+                    printUsage();
+                    return false;
+                } else {
+                    reference = null;
+                    ConfigurationController.
+                            getInstance().
+                            put("execution.batch",
+                                    Arrays.asList(line.getArgs())
+                            );
+                }
             } else {
-                reference = line.getArgs()[0];
+
+                // nightingale expects only one file
+                // to be processed at a time, so if
+                // there are no files or more than
+                // one file, print info and return
+                // false, so the application should
+                // gracefully exit
+                if (line.getArgs().length != 1) {
+                    printVersion();
+                    printUsage();
+                    return false;
+                } else {
+                    reference = line.getArgs()[0];
+                }
+            }
+
+            // there is an option for the number
+            // of concurrent jobs, get the argument
+            // and validate it
+            if (line.hasOption("jobs")) {
+                try {
+                    long value = Long.parseLong(line.getOptionValue("jobs"));
+                    if (value <= 0) {
+                        throw new NightingaleException(
+                                messages.getMessage(
+                                        Messages.ERROR_PARSER_JOBS_INVALID_RANGE
+                                )
+                        );
+                    } else {
+                        ConfigurationController.
+                                getInstance().
+                                put("execution.jobs", value);
+                    }
+                } catch (NumberFormatException nfexception) {
+                    throw new NightingaleException(
+                            messages.getMessage(
+                                    Messages.ERROR_PARSER_JOBS_NAN
+                            )
+                    );
+                }
             }
 
             // there is a timeout option, get
@@ -243,6 +424,69 @@ public class Parser {
                 }
             }
 
+            // there is a simulate option, so the
+            // batch mode is simulated instead of
+            // actually building the documents
+            if (line.hasOption("simulate")) {
+                ConfigurationController.
+                        getInstance().
+                        put("execution.simulate", true);
+            }
+
+            // there is a phases option, so the
+            // time spent in each execution phase
+            // is displayed in the end
+            if (line.hasOption("phases")) {
+                ConfigurationController.
+                        getInstance().
+                        put("display.phases", true);
+            }
+
+            // there is a profile option, so every
+            // activity of the build is timed, and
+            // the profile is displayed and saved
+            if (line.hasOption("profile")) {
+                checkProfile(multiple);
+                ConfigurationController.
+                        getInstance().
+                        put("execution.profile", true);
+                Profiler.enable();
+            }
+
+            // there is a trace option, so every
+            // activity of the build is timed, and
+            // the trace is saved to the file
+            if (line.hasOption("trace")) {
+                checkProfile(multiple);
+                ConfigurationController.
+                        getInstance().
+                        put("execution.trace",
+                                CommonUtils.resolveFile(
+                                        line.getOptionValue("trace")));
+                Profiler.enable();
+            }
+
+            // there is a metrics option, so the
+            // build metrics are saved to the file
+            // in the end of the run
+            if (line.hasOption("metrics")) {
+                ConfigurationController.
+                        getInstance().
+                        put("execution.metrics",
+                                CommonUtils.resolveFile(
+                                        line.getOptionValue("metrics")));
+                Metrics.enable();
+            }
+
+            // there is a watch option, so the
+            // file is rebuilt every time one of
+            // its dependencies changes
+            if (line.hasOption("watch")) {
+                ConfigurationController.
+                        getInstance().
+                        put("execution.watch", true);
+            }
+
             // there is a verbose option,
             // set the settings accordingly
             if (line.hasOption("verbose")) {
@@ -264,6 +508,64 @@ public class Parser {
                         put("execution.errors.halt", false);
             }
 
+            // there is a record or a replay option, so
+            // the commands go through the corresponding
+            // process runner; a recording is replayed
+            // in the recorded pace, unless scaled
+            if (line.hasOption("record") && line.hasOption("replay")) {
+                throw new NightingaleException(
+                        messages.getMessage(
+                                Messages.ERROR_PARSER_RECORD_REPLAY
+                        )
+                );
+            }
+            if (line.hasOption("record")) {
+                ConfigurationController.
+                        getInstance().
+                        put("execution.runner",
+                                new RecordingRunner(
+                                        CommonUtils.resolveFile(
+                                                line.getOptionValue("record")
+                                        ),
+                                        (ProcessRunner) ConfigurationController.
+                                                getInstance().
+                                                get("execution.runner")
+                                )
+                        );
+            }
+            if (line.hasOption("replay")) {
+                double factor = 1;
+                if (line.hasOption("scale")) {
+                    try {
+                        factor = Double.parseDouble(line.getOptionValue("scale"));
+                    } catch (NumberFormatException nfexception) {
+                        throw new NightingaleException(
+                                messages.getMessage(
+                                        Messages.ERROR_PARSER_SCALE_NAN
+                                )
+                        );
+                    }
+                    if ((factor < 0) || Double.isNaN(factor)
+                            || Double.isInfinite(factor)) {
+                        throw new NightingaleException(
+                                messages.getMessage(
+                                        Messages.ERROR_PARSER_SCALE_INVALID_RANGE
+                                )
+                        );
+                    }
+                }
+                ConfigurationController.
+                        getInstance().
+                        put("execution.runner",
+                                new ReplayRunner(
+                                        CommonUtils.resolveFile(
+                                                line.getOptionValue("replay")
+                                        ),
+                                        factor
+                                )
+                        );
+            }
+
             // there is a verbose option,
             // set the settings accordingly
             if (line.hasOption("log")) {
@@ -272,6 +574,12 @@ public class Parser {
                         put("execution.logging", true);
             }
 
+            // in batch mode, each document is looked
+            // up later on, in its own isolated build
+            if (multiple) {
+                return true;
+            }
+
             // time to do a file lookup based on
             // the string reference; this method
             // might raise an exception if the file
@@ -296,6 +604,24 @@ public class Parser {
         }
     }
 
+    /**
+     * Checks if the build can be profiled, that is, if there is a single
+     * build going on; the profiler is shared by the whole virtual machine,
+     * so the activities of concurrent builds would be mixed up.
+     * @param multiple A flag indicating whether several documents were
+     * provided.
+     * @throws NightingaleException The build cannot be profiled.
+     */
+    private void checkProfile(boolean multiple) throws NightingaleException {
+        if (multiple) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_PARSER_PROFILE_NOT_ALLOWED_IN_BATCH
+                    )
+            );
+        }
+    }
+
     /**
      * Prints the application usage.
      */
@@ -304,7 +630,15 @@ public class Parser {
         StringBuilder builder = new StringBuilder();
         builder.append("nightingale [file [--dry-run] [--log] ");
         builder.append("[--verbose] [--timeout N] [--max-loops N] ");
-        builder.append("[--language L] | --help | --version]");
+        builder.append("[--watch [--metrics-port N]] [--phases] ");
+        builder.append("[--profile] [--trace F] [--metrics F] ");
+        builder.append("[--language L] [--jobs N] ");
+        builder.append("[--record F | --replay F [--scale N]] | ");
+        builder.append("(--batch | --simulate) [--jobs N] ");
+        builder.append("files... | ");
+        builder.append("--daemon [--idle N] [--metrics-port N] | ");
+        builder.append("--generate-cds | ");
+        builder.append("--help | --version]");
         formatter.printHelp(builder.toString(), options);
     }
 
@@ -383,6 +717,81 @@ public class Parser {
                         Messages.INFO_PARSER_LOOPS_DESCRIPTION
                 )
         );
+        daemon.setDescription(
+                messages.getMessage(
+                        Messages.INFO_PARSER_DAEMON_DESCRIPTION
+                )
+        );
+        idle.setDescription(
+                messages.getMessage(
+                        Messages.INFO_PARSER_IDLE_DESCRIPTION
+                )
+        );
+        watch.setDescription(
+                messages.getMessage(
+                        Messages.INFO_PARSER_WATCH_DESCRIPTION
+                )
+        );
+        batch.setDescription(
+                messages.getMessage(
+                        Messages.INFO_PARSER_BATCH_DESCRIPTION
+                )
+        );
+        jobs.setDescription(
+                messages.getMessage(
+                        Messages.INFO_PARSER_JOBS_DESCRIPTION
+                )
+        );
+        phases.setDescription(
+                messages.getMessage(
+                        Messages.INFO_PARSER_PHASES_DESCRIPTION
+                )
+        );
+        archive.setDescription(
+                messages.getMessage(
+                        Messages.INFO_PARSER_GENERATE_CDS_DESCRIPTION
+                )
+        );
+        record.setDescription(
+                messages.getMessage(
+                        Messages.INFO_PARSER_RECORD_DESCRIPTION
+                )
+        );
+        replay.setDescription(
+                messages.getMessage(
+                        Messages.INFO_PARSER_REPLAY_DESCRIPTION
+                )
+        );
+        scale.setDescription(
+                messages.getMessage(
+                        Messages.INFO_PARSER_SCALE_DESCRIPTION
+                )
+        );
+        simulate.setDescription(
+                messages.getMessage(
+                        Messages.INFO_PARSER_SIMULATE_DESCRIPTION
+                )
+        );
+        profile.setDescription(
+                messages.getMessage(
+                        Messages.INFO_PARSER_PROFILE_DESCRIPTION
+                )
+        );
+        trace.setDescription(
+                messages.getMessage(
+                        Messages.INFO_PARSER_TRACE_DESCRIPTION
+                )
+        );
+        metrics.setDescription(
+                messages.getMessage(
+                        Messages.INFO_PARSER_METRICS_DESCRIPTION
+                )
+        );
+        port.setDescription(
+                messages.getMessage(
+                        Messages.INFO_PARSER_METRICS_PORT_DESCRIPTION
+                )
+        );
     }
 
 }
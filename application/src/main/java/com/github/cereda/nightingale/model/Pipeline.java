@@ -0,0 +1,110 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.model;
+
+import com.github.cereda.nightingale.controller.LanguageController;
+import com.github.cereda.nightingale.utils.CommonUtils;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Implements a pipeline model, that is, a list of commands whose standard
+ * output is connected to the standard input of the next one, so no
+ * intermediate files are written in between. All stages run at the same
+ * time, and each one of them has its own exit value.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class Pipeline {
+
+    // the list of commands, one
+    // for each pipeline stage
+    private final List<Command> stages;
+
+    // the application messages obtained from the
+    // language controller
+    private static final LanguageController messages =
+            LanguageController.getInstance();
+
+    /**
+     * Constructor. The values are flattened, and each one of them must be a
+     * command object.
+     * @param values The pipeline stages.
+     * @throws NightingaleException One of the values is not a command, or
+     * there are no values at all.
+     */
+    public Pipeline(Object... values) throws NightingaleException {
+        stages = new ArrayList<Command>();
+        for (Object value : CommonUtils.flatten(Arrays.asList(values))) {
+            if (!CommonUtils.checkClass(Command.class, value)) {
+                throw new NightingaleException(
+                        CommonUtils.getRuleErrorHeader().
+                        concat(messages.getMessage(
+                                Messages.ERROR_PIPELINE_INVALID_STAGE,
+                                String.valueOf(value)
+                        ))
+                );
+            }
+            stages.add((Command) value);
+        }
+        if (stages.isEmpty()) {
+            throw new NightingaleException(
+                    CommonUtils.getRuleErrorHeader().
+                    concat(messages.getMessage(
+                            Messages.ERROR_PIPELINE_EMPTY
+                    ))
+            );
+        }
+    }
+
+    /**
+     * Gets the list of commands, one for each pipeline stage.
+     * @return The list of commands.
+     */
+    public List<Command> getStages() {
+        return stages;
+    }
+
+    /**
+     * Provides a textual representation of the current pipeline.
+     * @return A string representing the current pipeline.
+     */
+    @Override
+    public String toString() {
+        return CommonUtils.getCollectionElements(stages, "", "", " | ");
+    }
+
+}
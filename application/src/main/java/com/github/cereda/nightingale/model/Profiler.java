@@ -0,0 +1,539 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.model;
+
+import com.github.cereda.nightingale.controller.ConfigurationController;
+import com.github.cereda.nightingale.controller.LanguageController;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Implements the build profiler. When enabled, it keeps track of every
+ * activity of the build, that is, the execution phases, the compilation of
+ * each rule, the evaluation of each conditional, and the run and the exit
+ * evaluation of each command, so a detailed report can be displayed and
+ * saved in the end. The critical path is the chain of activities which
+ * determined the build duration, found by walking back from the activity
+ * which finished last, each time to the one which finished last before the
+ * current one started. The activities can also be exported as a trace, in
+ * the Chrome trace event format. Recording is a single flag check when the
+ * profiler is disabled, and the activity names are only built on export.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class Profiler {
+
+    // the activities recorded so far, in the
+    // order they finished
+    private static final List<Activity> activities = new ArrayList<Activity>();
+
+    // whether the profiler is enabled, and the
+    // thread in which the execution started, so
+    // the phases can be attributed to it
+    private static volatile boolean enabled = false;
+    private static Thread main = Thread.currentThread();
+
+    // the listener which records activities
+    // out of build events
+    private static final BuildListener LISTENER = new Listener();
+
+    // the application messages obtained from the
+    // language controller
+    private static final LanguageController messages =
+            LanguageController.getInstance();
+
+    /**
+     * Checks if the profiler is enabled.
+     * @return A boolean value indicating if the profiler is enabled.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables the profiler for the current execution.
+     */
+    public static void enable() {
+        enabled = true;
+        EventBus.subscribe(LISTENER);
+    }
+
+    /**
+     * Resets and disables the profiler. It must be called once the execution
+     * starts. The profiler stops listening to build events as well, so a
+     * previous execution does not keep the event bus active.
+     */
+    public static synchronized void reset() {
+        enabled = false;
+        EventBus.unsubscribe(LISTENER);
+        main = Thread.currentThread();
+        activities.clear();
+    }
+
+    /**
+     * Records an activity, if the profiler is enabled.
+     * @param category The activity category.
+     * @param name The activity name, as an object whose string
+     * representation is only obtained when the profile is displayed or saved.
+     * @param start The moment the activity started, in nano time.
+     * @param end The moment the activity finished, in nano time.
+     */
+    public static void record(String category, Object name, long start,
+            long end) {
+        record(category, name, Thread.currentThread(), start, end);
+    }
+
+    /**
+     * Records an activity which ran in the provided thread, if the profiler
+     * is enabled.
+     * @param category The activity category.
+     * @param name The activity name.
+     * @param thread The thread.
+     * @param start The moment the activity started, in nano time.
+     * @param end The moment the activity finished, in nano time.
+     */
+    private static void record(String category, Object name, Thread thread,
+            long start, long end) {
+        if (enabled) {
+            synchronized (Profiler.class) {
+                activities.add(new Activity(category, name, thread, start,
+                        end));
+            }
+        }
+    }
+
+    /**
+     * Gets all activities, including the execution phases, sorted by
+     * duration, longest first.
+     * @return The list of activities.
+     */
+    public static synchronized List<Activity> getActivities() {
+        List<Activity> result = getTimeline();
+        Collections.sort(result, new Comparator<Activity>() {
+            public int compare(Activity first, Activity second) {
+                return Long.valueOf(second.getDuration()).
+                        compareTo(first.getDuration());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Gets the critical path, that is, the chain of activities which
+     * determined the build duration, in the order they happened.
+     * @return The list of activities in the critical path.
+     */
+    public static synchronized List<Activity> getCriticalPath() {
+        return getCriticalPath(getTimeline());
+    }
+
+    /**
+     * Gets the critical path out of the provided timeline.
+     * @param timeline The timeline, that is, all activities in the order
+     * they started.
+     * @return The list of activities in the critical path.
+     */
+    private static List<Activity> getCriticalPath(List<Activity> timeline) {
+
+        // an activity holding other activities, such
+        // as the interpretation phase or a directive,
+        // is replaced by them
+        List<Activity> candidates = new ArrayList<Activity>();
+        for (Activity activity : timeline) {
+            if (!activity.contains(timeline)) {
+                candidates.add(activity);
+            }
+        }
+        List<Activity> result = new ArrayList<Activity>();
+        long limit = Long.MAX_VALUE;
+        while (true) {
+            Activity last = null;
+            for (Activity activity : candidates) {
+                if ((activity.end <= limit) && ((last == null)
+                        || (activity.end > last.end))) {
+                    last = activity;
+                }
+            }
+            if (last == null) {
+                break;
+            }
+            result.add(0, last);
+            candidates.remove(last);
+            limit = last.start;
+        }
+        return result;
+    }
+
+    /**
+     * Gets the time not covered by the critical path, that is, the gaps in
+     * between its activities, spent in bookkeeping not tracked on its own.
+     * @return The untracked time, in nanoseconds.
+     */
+    public static synchronized long getUntrackedTime() {
+        return getUntrackedTime(getCriticalPath());
+    }
+
+    /**
+     * Gets the time not covered by the provided critical path.
+     * @param path The critical path.
+     * @return The untracked time, in nanoseconds.
+     */
+    private static long getUntrackedTime(List<Activity> path) {
+        if (path.isEmpty()) {
+            return 0;
+        }
+        long result = path.get(path.size() - 1).end - StopWatch.getOrigin();
+        for (Activity activity : path) {
+            result = result - activity.getDuration();
+        }
+        return result;
+    }
+
+    /**
+     * Saves the profile as a JSON file in the working directory, named after
+     * the log file, if requested, and the trace, if requested as well.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public static synchronized void save() throws NightingaleException {
+        if (ConfigurationController.
+                getInstance().
+                contains("execution.profile")) {
+            write(new File((File) ConfigurationController.
+                    getInstance().
+                    get("execution.directory"),
+                    ((String) ConfigurationController.
+                            getInstance().
+                            get("execution.log.name")).
+                            concat(".profile.json")), getProfile());
+        }
+        if (ConfigurationController.
+                getInstance().
+                contains("execution.trace")) {
+            write((File) ConfigurationController.
+                    getInstance().
+                    get("execution.trace"), getTrace());
+        }
+    }
+
+    /**
+     * Gets the profile, that is, all activities in the order they started,
+     * the critical path and the untracked time, as JSON.
+     * @return The profile.
+     */
+    private static String getProfile() {
+        long origin = StopWatch.getOrigin();
+        StringBuilder builder = new StringBuilder();
+        builder.append("{\n  \"activities\": [");
+        List<Activity> timeline = getTimeline();
+        for (int i = 0; i < timeline.size(); i++) {
+            builder.append(i == 0 ? "\n" : ",\n");
+            builder.append("    ").append(timeline.get(i).toJSON(origin));
+        }
+        builder.append("\n  ],\n  \"critical\": [");
+        List<Activity> path = getCriticalPath(timeline);
+        for (int i = 0; i < path.size(); i++) {
+            builder.append(i == 0 ? "\n" : ",\n");
+            builder.append("    ").append(timeline.indexOf(path.get(i)));
+        }
+        builder.append(String.format(Locale.ROOT,
+                "\n  ],\n  \"untracked\": %.3f\n}\n",
+                getUntrackedTime(path) / 1000000.0));
+        return builder.toString();
+    }
+
+    /**
+     * Gets the trace, that is, all activities as complete events in the
+     * Chrome trace event format, so they can be visualized in tools like
+     * Perfetto. The phases have a lane of their own, each thread of the
+     * application has its own lane, and the child processes are shown as a
+     * separate process, in the lane of the thread which spawned them, so
+     * concurrent commands show up side by side.
+     * @return The trace.
+     */
+    private static String getTrace() {
+        long origin = StopWatch.getOrigin();
+        Map<Long, String> threads = new LinkedHashMap<Long, String>();
+        threads.put(0L, "phases");
+        StringBuilder builder = new StringBuilder();
+        builder.append("{\n  \"displayTimeUnit\": \"ms\",\n");
+        builder.append("  \"traceEvents\": [");
+        for (Activity activity : getTimeline()) {
+            boolean phase = activity.category.equals("phase");
+            long identifier = phase ? 0L : activity.thread.getId();
+            if (!threads.containsKey(identifier)) {
+                threads.put(identifier, activity.thread.getName());
+            }
+            builder.append(String.format(Locale.ROOT,
+                    "\n    { \"name\": %s, \"cat\": %s, \"ph\": \"X\", "
+                    + "\"ts\": %.3f, \"dur\": %.3f, \"pid\": %d, "
+                    + "\"tid\": %d },",
+                    Activity.quote(activity.getName()),
+                    Activity.quote(activity.category),
+                    (activity.start - origin) / 1000.0,
+                    (activity.end - activity.start) / 1000.0,
+                    activity.category.equals("command") ? 2 : 1,
+                    identifier));
+        }
+        builder.append(String.format(Locale.ROOT,
+                "\n    { \"name\": \"process_name\", \"ph\": \"M\", "
+                + "\"pid\": 1, \"args\": { \"name\": \"nightingale\" } },"
+                + "\n    { \"name\": \"process_name\", \"ph\": \"M\", "
+                + "\"pid\": 2, \"args\": { \"name\": "
+                + "\"child processes\" } }"));
+        for (Map.Entry<Long, String> entry : threads.entrySet()) {
+            for (int pid = 1; pid <= (entry.getKey() == 0 ? 1 : 2); pid++) {
+                builder.append(String.format(Locale.ROOT,
+                        ",\n    { \"name\": \"thread_name\", \"ph\": \"M\", "
+                        + "\"pid\": %d, \"tid\": %d, "
+                        + "\"args\": { \"name\": %s } }",
+                        pid, entry.getKey(),
+                        Activity.quote(entry.getValue())));
+            }
+        }
+        builder.append("\n  ]\n}\n");
+        return builder.toString();
+    }
+
+    /**
+     * Writes the provided content to the provided file.
+     * @param file The file.
+     * @param content The content.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    private static void write(File file, String content)
+            throws NightingaleException {
+        Writer writer = null;
+        try {
+            writer = new OutputStreamWriter(
+                    new FileOutputStream(file), "UTF-8"
+            );
+            writer.write(content);
+        } catch (IOException ioexception) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_PROFILER_IO_EXCEPTION,
+                            file.getName()
+                    ),
+                    ioexception
+            );
+        } finally {
+            IOUtils.closeQuietly(writer);
+        }
+    }
+
+    /**
+     * Gets all activities, including the execution phases, in the order they
+     * started.
+     * @return The list of activities.
+     */
+    private static List<Activity> getTimeline() {
+        List<Activity> result = new ArrayList<Activity>();
+        long start = StopWatch.getOrigin();
+        for (Map.Entry<String, Long> entry :
+                StopWatch.getPhases().entrySet()) {
+            result.add(new Activity("phase", entry.getKey(), main,
+                    start, start + entry.getValue()));
+            start = start + entry.getValue();
+        }
+        result.addAll(activities);
+        Collections.sort(result, new Comparator<Activity>() {
+            public int compare(Activity first, Activity second) {
+                return Long.valueOf(first.start).compareTo(second.start);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Implements the listener which records directives, conditional
+     * evaluations and commands out of build events.
+     */
+    private static class Listener implements BuildListener {
+
+        /**
+         * Records the activity the provided event finishes, in the thread
+         * which ran it.
+         * @param event The build event.
+         */
+        @Override
+        public void onEvent(BuildEvent event) {
+            if (event instanceof BuildEvent.DirectiveFinished) {
+                BuildEvent.DirectiveFinished finished =
+                        (BuildEvent.DirectiveFinished) event;
+                record("directive", finished.getDirective().getIdentifier(),
+                        event.getThread(), event.getTimestamp()
+                        - finished.getDuration(), event.getTimestamp());
+            } else if (event instanceof BuildEvent.ConditionEvaluated) {
+                BuildEvent.ConditionEvaluated evaluated =
+                        (BuildEvent.ConditionEvaluated) event;
+                record("conditional", evaluated.getConditional().
+                        getCondition().trim(), event.getThread(),
+                        event.getTimestamp() - evaluated.getDuration(),
+                        event.getTimestamp());
+            } else if (event instanceof BuildEvent.CommandFinished) {
+                BuildEvent.CommandFinished finished =
+                        (BuildEvent.CommandFinished) event;
+                record("command", finished.getCommand(), event.getThread(),
+                        event.getTimestamp() - finished.getDuration(),
+                        event.getTimestamp());
+            }
+        }
+
+    }
+
+    /**
+     * Implements a single activity of the build.
+     */
+    public static class Activity {
+
+        // the activity category, name and thread,
+        // and the moments it started and finished
+        private final String category;
+        private final Object name;
+        private final Thread thread;
+        private final long start;
+        private final long end;
+
+        /**
+         * Constructor.
+         * @param category The activity category.
+         * @param name The activity name.
+         * @param thread The thread in which the activity happened.
+         * @param start The moment the activity started, in nano time.
+         * @param end The moment the activity finished, in nano time.
+         */
+        private Activity(String category, Object name, Thread thread,
+                long start, long end) {
+            this.category = category;
+            this.name = name;
+            this.thread = thread;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Gets the activity category.
+         * @return The activity category.
+         */
+        public String getCategory() {
+            return category;
+        }
+
+        /**
+         * Gets the activity name.
+         * @return The activity name.
+         */
+        public String getName() {
+            return String.valueOf(name);
+        }
+
+        /**
+         * Gets the activity duration.
+         * @return The activity duration, in nanoseconds.
+         */
+        public long getDuration() {
+            return end - start;
+        }
+
+        /**
+         * Checks if any other of the provided activities happened during this
+         * activity, in the same thread. Phases hold the activities of every
+         * thread, since the other threads work on behalf of them.
+         * @param activities The list of activities.
+         * @return A boolean value indicating if this activity holds any other
+         * of the activities.
+         */
+        private boolean contains(List<Activity> activities) {
+            for (Activity activity : activities) {
+                if ((activity != this) && (start <= activity.start)
+                        && (activity.end <= end)
+                        && (category.equals("phase")
+                        ? !activity.category.equals("phase")
+                        : activity.thread == thread)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Provides a JSON representation of the activity.
+         * @param origin The moment the execution started, in nano time.
+         * @return The JSON representation, with times in milliseconds.
+         */
+        private String toJSON(long origin) {
+            return String.format(Locale.ROOT,
+                    "{ \"category\": %s, \"name\": %s, \"thread\": %s, "
+                    + "\"start\": %.3f, \"duration\": %.3f }",
+                    quote(category), quote(getName()),
+                    quote(thread.getName()),
+                    (start - origin) / 1000000.0, (end - start) / 1000000.0);
+        }
+
+        /**
+         * Quotes the provided text as a JSON string.
+         * @param text The text.
+         * @return The JSON string.
+         */
+        private static String quote(String text) {
+            StringBuilder builder = new StringBuilder("\"");
+            for (char character : text.toCharArray()) {
+                if ((character == '"') || (character == '\\')) {
+                    builder.append('\\').append(character);
+                } else if (character < ' ') {
+                    builder.append(String.format("\\u%04x", (int) character));
+                } else {
+                    builder.append(character);
+                }
+            }
+            return builder.append('"').toString();
+        }
+
+    }
+
+}
@@ -0,0 +1,154 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.model;
+
+import com.github.cereda.nightingale.controller.ConfigurationController;
+import com.github.cereda.nightingale.controller.LanguageController;
+import com.github.cereda.nightingale.utils.TeeOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.IOUtils;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import org.yaml.snakeyaml.representer.Representer;
+
+/**
+ * Implements a process runner which records every run of another runner,
+ * that is, the command, the working directory, the duration, the output and
+ * the exit code, into a YAML file to be replayed later on. Each run is
+ * appended to the file as a document of its own as soon as it ends, so an
+ * interrupted build still leaves a usable recording behind.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class RecordingRunner implements ProcessRunner {
+
+    // the recording file, the runner which
+    // actually runs the commands, and whether
+    // the file was already started, since a
+    // previous recording is replaced
+    private final File file;
+    private final ProcessRunner runner;
+    private boolean started;
+
+    // the application messages obtained from the
+    // language controller
+    private static final LanguageController messages =
+            LanguageController.getInstance();
+
+    /**
+     * Constructor.
+     * @param file The recording file.
+     * @param runner The runner which actually runs the commands.
+     */
+    public RecordingRunner(File file, ProcessRunner runner) {
+        this.file = file;
+        this.runner = runner;
+        started = false;
+    }
+
+    /**
+     * Runs the provided command through the underlying runner and records
+     * the run.
+     * @param command The command.
+     * @param output The output stream.
+     * @return An integer value representing the exit code.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    @Override
+    public int run(Command command, OutputStream output)
+            throws NightingaleException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        long beginning = System.nanoTime();
+        int exit = runner.run(command, new TeeOutputStream(output, buffer));
+        long duration = System.nanoTime() - beginning;
+
+        Map<String, Object> entry = new LinkedHashMap<String, Object>();
+        entry.put("command", new ArrayList<String>(command.getElements()));
+        entry.put("directory", ((File) ConfigurationController.
+                getInstance().
+                get("execution.directory")).getPath());
+        entry.put("duration", TimeUnit.NANOSECONDS.toMillis(duration));
+        entry.put("exit", exit);
+        entry.put("output", buffer.toString());
+        save(entry);
+        return exit;
+    }
+
+    /**
+     * Appends the provided entry to the recording file, as a YAML document of
+     * its own. Runs might happen at the same time, so entries are appended
+     * one at a time.
+     * @param entry The entry.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    private synchronized void save(Map<String, Object> entry)
+            throws NightingaleException {
+        Writer writer = null;
+        try {
+            writer = new OutputStreamWriter(
+                    new FileOutputStream(file, started), "UTF-8"
+            );
+            started = true;
+            DumperOptions options = new DumperOptions();
+            options.setExplicitStart(true);
+            new Yaml(new SafeConstructor(), new Representer(), options).
+                    dump(entry, writer);
+        } catch (IOException ioexception) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_RECORD_IO_EXCEPTION,
+                            file.getPath()
+                    ),
+                    ioexception
+            );
+        } finally {
+            IOUtils.closeQuietly(writer);
+        }
+    }
+
+}
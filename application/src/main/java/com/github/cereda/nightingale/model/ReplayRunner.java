@@ -0,0 +1,190 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.model;
+
+import com.github.cereda.nightingale.controller.LanguageController;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.io.IOUtils;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import org.yaml.snakeyaml.error.YAMLException;
+
+/**
+ * Implements a process runner which replays a recording, so no process is
+ * spawned at all. Each command takes the first recorded run of the very same
+ * command not replayed yet; its output is written back, and its duration is
+ * waited for, scaled by the provided factor.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class ReplayRunner implements ProcessRunner {
+
+    // the recorded runs not replayed yet, and
+    // the factor applied to their durations
+    private final List<Map<?, ?>> entries;
+    private final double scale;
+
+    // the application messages obtained from the
+    // language controller
+    private static final LanguageController messages =
+            LanguageController.getInstance();
+
+    /**
+     * Constructor.
+     * @param file The recording file.
+     * @param scale The factor applied to the recorded durations; zero means
+     * no waiting at all.
+     * @throws NightingaleException The recording could not be read.
+     */
+    public ReplayRunner(File file, double scale) throws NightingaleException {
+        this.scale = scale;
+        entries = new ArrayList<Map<?, ?>>();
+        InputStream stream = null;
+        try {
+            stream = new FileInputStream(file);
+
+            // each recorded run is a document of its own
+            for (Object entry : new Yaml(new SafeConstructor()).
+                    loadAll(stream)) {
+                if (!(entry instanceof Map)
+                        || !(((Map<?, ?>) entry).get("command") instanceof List)
+                        || !(((Map<?, ?>) entry).get("exit") instanceof Integer)) {
+                    throw new NightingaleException(
+                            messages.getMessage(
+                                    Messages.ERROR_REPLAY_INVALID_RECORDING,
+                                    file.getPath()
+                            )
+                    );
+                }
+                entries.add((Map<?, ?>) entry);
+            }
+        } catch (YAMLException yexception) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_REPLAY_INVALID_RECORDING,
+                            file.getPath()
+                    ),
+                    yexception
+            );
+        } catch (IOException ioexception) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_REPLAY_IO_EXCEPTION,
+                            file.getPath()
+                    ),
+                    ioexception
+            );
+        } finally {
+            IOUtils.closeQuietly(stream);
+        }
+    }
+
+    /**
+     * Replays the first recorded run of the provided command.
+     * @param command The command.
+     * @param output The output stream.
+     * @return An integer value representing the recorded exit code.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    @Override
+    public int run(Command command, OutputStream output)
+            throws NightingaleException {
+        Map<?, ?> entry = take(command);
+        try {
+            Object duration = entry.get("duration");
+            if ((scale > 0) && (duration instanceof Number)) {
+                Thread.sleep((long) (((Number) duration).longValue() * scale));
+            }
+            Object text = entry.get("output");
+            if (text != null) {
+                output.write(String.valueOf(text).getBytes());
+                output.flush();
+            }
+            return (Integer) entry.get("exit");
+        } catch (IOException ioexception) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_RUN_IO_EXCEPTION
+                    ),
+                    ioexception
+            );
+        } catch (InterruptedException iexception) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_RUN_INTERRUPTED_EXCEPTION
+                    ),
+                    iexception
+            );
+        }
+    }
+
+    /**
+     * Takes the first recorded run of the provided command out of the
+     * recording. Runs might happen at the same time, so they are taken one
+     * at a time.
+     * @param command The command.
+     * @return The recorded run.
+     * @throws NightingaleException The command was never recorded, or all
+     * its recorded runs were already replayed.
+     */
+    private synchronized Map<?, ?> take(Command command)
+            throws NightingaleException {
+        for (int i = 0; i < entries.size(); i++) {
+            List<?> elements = (List<?>) entries.get(i).get("command");
+            List<String> recorded = new ArrayList<String>();
+            for (Object element : elements) {
+                recorded.add(String.valueOf(element));
+            }
+            if (recorded.equals(command.getElements())) {
+                return entries.remove(i);
+            }
+        }
+        throw new NightingaleException(
+                messages.getMessage(
+                        Messages.ERROR_REPLAY_COMMAND_NOT_FOUND,
+                        command
+                )
+        );
+    }
+
+}
@@ -0,0 +1,95 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.model;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Defines the rule contract, that is, the rule header and its commands. Rule
+ * scripts are adapted to this contract after their 'rule' and 'commands'
+ * variables are checked, while typed rules implement it directly, so their
+ * header and commands are checked by the compiler instead.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public interface Rule {
+
+    /**
+     * Gets the rule identifier, which must match the rule file name.
+     * @return The rule identifier.
+     */
+    String getIdentifier();
+
+    /**
+     * Gets the rule name.
+     * @return The rule name.
+     */
+    String getName();
+
+    /**
+     * Gets the rule description.
+     * @return The rule description.
+     */
+    String getDescription();
+
+    /**
+     * Gets the list of arguments accepted by the rule, not including the
+     * reserved keywords.
+     * @return The list of arguments.
+     */
+    List<String> getArguments();
+
+    /**
+     * Gets the list of authors.
+     * @return The list of authors.
+     */
+    List<String> getAuthors();
+
+    /**
+     * Gets the minimum application version required by the rule.
+     * @return The minimum application version.
+     */
+    BigDecimal getRequires();
+
+    /**
+     * Gets the list of rule commands.
+     * @return The list of rule commands.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    List<RuleCommand> getCommands() throws NightingaleException;
+
+}
@@ -0,0 +1,204 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.model;
+
+import com.github.cereda.nightingale.controller.LanguageController;
+import com.github.cereda.nightingale.utils.CommonUtils;
+import com.github.cereda.nightingale.utils.InterpreterUtils;
+import groovy.lang.Closure;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Adapts a rule script to the rule contract. The 'rule' variable must be
+ * checked before, while the 'commands' variable is checked when the commands
+ * are requested, keeping the order in which errors are reported.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class ScriptRule implements Rule {
+
+    // the 'rule' and 'commands' variables
+    // defined in the rule script
+    private final Map header;
+    private final Object commands;
+
+    // the application messages obtained from the
+    // language controller
+    private static final LanguageController messages =
+            LanguageController.getInstance();
+
+    /**
+     * Constructor.
+     * @param header The rule header map, already checked.
+     * @param commands The rule commands, not checked yet.
+     */
+    public ScriptRule(Object header, Object commands) {
+        this.header = (Map) header;
+        this.commands = commands;
+    }
+
+    /**
+     * Gets the rule identifier from the rule header map.
+     * @return The rule identifier.
+     */
+    @Override
+    public String getIdentifier() {
+        return (String) header.get("id");
+    }
+
+    /**
+     * Gets the rule name from the rule header map.
+     * @return The rule name.
+     */
+    @Override
+    public String getName() {
+        return (String) header.get("name");
+    }
+
+    /**
+     * Gets the rule description from the rule header map.
+     * @return The rule description.
+     */
+    @Override
+    public String getDescription() {
+        return (String) header.get("description");
+    }
+
+    /**
+     * Gets the list of arguments from the rule header map.
+     * @return The list of arguments.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<String> getArguments() {
+        return (List<String>) header.get("arguments");
+    }
+
+    /**
+     * Gets the list of authors from the rule header map.
+     * @return The list of authors.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<String> getAuthors() {
+        return (List<String>) header.get("authors");
+    }
+
+    /**
+     * Gets the minimum application version from the rule header map.
+     * @return The minimum application version.
+     */
+    @Override
+    public BigDecimal getRequires() {
+        return (BigDecimal) header.get("requires");
+    }
+
+    /**
+     * Checks the rule commands and adapts each one of them.
+     * @return The list of rule commands.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    @Override
+    public List<RuleCommand> getCommands() throws NightingaleException {
+        InterpreterUtils.checkCommands(commands);
+        List<RuleCommand> result = new ArrayList<RuleCommand>();
+        for (Object command : (List) commands) {
+            result.add(new ScriptCommand((Map) command));
+        }
+        return result;
+    }
+
+    /**
+     * Adapts an element of the 'commands' variable, already checked, to the
+     * rule command contract.
+     */
+    private static class ScriptCommand implements RuleCommand {
+
+        // the 'commands' element
+        private final Map command;
+
+        /**
+         * Constructor.
+         * @param command The 'commands' element.
+         */
+        ScriptCommand(Map command) {
+            this.command = command;
+        }
+
+        /**
+         * Gets the command name.
+         * @return The command name.
+         */
+        @Override
+        public String getName() {
+            return (String) command.get("name");
+        }
+
+        /**
+         * Calls the command closure.
+         * @return The closure result.
+         */
+        @Override
+        public Object execute() {
+            return ((Closure) command.get("command")).call();
+        }
+
+        /**
+         * Calls the exit closure with the provided exit value.
+         * @param value The exit value.
+         * @return A boolean value indicating if the exit value is successful.
+         * @throws NightingaleException Something wrong happened, to be caught in
+         * the higher levels.
+         */
+        @Override
+        public boolean exit(int value) throws NightingaleException {
+            Object check = ((Closure) command.get("exit")).call(value);
+            if (CommonUtils.checkClass(Boolean.class, check)) {
+                return (Boolean) check;
+            } else {
+                throw new NightingaleException(
+                        messages.getMessage(
+                                Messages.ERROR_INTERPRETER_WRONG_EXIT_CLOSURE_RETURN
+                        )
+                );
+            }
+        }
+    }
+
+}
@@ -0,0 +1,255 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.model;
+
+import com.github.cereda.nightingale.controller.ConfigurationController;
+import com.github.cereda.nightingale.controller.LanguageController;
+import com.github.cereda.nightingale.utils.CommonUtils;
+import com.github.cereda.nightingale.utils.DirectiveUtils;
+import com.github.cereda.nightingale.utils.DisplayUtils;
+import com.github.cereda.nightingale.utils.HistoryUtils;
+import com.github.cereda.nightingale.utils.SchedulingUtils;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Implements the build simulation. Nothing is run at all: the directives of
+ * each document are extracted, their durations are taken from the build
+ * history, and the batch mode is simulated for several numbers of jobs and
+ * scheduling policies. The directives of a document depend on each other,
+ * since they run in order, while documents are independent, so the longest
+ * document is the critical path of the whole batch.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class Simulation {
+
+    // the application messages obtained from the
+    // language controller
+    private static final LanguageController messages =
+            LanguageController.getInstance();
+
+    /**
+     * Runs the simulation and displays the report.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public void run() throws NightingaleException {
+        Batch batch = new Batch();
+        @SuppressWarnings("unchecked")
+        List<String> references = batch.expand((List<String>)
+                ConfigurationController.
+                        getInstance().
+                        get("execution.batch"));
+        long jobs = (Long) ConfigurationController.
+                getInstance().
+                get("execution.jobs");
+
+        // each document is a chain of directives, so
+        // its duration is the sum of their durations;
+        // directives without history count as zero
+        List<Long> durations = new ArrayList<Long>();
+        Map<Integer, Long> estimates = new HashMap<Integer, Long>();
+        List<Integer> indices = new ArrayList<Integer>();
+        List<String> path = new ArrayList<String>();
+        int directives = 0;
+        int unknown = 0;
+        long total = 0;
+        int critical = 0;
+        for (int i = 0; i < references.size(); i++) {
+            List<String> identifiers = new ArrayList<String>();
+            List<Long> values = new ArrayList<Long>();
+            analyze(references.get(i), identifiers, values);
+            long duration = 0;
+            for (Long value : values) {
+                if (value == null) {
+                    unknown++;
+                } else {
+                    duration = duration + value;
+                }
+            }
+            directives = directives + values.size();
+            total = total + duration;
+            durations.add(duration);
+            estimates.put(i, duration);
+            indices.add(i);
+            if ((i == 0) || (duration > durations.get(critical))) {
+                critical = i;
+                path = identifiers;
+            }
+        }
+
+        DisplayUtils.wrapText(
+                messages.getMessage(
+                        Messages.INFO_SIMULATION_SUMMARY,
+                        references.size(),
+                        directives,
+                        format(total)
+                )
+        );
+        if (!references.isEmpty()) {
+            DisplayUtils.wrapText(
+                    messages.getMessage(
+                            Messages.INFO_SIMULATION_CRITICAL_PATH,
+                            format(durations.get(critical)),
+                            references.get(critical),
+                            CommonUtils.getCollectionElements(
+                                    path, "", "", " > ")
+                    )
+            );
+        }
+        if (unknown > 0) {
+            DisplayUtils.wrapText(
+                    messages.getMessage(
+                            Messages.INFO_SIMULATION_NO_HISTORY,
+                            unknown
+                    )
+            );
+        }
+
+        // the number of jobs goes in powers of two up
+        // to the number of documents, since more jobs
+        // than documents are just idle; the configured
+        // number of jobs is always part of the report
+        TreeSet<Long> configurations = new TreeSet<Long>();
+        for (long value = 1; value < references.size(); value = value * 2) {
+            configurations.add(value);
+        }
+        configurations.add((long) Math.max(1, references.size()));
+        configurations.add(jobs);
+
+        List<Long> longest = new ArrayList<Long>();
+        for (Integer index : SchedulingUtils.order(indices, estimates)) {
+            longest.add(durations.get(index));
+        }
+
+        int width = (Integer) ConfigurationController.
+                getInstance().
+                get("application.width");
+        System.out.println(DisplayUtils.displaySeparator());
+        for (Long value : configurations) {
+            display(width, value, Messages.INFO_SIMULATION_POLICY_ORDER,
+                    SchedulingUtils.schedule(durations, value.intValue()),
+                    total);
+            display(width, value, Messages.INFO_SIMULATION_POLICY_LONGEST,
+                    SchedulingUtils.schedule(longest, value.intValue()),
+                    total);
+        }
+        System.out.println(DisplayUtils.displaySeparator());
+    }
+
+    /**
+     * Extracts the directives of the provided document, in an isolated
+     * context, and gets their durations from the build history.
+     * @param reference The document reference.
+     * @param identifiers The list to which the directive identifiers are
+     * added, in order.
+     * @param values The list to which the directive durations are added, in
+     * milliseconds, or null when there is no history.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    private void analyze(String reference, List<String> identifiers,
+            List<Long> values) throws NightingaleException {
+        File file;
+        List<Directive> directives;
+        ConfigurationController.getInstance().isolate();
+        try {
+            CommonUtils.discoverFile(reference);
+            file = (File) ConfigurationController.
+                    getInstance().
+                    get("execution.reference");
+            directives = DirectiveUtils.validate(new Extractor().extract());
+        } finally {
+            ConfigurationController.getInstance().release();
+        }
+        Map<String, Integer> occurrences = new HashMap<String, Integer>();
+        for (Directive directive : directives) {
+            Integer occurrence = occurrences.get(directive.getIdentifier());
+            occurrence = occurrence == null ? 1 : occurrence + 1;
+            occurrences.put(directive.getIdentifier(), occurrence);
+            identifiers.add(directive.getIdentifier());
+            values.add(HistoryUtils.get(HistoryUtils.getKey(file,
+                    directive.getIdentifier(), occurrence)));
+        }
+    }
+
+    /**
+     * Displays the result of a simulated configuration.
+     * @param width The display width.
+     * @param jobs The number of jobs.
+     * @param policy The scheduling policy.
+     * @param makespan The simulated makespan, in milliseconds.
+     * @param total The total work, in milliseconds.
+     */
+    private void display(int width, long jobs, Messages policy,
+            long makespan, long total) {
+        long utilization = makespan == 0 ? 0
+                : Math.round(100.0 * total / (jobs * makespan));
+        String name = messages.getMessage(
+                Messages.INFO_SIMULATION_CONFIGURATION,
+                jobs,
+                messages.getMessage(policy)
+        ).concat(" ");
+        String tail = " ".concat(messages.getMessage(
+                Messages.INFO_SIMULATION_RESULT,
+                format(makespan),
+                utilization
+        ));
+        System.out.println(
+                StringUtils.rightPad(
+                        name,
+                        width - tail.length(),
+                        "."
+                ).concat(tail)
+        );
+    }
+
+    /**
+     * Formats the provided duration, in milliseconds, as seconds.
+     * @param duration The duration, in milliseconds.
+     * @return The formatted duration.
+     */
+    private String format(long duration) {
+        return StopWatch.format(TimeUnit.MILLISECONDS.toNanos(duration));
+    }
+
+}
@@ -34,9 +34,16 @@
 package com.github.cereda.nightingale.model;
 
 import com.github.cereda.nightingale.controller.ConfigurationController;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
- * Implements a stopwatch.
+ * Implements a stopwatch. Besides the elapsed time of the build, it keeps
+ * track of the execution phases, so the time spent in each one of them can be
+ * displayed as well. The stopwatch belongs to the whole execution, so threads
+ * building one of several concurrent documents (i.e, with isolated settings)
+ * do not touch it.
  * @author Paulo Roberto Massa Cereda
  * @version 1.0
  * @since 1.0
@@ -55,10 +62,22 @@ public class StopWatch {
     // not enabled
     private static boolean enabled = false;
 
+    // the execution phases, in the order they
+    // were reached, and the moment the current
+    // execution started, both in nano time and
+    // in wall clock time
+    private static final Map<String, Long> phases =
+            new LinkedHashMap<String, Long>();
+    private static long origin = System.nanoTime();
+    private static long wall = System.currentTimeMillis();
+
     /**
      * Starts the stopwatch.
      */
     public static void start() {
+        if (ConfigurationController.getInstance().isIsolated()) {
+            return;
+        }
         beginning = System.nanoTime();
         enabled = true;
     }
@@ -75,18 +94,82 @@ public class StopWatch {
      * @return A string representation of the elapsed time.
      */
     public static String getTime() {
+        return format(enabled ? end - beginning : 0);
+    }
+
+    /**
+     * Gets the string representation of the provided time, in seconds.
+     * @param time The time, in nanoseconds.
+     * @return A string representation of the provided time.
+     */
+    public static String format(long time) {
         Language language =
                 (Language) ConfigurationController.
                         getInstance().
                         get("execution.language");
-        double result = enabled ?
-                (double) (end - beginning) / 1000000000
-                : 0.0;
         return String.format(
                 language.getLocale(),
                 "%1.2f",
-                result
+                (double) time / 1000000000
         );
     }
 
+    /**
+     * Resets the execution phases. It must be called once the execution
+     * starts.
+     */
+    public static synchronized void reset() {
+        phases.clear();
+        origin = System.nanoTime();
+        wall = System.currentTimeMillis();
+    }
+
+    /**
+     * Marks the end of the provided execution phase. Only the first mark of
+     * each phase is kept, so phases like the first command are marked once.
+     * @param phase The execution phase.
+     */
+    public static synchronized void mark(String phase) {
+        if (ConfigurationController.getInstance().isIsolated()) {
+            return;
+        }
+        if (!phases.containsKey(phase)) {
+            phases.put(phase, System.nanoTime());
+        }
+    }
+
+    /**
+     * Gets the time spent in each execution phase, that is, the time elapsed
+     * since the previous phase.
+     * @return A map of execution phases and their corresponding times, in
+     * nanoseconds, in the order they were reached.
+     */
+    public static synchronized Map<String, Long> getPhases() {
+        Map<String, Long> result = new LinkedHashMap<String, Long>();
+        long previous = origin;
+        for (Map.Entry<String, Long> entry : phases.entrySet()) {
+            result.put(entry.getKey(), entry.getValue() - previous);
+            previous = entry.getValue();
+        }
+        return result;
+    }
+
+    /**
+     * Gets the moment the current execution started.
+     * @return The moment the current execution started, in nano time.
+     */
+    public static synchronized long getOrigin() {
+        return origin;
+    }
+
+    /**
+     * Gets the time spent by the virtual machine before the current execution
+     * started, that is, the virtual machine startup.
+     * @return The startup time, in nanoseconds.
+     */
+    public static synchronized long getStartupTime() {
+        long start = ManagementFactory.getRuntimeMXBean().getStartTime();
+        return Math.max(0, wall - start) * 1000000;
+    }
+
 }
@@ -0,0 +1,161 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.model;
+
+import com.github.cereda.nightingale.controller.ConfigurationController;
+import com.github.cereda.nightingale.controller.LanguageController;
+import com.github.cereda.nightingale.controller.ProcessController;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.zeroturnaround.exec.InvalidExitValueException;
+import org.zeroturnaround.exec.ProcessExecutor;
+import org.zeroturnaround.exec.listener.ShutdownHookProcessDestroyer;
+
+/**
+ * Implements the default process runner, which spawns actual processes in
+ * the underlying operating system.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class SystemRunner implements ProcessRunner {
+
+    // the application messages obtained from the
+    // language controller
+    private static final LanguageController messages =
+            LanguageController.getInstance();
+
+    /**
+     * Runs the provided command in the underlying operating system. In
+     * verbose mode, the standard input is available to the process as well,
+     * unless several documents are being built at once.
+     * @param command The command.
+     * @param output The output stream.
+     * @return An integer value representing the exit code.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    @Override
+    public int run(Command command, OutputStream output)
+            throws NightingaleException {
+        boolean verbose = (Boolean) ConfigurationController.
+                getInstance().
+                get("execution.verbose");
+        boolean timeout = (Boolean) ConfigurationController.
+                getInstance().
+                get("execution.timeout");
+        long value = (Long) ConfigurationController.
+                getInstance().
+                get("execution.timeout.value");
+        TimeUnit unit = (TimeUnit) ConfigurationController.
+                getInstance().
+                get("execution.timeout.unit");
+        File directory = (File) ConfigurationController.
+                getInstance().
+                get("execution.directory");
+        @SuppressWarnings("unchecked")
+        Map<String, String> environment = (Map<String, String>)
+                ConfigurationController.
+                getInstance().
+                get("execution.environment");
+
+        ProcessExecutor executor = new ProcessExecutor().
+                command(command.getElements());
+        executor = executor.directory(directory).environment(environment);
+        if (timeout) {
+            if (value == 0) {
+                throw new NightingaleException(
+                        messages.getMessage(
+                                Messages.ERROR_RUN_TIMEOUT_INVALID_RANGE
+                        )
+                );
+            }
+            executor = executor.timeout(value, unit);
+        }
+        if (verbose && !ConfigurationController.
+                getInstance().
+                contains("execution.batch")) {
+            executor = executor.redirectInput(System.in);
+        }
+        executor = executor.redirectOutput(output).redirectError(output);
+
+        executor = executor.
+                addDestroyer(ShutdownHookProcessDestroyer.INSTANCE).
+                addDestroyer(ProcessController.getInstance());
+
+        try {
+            return executor.execute().getExitValue();
+        } catch (IOException ioexception) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_RUN_IO_EXCEPTION
+                    ),
+                    ioexception
+            );
+        } catch (InterruptedException iexception) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_RUN_INTERRUPTED_EXCEPTION
+                    ),
+                    iexception
+            );
+        } catch (InvalidExitValueException ievexception) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_RUN_INVALID_EXIT_VALUE_EXCEPTION
+                    ),
+                    ievexception
+            );
+        } catch (TimeoutException texception) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_RUN_TIMEOUT_EXCEPTION
+                    ),
+                    texception
+            );
+        } catch (Exception exception) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_RUN_GENERIC_EXCEPTION
+                    ),
+                    exception
+            );
+        }
+    }
+
+}
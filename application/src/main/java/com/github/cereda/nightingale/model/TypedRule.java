@@ -0,0 +1,678 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.model;
+
+import com.github.cereda.nightingale.controller.ConfigurationController;
+import com.github.cereda.nightingale.utils.CommonUtils;
+import com.github.cereda.nightingale.utils.RuleUtils;
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Implements the base class for typed rules. A typed rule is a class which
+ * implements the rule contract, instead of a script defining the 'rule' and
+ * 'commands' variables; since the header and the commands are typed, they are
+ * checked by the compiler, and typed rules written in Groovy are statically
+ * compiled. This class offers the same helper methods available to rule
+ * scripts, reading the very same rule parameters.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public abstract class TypedRule implements Rule {
+
+    // the file reference, not necessarily the current file
+    // being processed; this file represents the main file
+    // from which the directives were extracted (the main
+    // file provided in the command line)
+    private final File reference;
+    
+    // the session object which holds the session map
+    // in order to provide data exchange for rules
+    private final Session session;
+
+    /**
+     * Constructor. It sets the file reference obtained from the configuration
+     * controller and creates a new session.
+     */
+    public TypedRule() {
+        reference = (File) ConfigurationController.
+                getInstance().
+                get("execution.reference");
+        session = new Session();
+    }
+
+    /**
+     * Gets the file reference.
+     * @return A file representing the main file provided to nightingale.
+     */
+    public File reference() {
+        return reference;
+    }
+
+    /**
+     * Creates a new rule command whose system commands are successful when
+     * they return a zero exit value.
+     * @param name The command name.
+     * @param command The command body, returning a command, a string, a
+     * boolean value, a trigger, a pipeline, a built-in command, a group of
+     * independent or coalesced commands or a list of them.
+     * @return A new rule command.
+     */
+    public RuleCommand command(String name, Callable<Object> command) {
+        return command(name, command, true);
+    }
+
+    /**
+     * Creates a new rule command.
+     * @param name The command name.
+     * @param command The command body, returning a command, a string, a
+     * boolean value, a trigger, a pipeline, a built-in command, a group of
+     * independent or coalesced commands or a list of them.
+     * @param strict A boolean value indicating if system commands are only
+     * successful when they return a zero exit value; otherwise, any exit
+     * value is considered successful.
+     * @return A new rule command.
+     */
+    public RuleCommand command(final String name,
+            final Callable<Object> command, final boolean strict) {
+        return new RuleCommand() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public Object execute() throws Exception {
+                return command.call();
+            }
+
+            @Override
+            public boolean exit(int value) {
+                return !strict || (value == 0);
+            }
+        };
+    }
+
+    /**
+     * Checks if every key in the array of strings is available in the
+     * parameters map.
+     * @param keys Array of strings containing the keys to be analyzed.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public void required(String... keys) throws NightingaleException {
+        RuleUtils.required(RuleUtils.getParameters(), keys);
+    }
+
+    /**
+     * Checks if the provided key is defined.
+     * @param key The key.
+     * @return A boolean value indicating if the key is defined.
+     */
+    public boolean defined(String key) {
+        return RuleUtils.getParameters().containsKey(key);
+    }
+
+    /**
+     * Checks if the provided key is not defined.
+     * @param key The key.
+     * @return A boolean value indicating if the key is not defined.
+     */
+    public boolean undefined(String key) {
+        return !defined(key);
+    }
+
+    /**
+     * Ensures that, if not defined, the key will hold at least the provided
+     * object value.
+     * @param key The key.
+     * @param value The object value.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public void ensure(String key, Object value) throws NightingaleException {
+        RuleUtils.ensure(RuleUtils.getParameters(), key, value);
+    }
+
+    /**
+     * Ensure that, if not defined, the list of keys will hold at least their
+     * corresponding object values.
+     * @param keys The list of keys.
+     * @param values The list of object values.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public void ensure(List<String> keys, List<Object> values)
+            throws NightingaleException {
+        RuleUtils.ensure(RuleUtils.getParameters(), keys, values);
+    }
+
+    /**
+     * Obtains the object value indexed by the provided key.
+     * @param key The key.
+     * @return The object value indexed by the provided key.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public Object obtain(String key) throws NightingaleException {
+        return RuleUtils.obtain(RuleUtils.getParameters(), key);
+    }
+
+    /**
+     * Obtains the object indexed by the provided key or the default value if
+     * the key is undefined.
+     * @param key The key.
+     * @param value The default value if the key is undefined.
+     * @return The object indexed by the provided key or the default value if
+     * the key is undefined.
+     */
+    public Object obtain(String key, Object value) {
+        return (undefined(key) ? value : RuleUtils.getParameters().get(key));
+    }
+
+    /**
+     * Check if the provided key holds the provided boolean value.
+     * @param expected The provided boolean value.
+     * @param key The provided key.
+     * @return A boolean value indicating if the key holds the provided boolean
+     * value.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public boolean check(boolean expected, String key)
+            throws NightingaleException {
+        return RuleUtils.check(RuleUtils.getParameters(), expected, key);
+    }
+
+    /**
+     * Returns an object if the provided key holds the provided boolean value.
+     * @param expected Boolean value.
+     * @param key The key.
+     * @param value The object.
+     * @return The object if the provided key holds the provided boolean value,
+     * or an empty string otherwise.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public Object check(boolean expected, String key, Object value)
+            throws NightingaleException {
+        return (check(expected, key) ? value : "");
+    }
+
+    /**
+     * Returns an object according to the evaluation of the provided key against
+     * the provided boolean value.
+     * @param expected The boolean value.
+     * @param key The key.
+     * @param value1 An object in case the evaluation holds.
+     * @param value2 An object in case the evaluation does not hold.
+     * @return An object according to the evaluation of the provided key against
+     * the provided boolean value.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public Object check(boolean expected, String key,
+            Object value1, Object value2) throws NightingaleException {
+        return (check(expected, key) ? value1 : value2);
+    }
+
+    /**
+     * Evaluates the conditional expression and returns an object value if the
+     * evaluation holds true, or an empty string otherwise.
+     * @param operation A boolean expression.
+     * @param value The object value to be returned if the provided expression
+     * evaluation holds true.
+     * @return An object, result of the expression evaluation.
+     */
+    public Object conditional(boolean operation, Object value) {
+        return (operation ? value : "");
+    }
+
+    /**
+     * Evaluates the conditional expression and returns an object according to
+     * the result.
+     * @param operation A boolean expression.
+     * @param value1 An object value to be returned if the provided expression
+     * holds true.
+     * @param value2 An object value to be returned if the provided expression
+     * holds false.
+     * @return An object, result of the expression evaluation.
+     */
+    public Object conditional(boolean operation,
+            Object value1, Object value2) {
+        return (operation ? value1 : value2);
+    }
+
+    /**
+     * Checks if a file exists based on the provided file extension. The file
+     * name is obtained from the current file (might not be the reference file)
+     * and the provided extension.
+     * @param extension The file extension.
+     * @return A boolean value indicating if the file exists.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public boolean exists(String extension) throws NightingaleException {
+        return CommonUtils.exists(extension);
+    }
+
+    /**
+     * Checks if a file is missing based on the provided file extension. The
+     * file name is obtained from the current file (might not be the reference
+     * file) and the provided extension.
+     * @param extension The file extension.
+     * @return A boolean value indicating if the file is missing.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public boolean missing(String extension) throws NightingaleException {
+        return !exists(extension);
+    }
+
+    /**
+     * Checks if a file has changed from the last run based on the provided file
+     * extension. The file name is obtained from the current file (might not be
+     * the reference file) and the provided extension.
+     * @param extension The file extension.
+     * @return A boolean value indicating if the file has changed from the last
+     * run.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public boolean changed(String extension) throws NightingaleException {
+        return CommonUtils.hasChanged(extension);
+    }
+
+    /**
+     * Checks if a file has not changed from the last run based on the provided
+     * file extension. The file name is obtained from the current file (might
+     * not be the reference file) and the provided extension.
+     * @param extension The file extension.
+     * @return A boolean value indicating if the file has not changed from the
+     * last run.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public boolean unchanged(String extension) throws NightingaleException {
+        return !changed(extension);
+    }
+
+    /**
+     * Checks if the provided file exists.
+     * @param filename The file.
+     * @return A boolean value indicating if the provided file exists.
+     */
+    public boolean exists(File filename) {
+        return CommonUtils.exists(filename);
+    }
+
+    /**
+     * Checks if the provided file is missing.
+     * @param filename The file.
+     * @return A boolean value indicating if the provided file is missing.
+     */
+    public boolean missing(File filename) {
+        return !exists(filename);
+    }
+
+    /**
+     * Checks if a file has changed from the last run based on the provided
+     * file.
+     * @param filename The file.
+     * @return A boolean value indicating if the file has changed from the last
+     * run.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public boolean changed(File filename) throws NightingaleException {
+        return CommonUtils.hasChanged(filename);
+    }
+
+    /**
+     * Checks if a file has not changed from the last run based on the provided
+     * file.
+     * @param filename The file.
+     * @return A boolean value indicating if the file has not changed from the
+     * last run.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public boolean unchanged(File filename) throws NightingaleException {
+        return !changed(filename);
+    }
+
+    /**
+     * Returns a file based on the provided string.
+     * @param filename The provided string.
+     * @return A file obtained from the provided string.
+     */
+    public File file(String filename) {
+        return new File(filename);
+    }
+
+    /**
+     * Gets the file name based on the provided file.
+     * @param file The file.
+     * @return A string representation containing the file name based on the
+     * provided file.
+     */
+    public String filename(File file) {
+        return file.getName();
+    }
+
+    /**
+     * Builds a string with all objects separated by a space. Empty objects are
+     * not considered.
+     * @param objects An array of objects.
+     * @return A string with all objects separated by a space.
+     */
+    public String build(Object... objects) {
+        return CommonUtils.generateString(objects);
+    }
+
+    /**
+     * Encloses the object in double quotes.
+     * @param object The object.
+     * @return A string representation of the object enclosed in double quotes.
+     */
+    public String quote(Object object) {
+        return CommonUtils.addQuotes(object);
+    }
+
+    /**
+     * Returns the basename of the provided file.
+     * @param file The provided file.
+     * @return A string representing the base name of the provided file.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public String basename(File file) throws NightingaleException {
+        return RuleUtils.basename(file);
+    }
+
+    /**
+     * Returns the base name of the provided string representing a file.
+     * @param file A string representing a file.
+     * @return A string representing the base name of the provided string
+     * representing a file.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public String basename(String file) throws NightingaleException {
+        return basename(new File(file));
+    }
+
+    /**
+     * Obtains the file type of the provided file.
+     * @param file The file.
+     * @return A string representing the file type of the provided file.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public String filetype(File file) throws NightingaleException {
+        return RuleUtils.filetype(file);
+    }
+
+    /**
+     * Obtains the file type of the provided string representing a file.
+     * @param file The string representing a file.
+     * @return A string representing the file type of the provided file.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public String filetype(String file) throws NightingaleException {
+        return filetype(new File(file));
+    }
+
+    /**
+     * Checks if the provided string is empty.
+     * @param value The provided string.
+     * @return A boolean value indicating if the provided string is empty.
+     */
+    public boolean empty(String value) {
+        return CommonUtils.checkEmptyString(value);
+    }
+
+    /**
+     * Replicates the string pattern for every value in the list of objects.
+     * @param pattern The string pattern to be replicated.
+     * @param values The list of objects contained the value to be used in the
+     * string pattern.
+     * @return A list of objects containing the values merged to the pattern.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public List<Object> replicate(String pattern, List<Object> values)
+            throws NightingaleException {
+        return CommonUtils.replicateList(pattern, values);
+    }
+
+    /**
+     * Checks if a file contains the provided regex based on the provided file
+     * extension. The file name is obtained from the current file (might
+     * not be the reference file) and the provided extension.
+     * @param extension A string representing the file extension.
+     * @param regex The regex.
+     * @return A boolean value indicating if the regex was found.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public boolean contains(String extension, String regex)
+            throws NightingaleException {
+        return CommonUtils.checkRegex(extension, regex);
+    }
+
+    /**
+     * Checks if a file contains the provided regex based on the provided file.
+     * The file name is obtained from the current file (might not be the
+     * reference file) and the provided extension.
+     * @param file The file.
+     * @param regex The regex.
+     * @return A boolean value indicating if the regex was found.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public boolean contains(File file, String regex)
+            throws NightingaleException {
+        return CommonUtils.checkRegex(file, regex);
+    }
+
+    /**
+     * Creates a built-in command which deletes the provided files, and
+     * directories recursively. Missing files are not an error.
+     * @param files The files to be deleted.
+     * @return The built-in command.
+     * @throws NightingaleException There are no files.
+     */
+    public Builtin delete(Object... files) throws NightingaleException {
+        return new Builtin("delete", files);
+    }
+
+    /**
+     * Creates a built-in command which copies the provided files. The last
+     * file is the target, either a file or an existing directory.
+     * @param files The source files, followed by the target.
+     * @return The built-in command.
+     * @throws NightingaleException There are not enough files.
+     */
+    public Builtin copy(Object... files) throws NightingaleException {
+        return new Builtin("copy", files);
+    }
+
+    /**
+     * Creates a built-in command which moves the provided files. The last
+     * file is the target, either a file or an existing directory.
+     * @param files The source files, followed by the target.
+     * @return The built-in command.
+     * @throws NightingaleException There are not enough files.
+     */
+    public Builtin move(Object... files) throws NightingaleException {
+        return new Builtin("move", files);
+    }
+
+    /**
+     * Creates a built-in command which creates the provided directories,
+     * including any missing parent directories.
+     * @param directories The directories to be created.
+     * @return The built-in command.
+     * @throws NightingaleException There are no directories.
+     */
+    public Builtin mkdir(Object... directories) throws NightingaleException {
+        return new Builtin("mkdir", directories);
+    }
+
+    /**
+     * Creates a built-in command which creates the provided files, or updates
+     * their last modified time if they already exist.
+     * @param files The files to be touched.
+     * @return The built-in command.
+     * @throws NightingaleException There are no files.
+     */
+    public Builtin touch(Object... files) throws NightingaleException {
+        return new Builtin("touch", files);
+    }
+
+    /**
+     * Creates a built-in command which concatenates the provided files. The
+     * last file is the target, which is overwritten.
+     * @param files The source files, followed by the target.
+     * @return The built-in command.
+     * @throws NightingaleException There are not enough files.
+     */
+    public Builtin concatenate(Object... files) throws NightingaleException {
+        return new Builtin("concatenate", files);
+    }
+
+    /**
+     * Connects the provided commands in a pipeline, that is, the standard
+     * output of each command is fed to the standard input of the next one,
+     * with no intermediate files in between.
+     * @param commands The commands, one for each pipeline stage.
+     * @return The pipeline.
+     * @throws NightingaleException One of the values is not a command.
+     */
+    public Pipeline pipe(Object... commands) throws NightingaleException {
+        return new Pipeline(commands);
+    }
+
+    /**
+     * Marks the provided commands as candidates for coalescing, that is,
+     * consecutive commands sharing everything but their last element are run
+     * as a single invocation, still reported one by one.
+     * @param commands The commands.
+     * @return The group of commands.
+     * @throws NightingaleException One of the values is not a command.
+     */
+    public Coalescence coalesce(Object... commands)
+            throws NightingaleException {
+        return new Coalescence(commands);
+    }
+
+    /**
+     * Groups the provided commands as independent from each other, so they
+     * can run at the same time. Each command is still reported on its own,
+     * in the provided order.
+     * @param commands The system commands, pipelines and built-in commands.
+     * @return The group of commands.
+     * @throws NightingaleException One of the commands cannot run on its own.
+     */
+    public Parallel parallel(Object... commands) throws NightingaleException {
+        return new Parallel(commands);
+    }
+
+    /**
+     * Throws the provided text as an exception.
+     * @param text A string containing the error text.
+     * @throws NightingaleException An exception is thrown with the provided
+     * text.
+     */
+    public void error(String text) throws NightingaleException {
+        throw new NightingaleException(text);
+    }
+
+    /**
+     * Gets the current session object.
+     * @return The current session object.
+     */
+    public Session session() {
+        return session;
+    }
+    
+    /**
+     * Checks if the provided string matches with the underlying operating
+     * system.
+     * @param check The provided string.
+     * @return A boolean value indicating if the underlying operating system
+     * matches with the provided string.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public boolean operatingsystem(String check)
+            throws NightingaleException {
+        return CommonUtils.checkOS(check);
+    }
+    
+    /**
+     * Returns the provided object if the check matches with the underlying
+     * operating system.
+     * @param check The provided check.
+     * @param value The provided object to be returned if the check matches.
+     * @return The provided object if the check matches with the underlying
+     * operating system.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public Object operatingsystem(String check, Object value)
+            throws NightingaleException {
+        return CommonUtils.checkOS(check) ? value : "";
+    }
+    
+    /**
+     * Returns the first object if the provided check matches with the
+     * underlying operating system, or the second object otherwise.
+     * @param check The provided check.
+     * @param value1 The first object.
+     * @param value2 The second object.
+     * @return One of the objects, according to the underlying operating system
+     * match.
+     * @throws NightingaleException 
+     */
+    public Object operatingsystem(String check, Object value1, Object value2)
+            throws NightingaleException {
+        return CommonUtils.checkOS(check) ? value1 : value2;
+    }
+
+}
@@ -0,0 +1,385 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.model;
+
+import com.github.cereda.nightingale.Nightingale;
+import com.github.cereda.nightingale.controller.ConfigurationController;
+import com.github.cereda.nightingale.controller.LanguageController;
+import com.github.cereda.nightingale.controller.ProcessController;
+import com.github.cereda.nightingale.controller.SessionController;
+import com.github.cereda.nightingale.utils.CommonUtils;
+import com.github.cereda.nightingale.utils.DisplayUtils;
+import com.github.cereda.nightingale.utils.HistoryUtils;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Implements the watch model. The watcher builds the reference file, then
+ * monitors the file itself, the files referenced by its directives, every
+ * file checked by conditionals or rules through the database of changes
+ * (e.g, {@code changed('bib')}) and the rule paths, rebuilding everything
+ * once changes settle. The dependencies are collected again on every
+ * successful build. A build still in progress when new changes arrive is
+ * cancelled, including the system commands it spawned. Since everything
+ * happens in the same virtual machine, compiled rules, conditionals and the
+ * change database are reused between builds.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class Watcher {
+
+    // the application messages obtained from the
+    // language controller
+    private static final LanguageController messages =
+            LanguageController.getInstance();
+
+    // the thread running the current build
+    private Thread worker;
+
+    // a flag indicating that the current
+    // build was cancelled on purpose
+    private volatile boolean cancelled;
+
+    // the files the current document depends
+    // on, replaced after each successful build
+    private final Set<Path> files = new HashSet<Path>();
+
+    // the rule paths, in which every
+    // rule file is relevant
+    private final Set<Path> rules = new HashSet<Path>();
+
+    /**
+     * Builds the reference file and rebuilds it every time one of its
+     * dependencies changes. This method only returns when the watching
+     * mechanism fails.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public void watch() throws NightingaleException {
+        if (Daemon.isRunning()) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_WATCH_NOT_ALLOWED_IN_DAEMON
+                    )
+            );
+        }
+
+        File reference = (File) ConfigurationController.
+                getInstance().
+                get("execution.reference");
+        files.add(normalize(reference));
+        for (String path : CommonUtils.getAllRulePaths()) {
+            rules.add(new File(path).toPath().toAbsolutePath().normalize());
+        }
+
+        long debounce = (Long) ConfigurationController.
+                getInstance().
+                get("watch.debounce");
+        WatchService service = null;
+        Set<Path> registered = new HashSet<Path>();
+
+        try {
+
+            service = FileSystems.getDefault().newWatchService();
+            start();
+
+            while (true) {
+
+                // new dependencies might show up after
+                // each build, so make sure all their
+                // directories are being monitored
+                register(service, registered);
+
+                // wait for the first relevant change, then
+                // keep collecting changes until the debounce
+                // window passes without new relevant changes,
+                // so a burst of saves triggers only one build;
+                // files written by the build itself do not
+                // extend the window, otherwise a build which
+                // keeps writing would never be cancelled
+                Set<String> changes = new TreeSet<String>();
+                collect(service.take(), changes);
+                if (changes.isEmpty()) {
+                    continue;
+                }
+                long deadline = System.nanoTime()
+                        + TimeUnit.MILLISECONDS.toNanos(debounce);
+                long remaining;
+                while ((remaining = deadline - System.nanoTime()) > 0) {
+                    WatchKey key = service.poll(remaining,
+                            TimeUnit.NANOSECONDS);
+                    if (key == null) {
+                        break;
+                    }
+                    if (collect(key, changes)) {
+                        deadline = System.nanoTime()
+                                + TimeUnit.MILLISECONDS.toNanos(debounce);
+                    }
+                }
+
+                cancel();
+                DisplayUtils.wrapText(
+                        messages.getMessage(
+                                Messages.INFO_WATCH_CHANGES_DETECTED,
+                                CommonUtils.getCollectionElements(
+                                        changes,
+                                        "",
+                                        "",
+                                        ", "
+                                )
+                        )
+                );
+                start();
+            }
+
+        } catch (IOException ioexception) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_WATCH_IO_EXCEPTION
+                    ),
+                    ioexception
+            );
+        } catch (InterruptedException iexception) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                cancel();
+            } catch (InterruptedException iexception) {
+                Thread.currentThread().interrupt();
+            }
+            IOUtils.closeQuietly(service);
+        }
+    }
+
+    /**
+     * Registers the directories of all dependencies in the watch service.
+     * @param service The watch service.
+     * @param registered The set of directories already registered.
+     * @throws IOException The directory could not be registered.
+     */
+    private void register(WatchService service, Set<Path> registered)
+            throws IOException {
+        Set<Path> directories = new HashSet<Path>(rules);
+        synchronized (files) {
+            for (Path file : files) {
+                directories.add(file.getParent());
+            }
+        }
+        for (Path directory : directories) {
+            if (!registered.contains(directory)
+                    && directory.toFile().isDirectory()) {
+                directory.register(
+                        service,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY,
+                        StandardWatchEventKinds.ENTRY_DELETE
+                );
+                registered.add(directory);
+            }
+        }
+    }
+
+    /**
+     * Collects the relevant changes from the provided watch key. Files
+     * written by the build itself (e.g, auxiliary files, logs and the change
+     * database) are not dependencies, so they are simply ignored.
+     * @param key The watch key.
+     * @param changes The set of changed file names.
+     * @return A boolean value indicating if at least one relevant change
+     * was found.
+     */
+    private boolean collect(WatchKey key, Set<String> changes) {
+        boolean found = false;
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changes.add(directory.toString());
+                found = true;
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            boolean relevant;
+            synchronized (files) {
+                relevant = files.contains(path);
+            }
+            if (!relevant && rules.contains(directory)) {
+                relevant = path.toString().endsWith(".groovy");
+            }
+            if (relevant) {
+                changes.add(path.getFileName().toString());
+                found = true;
+            }
+        }
+        key.reset();
+        return found;
+    }
+
+    /**
+     * Starts a new build in a separate thread.
+     */
+    private void start() {
+        cancelled = false;
+        worker = new Thread(new Runnable() {
+            public void run() {
+                build();
+            }
+        }, "nightingale-build");
+        worker.start();
+    }
+
+    /**
+     * Cancels the current build, if any, destroying all system commands
+     * spawned by it, and waits for the build thread to finish.
+     * @throws InterruptedException The current thread was interrupted while
+     * waiting.
+     */
+    private void cancel() throws InterruptedException {
+        if ((worker != null) && worker.isAlive()) {
+            cancelled = true;
+
+            // a command might be spawned right after the
+            // destruction, so keep interrupting the build
+            // and destroying processes until it is gone
+            while (worker.isAlive()) {
+                worker.interrupt();
+                ProcessController.getInstance().destroyAll();
+                worker.join(100);
+            }
+
+            // the build might have been cancelled in
+            // the middle of an entry, so the line needs
+            // to be broken before the notification
+            if (Boolean.TRUE.equals(ConfigurationController.
+                    getInstance().
+                    get("display.line"))) {
+                System.out.println();
+            }
+            DisplayUtils.wrapText(
+                    messages.getMessage(
+                            Messages.INFO_WATCH_BUILD_CANCELLED
+                    )
+            );
+        }
+    }
+
+    /**
+     * Normalizes the provided file into an absolute path, as reported by the
+     * watch service.
+     * @param file The file.
+     * @return The normalized path.
+     */
+    private Path normalize(File file) {
+        return file.toPath().toAbsolutePath().normalize();
+    }
+
+    /**
+     * Builds the reference file, resetting the state left by the previous
+     * build and updating the set of dependencies.
+     */
+    private void build() {
+        ConfigurationController.getInstance().put("trigger.halt", false);
+        ConfigurationController.getInstance().remove("display.line");
+        ConfigurationController.getInstance().remove("display.result");
+        ConfigurationController.getInstance().remove("display.rolling");
+        ConfigurationController.getInstance().remove("display.exception");
+        SessionController.getInstance().clear();
+
+        // files checked through the database of changes
+        // are collected while the build runs, possibly
+        // from several threads at once
+        Set<File> dependencies = Collections.synchronizedSet(
+                new HashSet<File>());
+        ConfigurationController.getInstance().put("execution.dependencies",
+                dependencies);
+
+        try {
+            List<Directive> directives = Nightingale.build();
+            HistoryUtils.save();
+
+            // the set is rebuilt from scratch, so files
+            // no longer referenced stop being watched
+            Set<Path> current = new HashSet<Path>();
+            current.add(normalize((File) ConfigurationController.
+                    getInstance().
+                    get("execution.reference")));
+            for (Directive directive : directives) {
+                Object file = directive.getParameters().get("file");
+                if (file instanceof File) {
+                    current.add(normalize((File) file));
+                }
+            }
+            synchronized (dependencies) {
+                for (File file : dependencies) {
+                    current.add(normalize(file));
+                }
+            }
+            synchronized (files) {
+                files.clear();
+                files.addAll(current);
+            }
+        } catch (NightingaleException exception) {
+            if (!cancelled) {
+                DisplayUtils.printException(exception);
+            }
+        } finally {
+            ConfigurationController.getInstance().
+                    remove("execution.dependencies");
+        }
+
+        if (!cancelled) {
+            StopWatch.stop();
+            DisplayUtils.printTime();
+            DisplayUtils.wrapText(
+                    messages.getMessage(
+                            Messages.INFO_WATCH_WAITING
+                    )
+            );
+        }
+    }
+
+}
@@ -0,0 +1,183 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.rules;
+
+import com.github.cereda.nightingale.model.Command;
+import com.github.cereda.nightingale.model.RuleCommand;
+import com.github.cereda.nightingale.model.TypedRule;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Implements the common behaviour of the native TeX engine rules, which only
+ * differ in the engine command and names.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+abstract class EngineRule extends TypedRule {
+
+    // the engine command, which is
+    // also the rule identifier
+    private final String engine;
+
+    // the rule name and description
+    private final String name;
+    private final String description;
+
+    /**
+     * Constructor.
+     * @param engine The engine command.
+     * @param name The rule name.
+     * @param description The rule description.
+     */
+    EngineRule(String engine, String name, String description) {
+        this.engine = engine;
+        this.name = name;
+        this.description = description;
+    }
+
+    /**
+     * Gets the rule identifier.
+     * @return The rule identifier.
+     */
+    @Override
+    public String getIdentifier() {
+        return engine;
+    }
+
+    /**
+     * Gets the rule name.
+     * @return The rule name.
+     */
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the rule description.
+     * @return The rule description.
+     */
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Gets the list of arguments.
+     * @return The list of arguments.
+     */
+    @Override
+    public List<String> getArguments() {
+        return Arrays.asList("interaction", "draft", "shell", "synctex",
+                "options");
+    }
+
+    /**
+     * Gets the list of authors.
+     * @return The list of authors.
+     */
+    @Override
+    public List<String> getAuthors() {
+        return Arrays.asList("Marco Daniel", "Paulo Cereda");
+    }
+
+    /**
+     * Gets the minimum application version.
+     * @return The minimum application version.
+     */
+    @Override
+    public BigDecimal getRequires() {
+        return new BigDecimal("1.0");
+    }
+
+    /**
+     * Gets the list of rule commands.
+     * @return The list of rule commands.
+     */
+    @Override
+    public List<RuleCommand> getCommands() {
+        return Arrays.asList(command(name.concat(" engine"),
+                new Callable<Object>() {
+                    @Override
+                    public Object call() throws Exception {
+
+                        String file = basename(String.valueOf(obtain("file")));
+                        Object draft = defined("draft")
+                                ? check(true, "draft", "--draftmode")
+                                : "";
+                        Object shell = defined("shell")
+                                ? check(true, "shell", "--shell-escape",
+                                        "--no-shell-escape")
+                                : "";
+                        Object synctex = defined("synctex")
+                                ? check(true, "synctex", "--synctex=1",
+                                        "--synctex=0")
+                                : "";
+                        Object interaction = "";
+                        Object options = "";
+
+                        if (defined("interaction")) {
+                            interaction = obtain("interaction");
+                            if (!Arrays.asList("batchmode", "nonstopmode",
+                                    "scrollmode", "errorstopmode").
+                                    contains(interaction)) {
+                                error("I am sorry, but you provided an "
+                                        + "invalid interaction mode: "
+                                        + interaction);
+                            } else {
+                                interaction = "--interaction=".
+                                        concat(String.valueOf(interaction));
+                            }
+                        }
+
+                        if (defined("options")) {
+                            options = obtain("options");
+                            if (!(options instanceof List)) {
+                                error("I am sorry, but I was expecting a "
+                                        + "list when using the 'options' "
+                                        + "argument.");
+                            }
+                        }
+
+                        return new Command(engine, interaction, draft, shell,
+                                synctex, options, file);
+                    }
+                }));
+    }
+
+}
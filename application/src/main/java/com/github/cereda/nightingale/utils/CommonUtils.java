@@ -35,10 +35,13 @@ package com.github.cereda.nightingale.utils;
 
 import com.github.cereda.nightingale.controller.ConfigurationController;
 import com.github.cereda.nightingale.controller.LanguageController;
+import com.github.cereda.nightingale.controller.RuleController;
 import com.github.cereda.nightingale.model.NightingaleException;
 import com.github.cereda.nightingale.model.Database;
 import com.github.cereda.nightingale.model.FileType;
+import com.github.cereda.nightingale.model.FlightEvents;
 import com.github.cereda.nightingale.model.Messages;
+import com.github.cereda.nightingale.model.Metrics;
 import java.io.File;
 import java.io.IOException;
 import java.math.BigDecimal;
@@ -176,9 +179,12 @@ public class CommonUtils {
      * the higher levels.
      */
     public static String calculateHash(File file) throws NightingaleException {
+        Object event = FlightEvents.begin(FlightEvents.Kind.HASHING);
+        String hash = null;
         try {
             long result = FileUtils.checksumCRC32(file);
-            return String.format("%08x", result);
+            hash = String.format("%08x", result);
+            return hash;
         } catch (IOException exception) {
             throw new NightingaleException(
                     messages.getMessage(
@@ -186,6 +192,8 @@ public class CommonUtils {
                     ),
                     exception
             );
+        } finally {
+            FlightEvents.commit(event, "CRC32", file, hash);
         }
     }
 
@@ -296,14 +304,48 @@ public class CommonUtils {
     }
 
     /**
-     * Checks if a file has changed since the last verification.
+     * Checks if a file has changed since the last verification. Concurrent
+     * builds might share the same database, so the whole verification is
+     * synchronized. The file is also recorded as a dependency of the current
+     * build, if dependencies are being tracked (e.g, in the watch mode).
      * @param file The file.
      * @return A boolean value indicating if the file has changed since the last
      * verification.
      * @throws NightingaleException Something wrong happened, to be caught in
      * the higher levels.
      */
-    public static boolean hasChanged(File file) throws NightingaleException {
+    public static synchronized boolean hasChanged(File file)
+            throws NightingaleException {
+        @SuppressWarnings("unchecked")
+        Set<File> dependencies = (Set<File>) ConfigurationController.
+                getInstance().
+                get("execution.dependencies");
+        if (dependencies != null) {
+            dependencies.add(file.getAbsoluteFile());
+        }
+        long start = System.nanoTime();
+        Object event = FlightEvents.begin(FlightEvents.Kind.LOOKUP);
+        Boolean result = null;
+        try {
+            result = lookup(file);
+            return result;
+        } finally {
+            FlightEvents.commit(event, "changed", file, result);
+            Metrics.observe("nightingale_database_lookup_seconds",
+                    (System.nanoTime() - start) / 1000000000.0);
+        }
+    }
+
+    /**
+     * Looks the provided file up in the database of changes, updating the
+     * database if the file has changed since the last verification.
+     * @param file The file.
+     * @return A boolean value indicating if the file has changed since the last
+     * verification.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    private static boolean lookup(File file) throws NightingaleException {
         Database database = DatabaseUtils.load();
         HashMap<String, String> map = database.getMap();
         String path = getCanonicalPath(file);
@@ -398,7 +440,7 @@ public class CommonUtils {
     public static File getCanonicalFile(String file)
             throws NightingaleException {
         try {
-            return (new File(file)).getCanonicalFile();
+            return resolveFile(file).getCanonicalFile();
         } catch (IOException exception) {
             throw new NightingaleException(
                     messages.getMessage(
@@ -409,6 +451,24 @@ public class CommonUtils {
         }
     }
 
+    /**
+     * Resolves the provided path against the working directory of the current
+     * execution. Absolute paths are returned as they are.
+     * @param path The path.
+     * @return The file resolved against the current working directory.
+     */
+    public static File resolveFile(String path) {
+        File file = new File(path);
+        if (file.isAbsolute()) {
+            return file;
+        } else {
+            File directory = (File) ConfigurationController.
+                    getInstance().
+                    get("execution.directory");
+            return directory == null ? file : new File(directory, path);
+        }
+    }
+
     /**
      * Replicates a string pattern based on a list of objects, generating a list
      * as result.
@@ -562,7 +622,7 @@ public class CommonUtils {
         List<FileType> types = (List<FileType>) ConfigurationController.
                 getInstance().
                 get("execution.filetypes");
-        File file = new File(reference);
+        File file = resolveFile(reference);
         String name = file.getName();
         String parent = getParentCanonicalPath(file);
         String path = buildPath(parent, name);
@@ -716,16 +776,7 @@ public class CommonUtils {
      * the higher levels.
      */
     public static List<String> getAllRulePaths() throws NightingaleException {
-        @SuppressWarnings("unchecked")
-        List<String> paths = (List<String>) ConfigurationController.
-                getInstance().
-                get("execution.rule.paths");
-        List<String> result = new ArrayList<String>();
-        for (String path : paths) {
-            File location = new File(InterpreterUtils.construct(path, "foo"));
-            result.add(getParentCanonicalPath(location));
-        }
-        return result;
+        return RuleController.getInstance().getDirectories();
     }
 
     /**
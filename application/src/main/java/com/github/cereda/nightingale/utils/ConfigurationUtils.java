@@ -42,8 +42,13 @@ import com.github.cereda.nightingale.model.Messages;
 import groovy.lang.Binding;
 import groovy.lang.GroovyShell;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 import java.net.URLDecoder;
 import java.nio.charset.Charset;
 import java.nio.charset.UnsupportedCharsetException;
@@ -55,9 +60,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.SystemUtils;
 import org.codehaus.groovy.control.CompilationFailedException;
 import org.codehaus.groovy.control.CompilerConfiguration;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import org.yaml.snakeyaml.error.YAMLException;
 
 /**
  * Implements configuration utilitary methods.
@@ -72,12 +81,20 @@ public class ConfigurationUtils {
     private static final LanguageController messages =
             LanguageController.getInstance();
 
+    // the cached configuration map, with plain
+    // values, and the hash of the configuration
+    // file it was obtained from
+    private static String cacheHash = null;
+    private static Map<String, Object> cacheData = null;
+
     /**
      * Gets the configuration file located at the user home directory, if any.
      * @return The file reference to the external configuration, if any.
      */
     public static File getConfigFile() {
         List<String> names = Arrays.asList(
+                ".nightingalerc.yaml",
+                "nightingalerc.yaml",
                 ".nightingalerc.groovy",
                 "nightingalerc.groovy"
         );
@@ -92,7 +109,10 @@ public class ConfigurationUtils {
     }
 
     /**
-     * Validates the configuration file.
+     * Validates the configuration file. A declarative configuration file
+     * (YAML) is simply parsed; a Groovy configuration file is evaluated only
+     * when its contents change, since the resulting map is cached, in a
+     * declarative form, keyed by the file hash.
      * @param file The configuration file.
      * @return The configuration file properly parsed as a map.
      * @throws NightingaleException Something wrong happened, to be caught in
@@ -100,6 +120,23 @@ public class ConfigurationUtils {
      */
     public static Map<String, Object> validateConfiguration(File file)
             throws NightingaleException {
+        if (file.getName().endsWith(".yaml")) {
+            Map<String, Object> result = fromDeclarative(
+                    parseConfiguration(file)
+            );
+            checkConfiguration(result);
+            return result;
+        }
+
+        // the cached map is converted again every
+        // time, so the caller gets brand new objects
+        String hash = CommonUtils.calculateHash(file);
+        Map<String, Object> cached = loadCache(hash);
+        if (cached != null) {
+            Map<String, Object> result = fromDeclarative(cached);
+            checkConfiguration(result);
+            return result;
+        }
         
         // create a new shell to evaluate
         // the configuration script
@@ -112,6 +149,7 @@ public class ConfigurationUtils {
             ConfigurationUtils.checkConfiguration(holder);
             @SuppressWarnings("unchecked")
             Map<String, Object> result = (Map<String, Object>) holder;
+            saveCache(hash, toDeclarative(result));
             return result;
         } catch (CompilationFailedException cfexception) {
             throw new NightingaleException(
@@ -144,6 +182,247 @@ public class ConfigurationUtils {
         }
     }
 
+    /**
+     * Parses the declarative configuration file.
+     * @param file The configuration file.
+     * @return The configuration map, with plain values.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    private static Map<String, Object> parseConfiguration(File file)
+            throws NightingaleException {
+        InputStream stream = null;
+        try {
+            stream = new FileInputStream(file);
+            Object holder = new Yaml(new SafeConstructor()).load(stream);
+            if (!CommonUtils.checkClass(Map.class, holder)) {
+                throw new NightingaleException(
+                        messages.getMessage(
+                                Messages.ERROR_PARSECONFIGURATION_NOT_A_MAP
+                        )
+                );
+            }
+            @SuppressWarnings("unchecked")
+            Map<String, Object> result = (Map<String, Object>) holder;
+            return result;
+        } catch (YAMLException yexception) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_PARSECONFIGURATION_YAML_EXCEPTION
+                    ),
+                    yexception
+            );
+        } catch (IOException ioexception) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_VALIDATECONFIGURATION_IO_EXCEPTION
+                    ),
+                    ioexception
+            );
+        } finally {
+            IOUtils.closeQuietly(stream);
+        }
+    }
+
+    /**
+     * Converts a configuration map with plain values (strings, numbers,
+     * booleans, lists and maps) into the typed configuration map expected by
+     * the application. Values which cannot be converted are kept as they
+     * are, so the validation reports them later on.
+     * @param data The configuration map, with plain values.
+     * @return The typed configuration map.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    private static Map<String, Object> fromDeclarative(Map<String, Object> data)
+            throws NightingaleException {
+        Map<String, Object> result = new HashMap<String, Object>();
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            String key = String.valueOf(entry.getKey());
+            Object value = entry.getValue();
+            if (key.equals("rule paths") && (value instanceof List)) {
+                value = new ArrayList<Object>((List<?>) value);
+            } else if (key.equals("file types") && (value instanceof List)) {
+                List<Object> types = new ArrayList<Object>();
+                for (Object element : (List<?>) value) {
+                    types.add(toFileType(element));
+                }
+                value = types;
+            } else if ((key.equals("maximum number of loops")
+                    || key.equals("timeout value"))
+                    && (value instanceof Integer)) {
+                value = ((Integer) value).longValue();
+            } else if (key.equals("directive charset")
+                    && (value instanceof String)) {
+                try {
+                    value = Charset.forName((String) value);
+                } catch (IllegalArgumentException iaexception) {
+                    throw new NightingaleException(
+                            messages.getMessage(
+                                    Messages.ERROR_VALIDATECONFIGURATION_UNSUPPORTED_CHARSET
+                            ),
+                            iaexception
+                    );
+                }
+            } else if (key.equals("timeout unit")
+                    && (value instanceof String)) {
+                try {
+                    value = TimeUnit.valueOf(((String) value).toUpperCase());
+                } catch (IllegalArgumentException iaexception) {
+                    throw new NightingaleException(
+                            messages.getMessage(
+                                    Messages.ERROR_PARSECONFIGURATION_INVALID_TIMEOUT_UNIT,
+                                    value
+                            )
+                    );
+                }
+            } else if (key.equals("language") && (value instanceof String)) {
+                value = new Language((String) value);
+            }
+            result.put(key, value);
+        }
+        return result;
+    }
+
+    /**
+     * Converts a plain value into a file type. The value is either the
+     * extension of a default file type or a map holding the extension and,
+     * optionally, the pattern.
+     * @param value The plain value.
+     * @return The file type, or the value itself if it cannot be converted.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    private static Object toFileType(Object value)
+            throws NightingaleException {
+        if (value instanceof String) {
+            return new FileType((String) value);
+        }
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            if (map.get("extension") instanceof String) {
+                String extension = (String) map.get("extension");
+                if (map.get("pattern") instanceof String) {
+                    return new FileType(extension, (String) map.get("pattern"));
+                } else {
+                    return new FileType(extension);
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Converts a typed configuration map back into plain values, so it can be
+     * written in a declarative form.
+     * @param data The typed configuration map.
+     * @return The configuration map, with plain values.
+     */
+    private static Map<String, Object> toDeclarative(Map<String, Object> data) {
+        Map<String, Object> result = new HashMap<String, Object>();
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof List) {
+                List<Object> list = new ArrayList<Object>();
+                for (Object element : (List<?>) value) {
+                    if (element instanceof FileType) {
+                        Map<String, String> type = new HashMap<String, String>();
+                        type.put("extension",
+                                ((FileType) element).getExtension());
+                        type.put("pattern", ((FileType) element).getPattern());
+                        list.add(type);
+                    } else {
+                        list.add(element);
+                    }
+                }
+                value = list;
+            } else if (value instanceof Charset) {
+                value = ((Charset) value).name();
+            } else if (value instanceof TimeUnit) {
+                value = ((TimeUnit) value).name();
+            } else if (value instanceof Language) {
+                value = ((Language) value).getCode();
+            }
+            result.put(entry.getKey(), value);
+        }
+        return result;
+    }
+
+    /**
+     * Loads the cached configuration map, if it matches the provided hash.
+     * The cache is kept in memory as well, so a daemon only reads it once.
+     * A cache which cannot be read is simply ignored.
+     * @param hash The hash of the configuration file.
+     * @return The cached configuration map, with plain values, or null if
+     * there is no valid cache.
+     */
+    private static synchronized Map<String, Object> loadCache(String hash) {
+        if (!hash.equals(cacheHash)) {
+            cacheHash = null;
+            cacheData = null;
+            File file = getCacheFile();
+            if (file.exists()) {
+                InputStream stream = null;
+                try {
+                    stream = new FileInputStream(file);
+                    Object holder = new Yaml(new SafeConstructor()).
+                            load(stream);
+                    if (holder instanceof Map) {
+                        Map<?, ?> map = (Map<?, ?>) holder;
+                        if (hash.equals(map.get("hash"))
+                                && (map.get("config") instanceof Map)) {
+                            @SuppressWarnings("unchecked")
+                            Map<String, Object> data =
+                                    (Map<String, Object>) map.get("config");
+                            cacheHash = hash;
+                            cacheData = data;
+                        }
+                    }
+                } catch (Exception exception) {
+                    // the cache is just a shortcut
+                } finally {
+                    IOUtils.closeQuietly(stream);
+                }
+            }
+        }
+        return cacheData;
+    }
+
+    /**
+     * Saves the configuration map in the cache, together with the provided
+     * hash. A cache which cannot be written is simply ignored.
+     * @param hash The hash of the configuration file.
+     * @param data The configuration map, with plain values.
+     */
+    private static synchronized void saveCache(String hash,
+            Map<String, Object> data) {
+        cacheHash = hash;
+        cacheData = data;
+        Map<String, Object> map = new HashMap<String, Object>();
+        map.put("hash", hash);
+        map.put("config", data);
+        Writer writer = null;
+        try {
+            writer = new OutputStreamWriter(
+                    new FileOutputStream(getCacheFile()), "UTF-8"
+            );
+            new Yaml(new SafeConstructor()).dump(map, writer);
+        } catch (Exception exception) {
+            // the cache is just a shortcut
+        } finally {
+            IOUtils.closeQuietly(writer);
+        }
+    }
+
+    /**
+     * Gets the configuration cache file, located at the user home directory.
+     * @return The configuration cache file.
+     */
+    private static File getCacheFile() {
+        return new File(CommonUtils.buildPath(SystemUtils.USER_HOME,
+                ".nightingalerc.cache"));
+    }
+
     /**
      * Checks if the configuration is valid.
      * @param holder The object holding the configuration map.
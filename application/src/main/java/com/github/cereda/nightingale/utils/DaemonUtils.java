@@ -0,0 +1,192 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.utils;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.Properties;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.SystemUtils;
+
+/**
+ * Implements daemon utilitary methods. The daemon and its clients talk through
+ * a very simple protocol over a loopback socket: the client sends the access
+ * token, the working directory, the command line arguments and the
+ * environment; the daemon replies with a sequence of output frames followed
+ * by an exit frame holding the exit code. Note that this class is also used
+ * by the client, so it must not depend on heavy components.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class DaemonUtils {
+
+    // frame types sent from the
+    // daemon back to the client
+    public static final byte FRAME_OUTPUT = 1;
+    public static final byte FRAME_EXIT = 2;
+
+    // the longest access token accepted, in bytes,
+    // and how long the daemon waits for a client to
+    // send its request, in milliseconds
+    public static final int TOKEN_LIMIT = 64;
+    public static final int REQUEST_TIMEOUT = 10000;
+
+    /**
+     * Gets the daemon file, located at the user home directory. This file
+     * holds the port and the access token of the running daemon.
+     * @return The daemon file.
+     */
+    public static File getDaemonFile() {
+        return new File(CommonUtils.buildPath(SystemUtils.USER_HOME,
+                ".nightingale-daemon"));
+    }
+
+    /**
+     * Generates a new random access token.
+     * @return A new random access token.
+     */
+    public static String generateToken() {
+        return new BigInteger(130, new SecureRandom()).toString(32);
+    }
+
+    /**
+     * Writes the daemon file, readable and writable by the owner only.
+     * @param file The daemon file.
+     * @param port The daemon port.
+     * @param token The access token.
+     * @throws IOException The file could not be written.
+     */
+    public static void writeDaemonFile(File file, int port, String token)
+            throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("port", String.valueOf(port));
+        properties.setProperty("token", token);
+        OutputStream stream = new FileOutputStream(file);
+        try {
+            file.setReadable(false, false);
+            file.setReadable(true, true);
+            file.setWritable(false, false);
+            file.setWritable(true, true);
+            properties.store(stream, "nightingale daemon");
+        } finally {
+            IOUtils.closeQuietly(stream);
+        }
+    }
+
+    /**
+     * Reads the daemon file.
+     * @param file The daemon file.
+     * @return The properties holding the port and the access token.
+     * @throws IOException The file could not be read.
+     */
+    public static Properties readDaemonFile(File file) throws IOException {
+        Properties properties = new Properties();
+        InputStream stream = new FileInputStream(file);
+        try {
+            properties.load(stream);
+        } finally {
+            IOUtils.closeQuietly(stream);
+        }
+        return properties;
+    }
+
+    /**
+     * Writes a string to the provided stream. Strings are written as their
+     * length followed by the UTF-8 bytes, so there is no size limitation.
+     * @param output The output stream.
+     * @param value The string.
+     * @throws IOException The string could not be written.
+     */
+    public static void writeString(DataOutputStream output, String value)
+            throws IOException {
+        byte[] bytes = value.getBytes("UTF-8");
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    /**
+     * Reads a number of elements from the provided stream.
+     * @param input The input stream.
+     * @return The number of elements.
+     * @throws IOException The number could not be read or is negative.
+     */
+    public static int readCount(DataInputStream input) throws IOException {
+        int count = input.readInt();
+        if (count < 0) {
+            throw new IOException(String.valueOf(count));
+        }
+        return count;
+    }
+
+    /**
+     * Reads a string from the provided stream.
+     * @param input The input stream.
+     * @return The string.
+     * @throws IOException The string could not be read.
+     */
+    public static String readString(DataInputStream input)
+            throws IOException {
+        return readString(input, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads a string from the provided stream, rejecting it if its length
+     * is beyond the provided limit, so the length sent by an unknown peer
+     * is never trusted.
+     * @param input The input stream.
+     * @param limit The maximum length, in bytes.
+     * @return The string.
+     * @throws IOException The string could not be read or is too long.
+     */
+    public static String readString(DataInputStream input, int limit)
+            throws IOException {
+        int length = input.readInt();
+        if ((length < 0) || (length > limit)) {
+            throw new IOException(String.valueOf(length));
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+}
@@ -38,6 +38,7 @@ import com.github.cereda.nightingale.controller.LanguageController;
 import com.github.cereda.nightingale.model.NightingaleException;
 import com.github.cereda.nightingale.model.Database;
 import com.github.cereda.nightingale.model.Messages;
+import com.github.cereda.nightingale.model.Metrics;
 import java.io.File;
 import org.simpleframework.xml.Serializer;
 import org.simpleframework.xml.core.Persister;
@@ -55,20 +56,35 @@ public class DatabaseUtils {
     private static final LanguageController messages =
             LanguageController.getInstance();
 
+    // the last database loaded or saved, kept in memory
+    // together with its path and file stamp, so repeated
+    // lookups do not need to parse the XML file again
+    private static Database cache = null;
+    private static String cachePath = null;
+    private static long cacheModified = 0;
+    private static long cacheLength = 0;
+
     /**
      * Loads the XML file representing the database.
      * @return The database object.
      * @throws NightingaleException Something wrong happened, to be caught in
      * the higher levels.
      */
-    public static Database load() throws NightingaleException {
+    public static synchronized Database load() throws NightingaleException {
         if (!exists()) {
             return new Database();
         } else {
             File file = new File(getPath());
+            boolean cached = isCached(file);
+            Metrics.count("nightingale_cache_requests", 1, "cache",
+                    "database", "result", cached ? "hit" : "miss");
+            if (cached) {
+                return cache;
+            }
             try {
                 Serializer serializer = new Persister();
                 Database database = serializer.read(Database.class, file);
+                updateCache(database, file);
                 return database;
             } catch (Exception exception) {
                 throw new NightingaleException(
@@ -88,11 +104,13 @@ public class DatabaseUtils {
      * @throws NightingaleException Something wrong happened, to be caught in
      * the higher levels.
      */
-    public static void save(Database database) throws NightingaleException {
+    public static synchronized void save(Database database)
+            throws NightingaleException {
         File file = new File(getPath());
         try {
             Serializer serializer = new Persister();
             serializer.write(database, file);
+            updateCache(database, file);
         } catch (Exception exception) {
             throw new NightingaleException(
                     messages.getMessage(
@@ -104,6 +122,32 @@ public class DatabaseUtils {
         }
     }
 
+    /**
+     * Checks if the provided file is the one kept in memory and if it has not
+     * changed since it was last loaded or saved.
+     * @param file The XML file.
+     * @return A boolean value indicating if the cached database can be used.
+     */
+    private static boolean isCached(File file) {
+        return (cache != null)
+                && file.getPath().equals(cachePath)
+                && (file.lastModified() == cacheModified)
+                && (file.length() == cacheLength);
+    }
+
+    /**
+     * Keeps the provided database in memory, together with the stamp of its
+     * corresponding XML file.
+     * @param database The database object.
+     * @param file The XML file.
+     */
+    private static void updateCache(Database database, File file) {
+        cache = database;
+        cachePath = file.getPath();
+        cacheModified = file.lastModified();
+        cacheLength = file.length();
+    }
+
     /**
      * Checks if the XML file representing the database exists.
      * @return A boolean value indicating if the XML file exists.
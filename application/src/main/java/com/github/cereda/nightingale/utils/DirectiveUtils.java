@@ -35,6 +35,8 @@ package com.github.cereda.nightingale.utils;
 
 import com.github.cereda.nightingale.controller.ConfigurationController;
 import com.github.cereda.nightingale.controller.LanguageController;
+import com.github.cereda.nightingale.controller.Logger;
+import com.github.cereda.nightingale.controller.LoggingController;
 import com.github.cereda.nightingale.model.NightingaleException;
 import com.github.cereda.nightingale.model.Conditional;
 import com.github.cereda.nightingale.model.Directive;
@@ -47,8 +49,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.yaml.snakeyaml.DumperOptions;
 import org.yaml.snakeyaml.Yaml;
 import org.yaml.snakeyaml.constructor.Constructor;
@@ -70,7 +70,7 @@ public class DirectiveUtils {
     
     // get the logger context from a factory
     private static final Logger logger =
-            LoggerFactory.getLogger(DirectiveUtils.class);
+            LoggingController.getLogger(DirectiveUtils.class);
 
     /**
      * Validates the list of directives, returning a new list.
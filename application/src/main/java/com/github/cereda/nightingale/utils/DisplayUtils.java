@@ -35,16 +35,19 @@ package com.github.cereda.nightingale.utils;
 
 import com.github.cereda.nightingale.controller.ConfigurationController;
 import com.github.cereda.nightingale.controller.LanguageController;
+import com.github.cereda.nightingale.controller.Logger;
+import com.github.cereda.nightingale.controller.LoggingController;
 import com.github.cereda.nightingale.model.NightingaleException;
 import com.github.cereda.nightingale.model.Conditional;
+import com.github.cereda.nightingale.model.Daemon;
 import com.github.cereda.nightingale.model.Messages;
+import com.github.cereda.nightingale.model.Profiler;
 import com.github.cereda.nightingale.model.StopWatch;
 import java.io.File;
 import java.util.List;
+import java.util.Map;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.WordUtils;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 /**
  * Implements display utilitary methods.
@@ -61,7 +64,7 @@ public class DisplayUtils {
     
     // get the logger context from a factory
     private static final Logger logger =
-            LoggerFactory.getLogger(DisplayUtils.class);
+            LoggingController.getLogger(DisplayUtils.class);
 
     /**
      * Displays the short version of the current entry in the terminal.
@@ -448,6 +451,73 @@ public class DisplayUtils {
         }
     }
 
+    /**
+     * Displays the time spent in each execution phase in the terminal. The
+     * virtual machine startup is not displayed when running as a daemon,
+     * since it happened long before the current execution.
+     */
+    public static void printPhases() {
+        if (ConfigurationController.getInstance().contains("display.phases")) {
+            addNewLine();
+            wrapText(messages.getMessage(Messages.INFO_DISPLAY_PHASES));
+            System.out.println(displaySeparator());
+            if (!Daemon.isRunning()) {
+                printPhase("virtual machine", StopWatch.getStartupTime());
+            }
+            for (Map.Entry<String, Long> entry :
+                    StopWatch.getPhases().entrySet()) {
+                printPhase(entry.getKey(), entry.getValue());
+            }
+            System.out.println(displaySeparator());
+        }
+    }
+
+    /**
+     * Displays the build profile in the terminal, if the profiler is enabled,
+     * that is, every activity sorted by duration, followed by the critical
+     * path.
+     */
+    public static void printProfile() {
+        if (Profiler.isEnabled()) {
+            addNewLine();
+            wrapText(messages.getMessage(Messages.INFO_DISPLAY_PROFILE));
+            System.out.println(displaySeparator());
+            for (Profiler.Activity activity : Profiler.getActivities()) {
+                printPhase(activity.getCategory().concat(": ").
+                        concat(activity.getName()), activity.getDuration());
+            }
+            System.out.println(displaySeparator());
+            addNewLine();
+            wrapText(messages.getMessage(Messages.INFO_DISPLAY_CRITICAL_PATH));
+            System.out.println(displaySeparator());
+            for (Profiler.Activity activity : Profiler.getCriticalPath()) {
+                printPhase(activity.getCategory().concat(": ").
+                        concat(activity.getName()), activity.getDuration());
+            }
+            printPhase("untracked", Profiler.getUntrackedTime());
+            System.out.println(displaySeparator());
+        }
+    }
+
+    /**
+     * Displays a single execution phase in the terminal. Names too long to
+     * fit in the line are abbreviated.
+     * @param name The phase name.
+     * @param time The time spent in the phase, in nanoseconds.
+     */
+    private static void printPhase(String name, long time) {
+        String value = " ".concat(StopWatch.format(time)).concat(" s");
+        System.out.println(
+                StringUtils.rightPad(
+                        StringUtils.abbreviate(name.replaceAll("\\s+", " "),
+                                Math.max(4, getWidth() - value.length() - 2)).
+                                concat(" "),
+                        getWidth() - value.length(),
+                        "."
+                ).concat(value)
+        );
+    }
+
     /**
      * Displays the application logo in the terminal.
      */
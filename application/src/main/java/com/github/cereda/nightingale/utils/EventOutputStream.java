@@ -0,0 +1,87 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.utils;
+
+import com.github.cereda.nightingale.model.BuildEvent;
+import com.github.cereda.nightingale.model.EventBus;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Implements a stream which publishes everything written to it as output
+ * chunks of the provided command on the event bus.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class EventOutputStream extends OutputStream {
+
+    // the command whose output
+    // is written to this stream
+    private final Object command;
+
+    /**
+     * Constructor.
+     * @param command The command.
+     */
+    public EventOutputStream(Object command) {
+        this.command = command;
+    }
+
+    /**
+     * Publishes the provided integer as a single byte chunk.
+     * @param b The provided integer.
+     */
+    @Override
+    public void write(int b) {
+        EventBus.publish(new BuildEvent.OutputChunk(command,
+                new byte[] { (byte) b }));
+    }
+
+    /**
+     * Publishes a copy of the provided byte array, with the provided offset
+     * and length, as a chunk.
+     * @param b The byte array.
+     * @param offset The offset.
+     * @param length The length.
+     */
+    @Override
+    public void write(byte[] b, int offset, int length) {
+        if (length > 0) {
+            EventBus.publish(new BuildEvent.OutputChunk(command,
+                    Arrays.copyOfRange(b, offset, offset + length)));
+        }
+    }
+
+}
@@ -0,0 +1,207 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.utils;
+
+import com.github.cereda.nightingale.controller.ConfigurationController;
+import com.github.cereda.nightingale.controller.LanguageController;
+import com.github.cereda.nightingale.model.Messages;
+import com.github.cereda.nightingale.model.NightingaleException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.SystemUtils;
+
+/**
+ * Implements history utilitary methods. Durations are recorded in memory and
+ * persisted in a properties file located at the user home directory, which is
+ * way cheaper to read than a XML file. Each new duration is averaged with the
+ * previous estimate, so a single unusual build does not throw the estimate
+ * off.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class HistoryUtils {
+
+    // the application messages obtained from the
+    // language controller
+    private static final LanguageController messages =
+            LanguageController.getInstance();
+
+    // the history kept in memory, loaded on demand,
+    // where each key identifies a document or a
+    // directive and each value is its estimated
+    // duration, in milliseconds, and a flag
+    // indicating pending changes
+    private static Properties history = null;
+    private static boolean dirty = false;
+
+    /**
+     * Gets the estimated duration of the provided key.
+     * @param key The key.
+     * @return The estimated duration, in milliseconds, or null if there is no
+     * history for the provided key.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public static synchronized Long get(String key)
+            throws NightingaleException {
+        String value = load().getProperty(key);
+        try {
+            return value == null ? null : Long.valueOf(value);
+        } catch (NumberFormatException nfexception) {
+            return null;
+        }
+    }
+
+    /**
+     * Records a new duration for the provided key. Nothing is recorded in
+     * dry-run mode, since no command is actually executed.
+     * @param key The key.
+     * @param time The duration, in nanoseconds.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public static synchronized void record(String key, long time)
+            throws NightingaleException {
+        if ((Boolean) ConfigurationController.
+                getInstance().
+                get("execution.dryrun")) {
+            return;
+        }
+        long value = TimeUnit.NANOSECONDS.toMillis(time);
+        Long previous = get(key);
+        if (previous != null) {
+            value = (previous + value) / 2;
+        }
+        history.setProperty(key, String.valueOf(value));
+        dirty = true;
+    }
+
+    /**
+     * Saves the history on the properties file, if there are pending changes.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public static synchronized void save() throws NightingaleException {
+        if (!dirty) {
+            return;
+        }
+        File file = getFile();
+        OutputStream stream = null;
+        try {
+            stream = new FileOutputStream(file);
+            history.store(stream, null);
+            dirty = false;
+        } catch (Exception exception) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_HISTORY_COULD_NOT_SAVE,
+                            file.getName()
+                    ),
+                    exception
+            );
+        } finally {
+            IOUtils.closeQuietly(stream);
+        }
+    }
+
+    /**
+     * Gets the history key of the provided document.
+     * @param file The document.
+     * @return The history key.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public static String getKey(File file) throws NightingaleException {
+        return CommonUtils.getCanonicalFile(file.getPath()).getPath();
+    }
+
+    /**
+     * Gets the history key of a directive of the provided document. Since the
+     * same rule might appear more than once, the occurrence is part of the
+     * key as well.
+     * @param file The document.
+     * @param identifier The directive identifier.
+     * @param occurrence The occurrence of the identifier in the document.
+     * @return The history key.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public static String getKey(File file, String identifier, int occurrence)
+            throws NightingaleException {
+        return getKey(file).concat("#").concat(identifier).
+                concat("#").concat(String.valueOf(occurrence));
+    }
+
+    /**
+     * Loads the properties file representing the history, if not loaded yet.
+     * A file which cannot be read is simply ignored, since the history is
+     * only used for estimates.
+     * @return The history properties.
+     */
+    private static Properties load() {
+        if (history == null) {
+            File file = getFile();
+            history = new Properties();
+            if (file.exists()) {
+                InputStream stream = null;
+                try {
+                    stream = new FileInputStream(file);
+                    history.load(stream);
+                } catch (Exception exception) {
+                    history = new Properties();
+                } finally {
+                    IOUtils.closeQuietly(stream);
+                }
+            }
+        }
+        return history;
+    }
+
+    /**
+     * Gets the history file, located at the user home directory.
+     * @return The history file.
+     */
+    private static File getFile() {
+        return new File(CommonUtils.buildPath(SystemUtils.USER_HOME,
+                ".nightingale-history"));
+    }
+
+}
@@ -35,17 +35,35 @@ package com.github.cereda.nightingale.utils;
 
 import com.github.cereda.nightingale.controller.ConfigurationController;
 import com.github.cereda.nightingale.controller.LanguageController;
+import com.github.cereda.nightingale.controller.Logger;
+import com.github.cereda.nightingale.controller.LoggingController;
+import com.github.cereda.nightingale.controller.ProcessController;
+import com.github.cereda.nightingale.controller.RuleController;
+import com.github.cereda.nightingale.model.BuildEvent;
+import com.github.cereda.nightingale.model.Builtin;
 import com.github.cereda.nightingale.model.Command;
 import com.github.cereda.nightingale.model.NightingaleException;
 import com.github.cereda.nightingale.model.Conditional;
+import com.github.cereda.nightingale.model.Directive;
+import com.github.cereda.nightingale.model.EventBus;
+import com.github.cereda.nightingale.model.FlightEvents;
 import com.github.cereda.nightingale.model.Messages;
+import com.github.cereda.nightingale.model.Pipeline;
+import com.github.cereda.nightingale.model.ProcessRunner;
+import com.github.cereda.nightingale.model.ReplayRunner;
+import com.github.cereda.nightingale.model.Rule;
+import com.github.cereda.nightingale.model.StopWatch;
 import groovy.lang.Closure;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
@@ -56,11 +74,9 @@ import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import org.apache.commons.collections4.CollectionUtils;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.zeroturnaround.exec.InvalidExitValueException;
-import org.zeroturnaround.exec.ProcessExecutor;
-import org.zeroturnaround.exec.listener.ShutdownHookProcessDestroyer;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.SystemUtils;
 
 /**
  * Implements interpreter utilitary methods.
@@ -77,7 +93,7 @@ public class InterpreterUtils {
     
     // get the logger context from a factory
     private static final Logger logger =
-            LoggerFactory.getLogger(InterpreterUtils.class);
+            LoggingController.getLogger(InterpreterUtils.class);
 
     /**
      * Checks if the rule header is valid, including class types and keys.
@@ -273,6 +289,40 @@ public class InterpreterUtils {
         }
     }
 
+    /**
+     * Checks if the typed rule is valid. The class types and keys of a typed
+     * rule are checked by the compiler, so only the values are checked here.
+     * @param rule The typed rule.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public static void checkRule(Rule rule) throws NightingaleException {
+        Map<String, Object> header = new HashMap<String, Object>();
+        header.put("id", rule.getIdentifier());
+        header.put("name", rule.getName());
+        header.put("description", rule.getDescription());
+        header.put("arguments", rule.getArguments());
+        header.put("authors", rule.getAuthors());
+        header.put("requires", rule.getRequires());
+        for (String key : header.keySet()) {
+            if (header.get(key) == null) {
+                throw new NightingaleException(
+                        CommonUtils.getRuleErrorHeader().
+                        concat(
+                                messages.getMessage(
+                                        Messages.ERROR_CHECKRULE_NULL_VALUE,
+                                        key
+                                )
+                        )
+                );
+            }
+        }
+        checkArguments(header);
+        checkAuthors(header);
+        checkKeywords(header);
+        checkDuplicates(header);
+    }
+
     /**
      * Checks if the rule header arguments are valid.
      * @param map The map representing the rule header.
@@ -387,18 +437,17 @@ public class InterpreterUtils {
     }
 
     /**
-     * Checks if the first object is a map and the keys are valid when analyzed
-     * with the second provided map.
-     * @param holder The first object, being a map.
-     * @param map2 The second map, acting as a reference.
+     * Checks if the keys of the provided map are valid when analyzed with the
+     * rule arguments.
+     * @param rule The rule.
+     * @param map2 The map, acting as a reference.
      * @throws NightingaleException Something wrong happened, to be caught in
      * the higher levels.
      */
     @SuppressWarnings("unchecked")
-    public static void validateArguments(Object holder, Map map2)
+    public static void validateArguments(Rule rule, Map map2)
             throws NightingaleException {
-        Map map1 = (Map) holder;
-        Set keys1 = new HashSet((List) map1.get("arguments"));
+        Set keys1 = new HashSet(rule.getArguments());
         Set keys2 = new HashSet(map2.keySet());
         keys2.remove("file");
         Collection difference = CollectionUtils.subtract(keys2, keys1);
@@ -419,17 +468,16 @@ public class InterpreterUtils {
     }
 
     /**
-     * Validates the rule header map with the rule file.
-     * @param holder The rule header map.
-     * @param rule The rule file.
+     * Validates the rule identifier with the rule file.
+     * @param rule The rule.
+     * @param file The rule file.
      * @throws NightingaleException Something wrong happened, to be caught in
      * the higher levels.
      */
-    public static void validateIdentifier(Object holder, File rule)
+    public static void validateIdentifier(Rule rule, File file)
             throws NightingaleException {
-        Map map = (Map) holder;
-        String identifier = (String) map.get("id");
-        String basename = CommonUtils.getBasename(rule);
+        String identifier = rule.getIdentifier();
+        String basename = CommonUtils.getBasename(file);
         if (!identifier.equals(basename)) {
             throw new NightingaleException(
                     CommonUtils.getRuleErrorHeader().
@@ -445,18 +493,46 @@ public class InterpreterUtils {
     }
 
     /**
-     * Gets the list of maps from the rule commands.
-     * @param holder The rule commands.
-     * @return A list of maps.
+     * Runs the built-in command inside the application itself. A failure is
+     * logged and, in verbose mode, displayed, just like the output of a
+     * system command would be.
+     * @param builtin The built-in command.
+     * @return A boolean value indicating if the built-in command succeeded.
      */
-    public static List<Map> getCommands(Object holder) {
-        @SuppressWarnings("unchecked")
-        List<Map> result = (List<Map>) holder;
-        return result;
+    public static boolean execute(Builtin builtin) {
+        long start = System.nanoTime();
+        if (EventBus.isActive()) {
+            EventBus.publish(new BuildEvent.CommandSpawned(builtin));
+        }
+        boolean result = false;
+        try {
+            builtin.process();
+            result = true;
+            return result;
+        } catch (IOException ioexception) {
+            String message = messages.getMessage(
+                    Messages.ERROR_BUILTIN_FAILED,
+                    builtin.getName(),
+                    String.valueOf(ioexception)
+            );
+            logger.info(message);
+            if ((Boolean) ConfigurationController.
+                    getInstance().
+                    get("execution.verbose")) {
+                DisplayUtils.wrapText(message);
+            }
+            return false;
+        } finally {
+            if (EventBus.isActive()) {
+                EventBus.publish(new BuildEvent.CommandFinished(builtin,
+                        result, System.nanoTime() - start, 0));
+            }
+        }
     }
 
     /**
-     * Runs the command in the underlying operating system.
+     * Runs the command through the configured process runner, which usually
+     * spawns a process in the underlying operating system.
      * @param command An object representing the command.
      * @return An integer value representing the exit code.
      * @throws NightingaleException Something wrong happened, to be caught in
@@ -466,48 +542,280 @@ public class InterpreterUtils {
         boolean verbose = (Boolean) ConfigurationController.
                 getInstance().
                 get("execution.verbose");
-        boolean timeout = (Boolean) ConfigurationController.
-                getInstance().
-                get("execution.timeout");
-        long value = (Long) ConfigurationController.
+        ProcessRunner runner = (ProcessRunner) ConfigurationController.
                 getInstance().
-                get("execution.timeout.value");
-        TimeUnit unit = (TimeUnit) ConfigurationController.
-                getInstance().
-                get("execution.timeout.unit");
+                get("execution.runner");
         ByteArrayOutputStream buffer = new ByteArrayOutputStream();
 
-        ProcessExecutor executor = new ProcessExecutor();
+        // the process executor relies on the logging
+        // framework, which is only initialized here
+        // when logging is disabled
+        LoggingController.init();
+        StopWatch.mark("first command");
+
+        // a string is split on whitespaces, as the
+        // process executor would do it
+        Command instance;
         if (CommonUtils.checkClass(Command.class, command)) {
-            executor = executor.command(((Command) command).getElements());
+            instance = (Command) command;
         }
         else {
-            executor = executor.commandSplit((String) command);
+            instance = new Command(
+                    (Object[]) ((String) command).split("\\s+"));
         }
-        if (timeout) {
-            if (value == 0) {
-                throw new NightingaleException(
+        TeeOutputStream tee = createTee(verbose, buffer, instance);
+
+        long start = System.nanoTime();
+        Object event = FlightEvents.begin(FlightEvents.Kind.PROCESS);
+        if (EventBus.isActive()) {
+            EventBus.publish(new BuildEvent.CommandSpawned(instance));
+        }
+        Integer exit = null;
+        try {
+            exit = runner.run(instance, tee);
+        } finally {
+            FlightEvents.commit(event, instance, null, exit);
+            if (EventBus.isActive()) {
+                EventBus.publish(new BuildEvent.CommandFinished(instance,
+                        exit, System.nanoTime() - start, buffer.size()));
+            }
+        }
+
+        logger.info(
+                DisplayUtils.displayOutputSeparator(
                         messages.getMessage(
-                                Messages.ERROR_RUN_TIMEOUT_INVALID_RANGE
+                                Messages.LOG_INFO_BEGIN_BUFFER
                         )
-                );
+                )
+        );
+        logger.info(buffer.toString());
+        logger.info(
+                DisplayUtils.displayOutputSeparator(
+                        messages.getMessage(
+                                Messages.LOG_INFO_END_BUFFER
+                        )
+                )
+        );
+
+        return exit;
+    }
+
+    /**
+     * Creates the stream the output of the provided command is written to,
+     * that is, the provided buffer, the standard output in verbose mode (or
+     * the output of the current document, in batch mode) and the event bus,
+     * when there are listeners.
+     * @param verbose A flag indicating whether the output is displayed.
+     * @param buffer The buffer.
+     * @param command The command.
+     * @return The stream.
+     */
+    private static TeeOutputStream createTee(boolean verbose,
+            OutputStream buffer, Object command) {
+        List<OutputStream> targets = new ArrayList<OutputStream>();
+        if (verbose) {
+            OutputStream output = (OutputStream) ConfigurationController.
+                    getInstance().
+                    get("execution.output");
+            targets.add(output != null ? output : System.out);
+        }
+        targets.add(buffer);
+        if (EventBus.isActive()) {
+            targets.add(new EventOutputStream(command));
+        }
+        return new TeeOutputStream(targets.toArray(
+                new OutputStream[targets.size()]));
+    }
+
+    /**
+     * Splits the provided commands into runs to be coalesced, that is,
+     * consecutive commands sharing everything but their last element, bounded
+     * by the argument length limit of the underlying operating system. Each
+     * run is a list of consecutive positions; a command which cannot be
+     * coalesced makes a run on its own.
+     * @param commands The commands.
+     * @return The runs of positions, in order.
+     */
+    public static List<List<Integer>> coalesce(List<Command> commands) {
+
+        // windows limits the whole command line to a
+        // few thousand characters when a shell is
+        // involved, while other systems only limit
+        // each argument to 128 KB and the whole
+        // argument list to much more than that
+        int limit = SystemUtils.IS_OS_WINDOWS ? 8191 : 131072;
+        List<List<Integer>> runs = new ArrayList<List<Integer>>();
+        int index = 0;
+        while (index < commands.size()) {
+            List<Integer> run = new ArrayList<Integer>();
+            run.add(index);
+            List<String> elements = commands.get(index).getElements();
+            if (elements.size() > 1) {
+                List<String> prefix = elements.subList(0,
+                        elements.size() - 1);
+                int length = 0;
+                for (String element : elements) {
+                    length = length + element.length() + 1;
+                }
+                while (index + 1 < commands.size()) {
+                    List<String> next = commands.get(index + 1).getElements();
+                    if ((next.size() != elements.size())
+                            || (!next.subList(0, next.size() - 1).
+                                    equals(prefix))) {
+                        break;
+                    }
+                    String argument = next.get(next.size() - 1);
+                    if (length + argument.length() + 1 > limit) {
+                        break;
+                    }
+                    length = length + argument.length() + 1;
+                    index++;
+                    run.add(index);
+                }
             }
-            executor = executor.timeout(value, unit);
+            runs.add(run);
+            index++;
         }
-        TeeOutputStream tee;
-        if (verbose) {
-            tee = new TeeOutputStream(System.out, buffer);
-            executor = executor.redirectInput(System.in);
-        } else {
-            tee = new TeeOutputStream(buffer);
+        return runs;
+    }
+
+    /**
+     * Merges the provided commands, which share everything but their last
+     * element, into a single command holding all their last elements.
+     * @param commands The commands.
+     * @return The merged command.
+     */
+    public static Command merge(List<Command> commands) {
+        List<String> elements = new ArrayList<String>(
+                commands.get(0).getElements());
+        for (Command command : commands.subList(1, commands.size())) {
+            elements.add(command.getElements().get(
+                    command.getElements().size() - 1));
         }
-        executor = executor.redirectOutput(tee).redirectError(tee);
+        return new Command(elements);
+    }
 
-        ShutdownHookProcessDestroyer hook = new ShutdownHookProcessDestroyer();
-        executor = executor.addDestroyer(hook);
+    /**
+     * Runs the pipeline in the underlying operating system. All stages are
+     * started at once, and the standard output of each stage is copied to
+     * the standard input of the next one as it is produced, so nothing is
+     * written to disk in between. The standard error of every stage and the
+     * standard output of the last one are handled as in system commands.
+     * @param pipeline The pipeline.
+     * @return A list of integer values representing the exit code of each
+     * stage, in order.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public static List<Integer> runPipeline(Pipeline pipeline)
+            throws NightingaleException {
+        boolean verbose = (Boolean) ConfigurationController.
+                getInstance().
+                get("execution.verbose");
+        boolean timeout = (Boolean) ConfigurationController.
+                getInstance().
+                get("execution.timeout");
+        long value = (Long) ConfigurationController.
+                getInstance().
+                get("execution.timeout.value");
+        TimeUnit unit = (TimeUnit) ConfigurationController.
+                getInstance().
+                get("execution.timeout.unit");
+        File directory = (File) ConfigurationController.
+                getInstance().
+                get("execution.directory");
+        @SuppressWarnings("unchecked")
+        Map<String, String> environment = (Map<String, String>)
+                ConfigurationController.
+                getInstance().
+                get("execution.environment");
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        if (timeout && (value == 0)) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_RUN_TIMEOUT_INVALID_RANGE
+                    )
+            );
+        }
+
+        // the stages are connected to each other
+        // outside the process runner, so there is
+        // nothing recorded to be replayed
+        if (CommonUtils.checkClass(ReplayRunner.class,
+                ConfigurationController.
+                        getInstance().
+                        get("execution.runner"))) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_RUN_PIPELINE_REPLAY
+                    )
+            );
+        }
+
+        LoggingController.init();
+        StopWatch.mark("first command");
 
+        // the process executor cannot connect one
+        // process to another, so the stages are
+        // started directly, and a couple of threads
+        // copy the streams in between
+        OutputStream tee = createTee(verbose, buffer, pipeline);
+        List<Process> processes = new ArrayList<Process>();
+        List<Thread> pumps = new ArrayList<Thread>();
+        List<IOException> failures = Collections.synchronizedList(
+                new ArrayList<IOException>());
+        long start = System.nanoTime();
+        Object event = FlightEvents.begin(FlightEvents.Kind.PROCESS);
+        if (EventBus.isActive()) {
+            EventBus.publish(new BuildEvent.CommandSpawned(pipeline));
+        }
+        List<Integer> exits = null;
         try {
-            int exit = executor.execute().getExitValue();
+            for (Command stage : pipeline.getStages()) {
+                ProcessBuilder builder = new ProcessBuilder(
+                        stage.getElements());
+                builder.directory(directory);
+                builder.environment().putAll(environment);
+                Process process = builder.start();
+                ProcessController.getInstance().add(process);
+                if (processes.isEmpty()) {
+                    process.getOutputStream().close();
+                } else {
+                    pumps.add(pump(processes.get(processes.size() - 1).
+                            getInputStream(), process.getOutputStream(),
+                            true, failures));
+                }
+                pumps.add(pump(process.getErrorStream(), tee, false,
+                        failures));
+                processes.add(process);
+            }
+            pumps.add(pump(processes.get(processes.size() - 1).
+                    getInputStream(), tee, false, failures));
+
+            long deadline = System.nanoTime() + (timeout
+                    ? unit.toNanos(value) : 0);
+            exits = new ArrayList<Integer>();
+            for (Process process : processes) {
+                if (timeout) {
+                    Thread waiter = await(process);
+                    waiter.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(
+                            deadline - System.nanoTime())));
+                    if (waiter.isAlive()) {
+                        throw new NightingaleException(
+                                messages.getMessage(
+                                        Messages.ERROR_RUN_TIMEOUT_EXCEPTION
+                                ),
+                                new TimeoutException()
+                        );
+                    }
+                } else {
+                    process.waitFor();
+                }
+                exits.add(process.exitValue());
+            }
+            for (Thread thread : pumps) {
+                thread.join();
+            }
 
             logger.info(
                     DisplayUtils.displayOutputSeparator(
@@ -525,7 +833,15 @@ public class InterpreterUtils {
                     )
             );
 
-            return exit;
+            if (!failures.isEmpty()) {
+                throw new NightingaleException(
+                        messages.getMessage(
+                                Messages.ERROR_RUN_PIPELINE_IO_EXCEPTION
+                        ),
+                        failures.get(0)
+                );
+            }
+            return exits;
         } catch (IOException ioexception) {
             throw new NightingaleException(
                     messages.getMessage(
@@ -540,41 +856,99 @@ public class InterpreterUtils {
                     ),
                     iexception
             );
-        } catch (InvalidExitValueException ievexception) {
-            throw new NightingaleException(
-                    messages.getMessage(
-                            Messages.ERROR_RUN_INVALID_EXIT_VALUE_EXCEPTION
-                    ),
-                    ievexception
-            );
-        } catch (TimeoutException texception) {
-            throw new NightingaleException(
-                    messages.getMessage(
-                            Messages.ERROR_RUN_TIMEOUT_EXCEPTION
-                    ),
-                    texception
-            );
-        } catch (Exception exception) {
-            throw new NightingaleException(
-                    messages.getMessage(
-                            Messages.ERROR_RUN_GENERIC_EXCEPTION
-                    ),
-                    exception
-            );
+        } finally {
+
+            // stages still running at this point were
+            // interrupted, timed out or left behind by
+            // a failed stage start
+            for (Process process : processes) {
+                process.destroy();
+                ProcessController.getInstance().remove(process);
+            }
+            FlightEvents.commit(event, pipeline, null, exits);
+            if (EventBus.isActive()) {
+                EventBus.publish(new BuildEvent.CommandFinished(pipeline,
+                        exits, System.nanoTime() - start, buffer.size()));
+            }
         }
     }
 
+    /**
+     * Starts a thread which copies the provided input stream to the provided
+     * output stream until the input stream is exhausted.
+     * @param input The input stream.
+     * @param output The output stream.
+     * @param close A boolean value indicating if the output stream should be
+     * closed at the end, signalling the end of the input to the next stage.
+     * @param failures The list of failures, to which an IO error is added,
+     * unless it is a broken pipe between stages.
+     * @return The thread.
+     */
+    private static Thread pump(final InputStream input,
+            final OutputStream output, final boolean close,
+            final List<IOException> failures) {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    IOUtils.copy(input, output);
+                } catch (IOException ioexception) {
+
+                    // a stage which stops reading its input
+                    // breaks the pipe, as in a shell, so the
+                    // previous stage is cut off as well; the
+                    // exit values tell what happened
+                    if (close) {
+                        IOUtils.closeQuietly(input);
+                    } else {
+                        failures.add(ioexception);
+                    }
+                } finally {
+                    if (close) {
+                        IOUtils.closeQuietly(output);
+                    }
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Starts a thread which waits for the provided process, so the process
+     * can be waited for with a timeout by joining the thread.
+     * @param process The process.
+     * @return The thread, which ends as soon as the process exits.
+     */
+    private static Thread await(final Process process) {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    process.waitFor();
+                } catch (InterruptedException iexception) {
+                    // nothing to do, the process
+                    // is not waited for anymore
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
     /**
      * Checks if the rule version is compatible with the application version.
-     * @param holder The rule header map.
+     * @param rule The rule.
      * @throws NightingaleException 
      */
-    public static void checkVersion(Object holder)
+    public static void checkVersion(Rule rule)
             throws NightingaleException {
         BigDecimal current = (BigDecimal) ConfigurationController.
                 getInstance().
                 get("application.version");
-        BigDecimal version = (BigDecimal) ((Map) holder).get("requires");
+        BigDecimal version = rule.getRequires();
         if (version.compareTo(current) > 0) {
             throw new NightingaleException(
                     messages.getMessage(
@@ -594,26 +968,6 @@ public class InterpreterUtils {
         }
     }
 
-    /**
-     * Gets the rule name from the rule header map.
-     * @param holder The rule header map.
-     * @return The rule name.
-     */
-    public static String getRuleName(Object holder) {
-        return (String) ((Map) holder).get("name");
-    }
-
-    /**
-     * Gets the list of authors from the rule header map.
-     * @param holder The rule header map.
-     * @return The list of authors.
-     */
-    public static List<String> getAuthors(Object holder) {
-        @SuppressWarnings("unchecked")
-        List<String> authors = (List<String>) ((Map) holder).get("authors");
-        return authors;
-    }
-
     /**
      * Checks if the current conditional has a prior evaluation.
      * @param conditional The current conditional object.
@@ -637,6 +991,60 @@ public class InterpreterUtils {
         }
     }
 
+    /**
+     * Gets the rule files referenced by the provided directives, in order of
+     * appearance and without repetitions. Native rules have no files, and
+     * rules which could not be found are simply left out, since the
+     * interpreter reports them later on.
+     * @param directives The list of directives.
+     * @return The list of rule files.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public static List<File> getRuleFiles(List<Directive> directives)
+            throws NightingaleException {
+        Set<String> identifiers = new LinkedHashSet<String>();
+        for (Directive directive : directives) {
+            identifiers.add(directive.getIdentifier());
+        }
+        List<File> result = new ArrayList<File>();
+        for (String identifier : identifiers) {
+            if (RuleController.getInstance().isNative(identifier)) {
+                continue;
+            }
+            File file = buildRulePath(identifier);
+            if (file != null) {
+                result.add(file);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the identifiers of the available rules which are similar to the
+     * provided one, that is, within a small edit distance, closest first.
+     * @param identifier The rule identifier.
+     * @return A list of similar rule identifiers, at most three of them.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public static List<String> getSimilarRules(String identifier)
+            throws NightingaleException {
+        List<String> result = new ArrayList<String>();
+        for (int distance = 1; distance <= 2; distance++) {
+            for (String candidate : RuleController.
+                    getInstance().
+                    getIdentifiers()) {
+                if ((result.size() < 3) && (StringUtils.
+                        getLevenshteinDistance(identifier, candidate)
+                        == distance)) {
+                    result.add(candidate);
+                }
+            }
+        }
+        return result;
+    }
+
     /**
      * Builds the rule path based on the rule name and returns the corresponding
      * file location.
@@ -646,17 +1054,7 @@ public class InterpreterUtils {
      * the higher levels.
      */
     public static File buildRulePath(String name) throws NightingaleException {
-        @SuppressWarnings("unchecked")
-        List<String> paths = (List<String>) ConfigurationController.
-                getInstance().
-                get("execution.rule.paths");
-        for (String path : paths) {
-            File location = new File(construct(path, name));
-            if (location.exists()) {
-                return location;
-            }
-        }
-        return null;
+        return RuleController.getInstance().getRule(name);
     }
 
     /**
@@ -709,19 +1107,15 @@ public class InterpreterUtils {
     }
 
     /**
-     * Gets the list of arguments from the rule header map, plus the reserved
-     * keywords.
-     * @param holder The rule header map.
-     * @return A list of arguments found in the rule header map plus the
-     * reserved keywords.
+     * Gets the list of rule arguments, plus the reserved keywords.
+     * @param rule The rule.
+     * @return A list of rule arguments plus the reserved keywords.
      * @throws NightingaleException Something wrong happened, to be caught in
      * the higher levels.
      */
-    @SuppressWarnings("unchecked")
-    public static List<String> getRuleArguments(Object holder)
+    public static List<String> getRuleArguments(Rule rule)
             throws NightingaleException {
-        Map map = (Map) holder;
-        List<String> arguments = (List<String>) map.get("arguments");
+        List<String> arguments = new ArrayList<String>(rule.getArguments());
         arguments.add("file");
         return arguments;
     }
@@ -0,0 +1,215 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.utils;
+
+import com.github.cereda.nightingale.controller.CompilerController;
+import com.github.cereda.nightingale.controller.LanguageController;
+import com.github.cereda.nightingale.model.Messages;
+import com.github.cereda.nightingale.model.NightingaleException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.Properties;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.SourceUnit;
+
+/**
+ * Implements rule library utilitary methods. The rule library holds rules
+ * compiled at build time, together with an index mapping each rule identifier
+ * to its class name and to the hash of the source it was compiled from. A
+ * precompiled rule is only used when the rule file found in the rule paths
+ * has the very same hash, so an edited or overridden rule is still compiled
+ * at runtime.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class LibraryUtils {
+
+    // the application messages obtained from the
+    // language controller
+    private static final LanguageController messages =
+            LanguageController.getInstance();
+
+    // the location of the index inside the rule
+    // library, relative to the class path root
+    private static final String INDEX = "META-INF/nightingale/rules.properties";
+
+    // the index of all rule libraries available
+    // in the class path, loaded on demand
+    private static Properties index = null;
+
+    /**
+     * Gets the precompiled class of the provided rule file, if the rule
+     * library has one compiled from the very same source.
+     * @param file The rule file.
+     * @return The precompiled class, or null if there is none.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public static Class getRule(File file) throws NightingaleException {
+        String identifier = CommonUtils.getBasename(file);
+        Properties properties = getIndex();
+        String name = properties.getProperty(identifier.concat(".class"));
+        String hash = properties.getProperty(identifier.concat(".hash"));
+        if ((name == null) || (hash == null)
+                || (!hash.equals(CommonUtils.calculateHash(file)))) {
+            return null;
+        }
+        try {
+            return Class.forName(name, true,
+                    LibraryUtils.class.getClassLoader());
+        } catch (ClassNotFoundException cnfexception) {
+            return null;
+        } catch (LinkageError lerror) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets the index of all rule libraries available in the class path. When
+     * a rule shows up in more than one library, the first one wins.
+     * @return The index.
+     */
+    private static synchronized Properties getIndex() {
+        if (index == null) {
+            index = new Properties();
+            try {
+                Enumeration<URL> resources = LibraryUtils.class.
+                        getClassLoader().
+                        getResources(INDEX);
+                while (resources.hasMoreElements()) {
+                    Properties properties = new Properties();
+                    InputStream stream = null;
+                    try {
+                        stream = resources.nextElement().openStream();
+                        properties.load(stream);
+                    } finally {
+                        IOUtils.closeQuietly(stream);
+                    }
+                    for (String key : properties.stringPropertyNames()) {
+                        if (!index.containsKey(key)) {
+                            index.setProperty(key,
+                                    properties.getProperty(key));
+                        }
+                    }
+                }
+            } catch (IOException ioexception) {
+                // the library is just a shortcut
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Compiles all rules found in the provided directory into the provided
+     * output directory and writes the corresponding index. This method is
+     * meant to be called at build time, when packaging the rule library.
+     * @param source The directory containing the rule files.
+     * @param output The output directory.
+     * @return The number of rules compiled.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public static int compile(File source, File output)
+            throws NightingaleException {
+        File[] files = source.listFiles();
+        if (files == null) {
+            files = new File[0];
+        }
+        Arrays.sort(files);
+        Properties properties = new Properties();
+        int count = 0;
+        for (File file : files) {
+            if (file.isFile() && file.getName().endsWith(".groovy")) {
+                String identifier = CommonUtils.getBasename(file);
+
+                // each rule is compiled on its own, exactly
+                // as the compiler controller would do it at
+                // runtime, so the main class is the first
+                // one in the source, either the script class
+                // named after the rule file or a typed rule
+                CompilerConfiguration configuration = CompilerController.
+                        createConfiguration(CompilerController.RULE_BASE);
+                configuration.setTargetDirectory(output);
+                CompilationUnit unit = new CompilationUnit(configuration);
+                SourceUnit unitSource = unit.addSource(file);
+                try {
+                    unit.compile();
+                } catch (CompilationFailedException cfexception) {
+                    throw new NightingaleException(
+                            messages.getMessage(
+                                    Messages.ERROR_LIBRARY_COMPILATION_FAILED,
+                                    file.getName()
+                            ),
+                            cfexception
+                    );
+                }
+                properties.setProperty(identifier.concat(".class"),
+                        unitSource.getAST().getClasses().get(0).getName());
+                properties.setProperty(identifier.concat(".hash"),
+                        CommonUtils.calculateHash(file));
+                count++;
+            }
+        }
+
+        OutputStream stream = null;
+        try {
+            File file = new File(output, INDEX);
+            FileUtils.forceMkdir(file.getParentFile());
+            stream = new FileOutputStream(file);
+            properties.store(stream, null);
+        } catch (IOException ioexception) {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_LIBRARY_IO_EXCEPTION
+                    ),
+                    ioexception
+            );
+        } finally {
+            IOUtils.closeQuietly(stream);
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,263 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.utils;
+
+import com.github.cereda.nightingale.controller.LanguageController;
+import com.github.cereda.nightingale.model.Messages;
+import com.github.cereda.nightingale.model.NightingaleException;
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implements rule utilitary methods. These are the helper methods available
+ * to rules, shared by rule scripts and typed rules, which only differ in the
+ * way they reach the rule parameters.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class RuleUtils {
+
+    // the application messages obtained from the
+    // language controller
+    private static final LanguageController messages =
+            LanguageController.getInstance();
+
+    // these are the rule parameters, set as an static
+    // attribute in order to avoid the explicit need
+    // to call a setter in the rule context; they are
+    // kept per thread, so concurrent builds do not
+    // see each other's parameters
+    private static final ThreadLocal<Map<String, Object>> parameters =
+            new ThreadLocal<Map<String, Object>>();
+
+    /**
+     * Sets the parameters of the rule about to run in the current thread.
+     * @param parameters A map containing the rule parameters.
+     */
+    public static void setParameters(Map<String, Object> parameters) {
+        RuleUtils.parameters.set(parameters);
+    }
+
+    /**
+     * Gets the parameters of the rule running in the current thread.
+     * @return A map containing the rule parameters.
+     */
+    public static Map<String, Object> getParameters() {
+        return parameters.get();
+    }
+
+    /**
+     * Checks if every key in the array of strings is available in the
+     * parameters map.
+     * @param parameters The rule parameters.
+     * @param keys Array of strings containing the keys to be analyzed.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public static void required(Map<String, Object> parameters,
+            String... keys) throws NightingaleException {
+        for (String key : keys) {
+            if (!parameters.containsKey(key)) {
+                throw new NightingaleException(
+                        CommonUtils.getRuleErrorHeader().
+                        concat(messages.getMessage(
+                                Messages.ERROR_REQUIRED_INVALID_KEY,
+                                key
+                        ))
+                );
+            }
+        }
+    }
+
+    /**
+     * Ensures that, if not defined, the key will hold at least the provided
+     * object value.
+     * @param parameters The rule parameters.
+     * @param key The key.
+     * @param value The object value.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public static void ensure(Map<String, Object> parameters, String key,
+            Object value) throws NightingaleException {
+        if (CommonUtils.isValidArgumentKey(key)) {
+            if (!parameters.containsKey(key)) {
+                parameters.put(key, value);
+            }
+        } else {
+            throw new NightingaleException(
+                    messages.getMessage(
+                            Messages.ERROR_ENSURE_UNKNOWN_KEY,
+                            key
+                    )
+            );
+        }
+    }
+
+    /**
+     * Ensure that, if not defined, the list of keys will hold at least their
+     * corresponding object values.
+     * @param parameters The rule parameters.
+     * @param keys The list of keys.
+     * @param values The list of object values.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public static void ensure(Map<String, Object> parameters,
+            List<String> keys, List<Object> values)
+            throws NightingaleException {
+        if (keys.size() != values.size()) {
+            throw new NightingaleException(
+                    CommonUtils.getRuleErrorHeader().
+                    concat(messages.getMessage(
+                            Messages.ERROR_ENSURE_DIFFERENT_SIZES,
+                            keys.size(),
+                            values.size())
+                    )
+            );
+        } else {
+            for (int i = 0; i < keys.size(); i++) {
+                ensure(parameters, keys.get(i), values.get(i));
+            }
+        }
+    }
+
+    /**
+     * Obtains the object value indexed by the provided key.
+     * @param parameters The rule parameters.
+     * @param key The key.
+     * @return The object value indexed by the provided key.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public static Object obtain(Map<String, Object> parameters, String key)
+            throws NightingaleException {
+        if (!parameters.containsKey(key)) {
+            throw new NightingaleException(
+                    CommonUtils.getRuleErrorHeader().
+                    concat(messages.getMessage(
+                            Messages.ERROR_OBTAIN_INVALID_KEY,
+                            key)
+                    )
+            );
+        } else {
+            return parameters.get(key);
+        }
+    }
+
+    /**
+     * Check if the provided key holds the provided boolean value.
+     * @param parameters The rule parameters.
+     * @param expected The provided boolean value.
+     * @param key The provided key.
+     * @return A boolean value indicating if the key holds the provided boolean
+     * value.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public static boolean check(Map<String, Object> parameters,
+            boolean expected, String key) throws NightingaleException {
+        if (!parameters.containsKey(key)) {
+            throw new NightingaleException(
+                    CommonUtils.getRuleErrorHeader().
+                    concat(messages.getMessage(
+                            Messages.ERROR_CHECK_INVALID_KEY,
+                            key)
+                    )
+            );
+        } else {
+            Object value = parameters.get(key);
+            if (value instanceof Boolean) {
+                return (expected == (Boolean) value);
+            } else {
+                if (value instanceof String) {
+                    return (expected ==
+                            CommonUtils.checkBoolean((String) value));
+                } else {
+                    throw new NightingaleException(
+                            CommonUtils.getRuleErrorHeader().
+                            concat(messages.getMessage(
+                                    Messages.ERROR_CHECK_UNKNOWN_TYPE,
+                                    key)
+                            )
+                    );
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the basename of the provided file.
+     * @param file The provided file.
+     * @return A string representing the base name of the provided file.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public static String basename(File file) throws NightingaleException {
+        if (file.isFile()) {
+            return CommonUtils.getBasename(file);
+        } else {
+            throw new NightingaleException(
+                    CommonUtils.getRuleErrorHeader().
+                    concat(messages.getMessage(
+                            Messages.ERROR_BASENAME_NOT_A_FILE,
+                            file.getName())
+                    )
+            );
+        }
+    }
+
+    /**
+     * Obtains the file type of the provided file.
+     * @param file The file.
+     * @return A string representing the file type of the provided file.
+     * @throws NightingaleException Something wrong happened, to be caught in
+     * the higher levels.
+     */
+    public static String filetype(File file) throws NightingaleException {
+        if (file.isFile()) {
+            return CommonUtils.getFiletype(file);
+        } else {
+            throw new NightingaleException(CommonUtils.getRuleErrorHeader().
+                    concat(messages.getMessage(
+                            Messages.ERROR_FILETYPE_NOT_A_FILE,
+                            file.getName())
+                    )
+            );
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Implements scheduling utilitary methods. Parallel schedulers start the
+ * longest work first (the so called longest processing time rule), which
+ * avoids leaving a long build to the very end while other jobs are idle.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class SchedulingUtils {
+
+    /**
+     * Orders the provided work, longest estimate first. Work with the same
+     * estimate keeps its original order.
+     * @param <T> The work type.
+     * @param work The list of work.
+     * @param estimates The map of estimates.
+     * @return A new list with the work ordered.
+     */
+    public static <T> List<T> order(List<T> work,
+            final Map<T, Long> estimates) {
+        List<T> result = new ArrayList<T>(work);
+        Collections.sort(result, new Comparator<T>() {
+            public int compare(T first, T second) {
+                return Long.valueOf(getEstimate(estimates, second)).
+                        compareTo(getEstimate(estimates, first));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Predicts the makespan of the provided estimates, that is, the time
+     * needed to process all of them with the provided number of jobs, when
+     * started longest first and each one assigned to the least loaded job.
+     * @param estimates The estimates.
+     * @param jobs The number of jobs.
+     * @return The predicted makespan.
+     */
+    public static long makespan(Collection<Long> estimates, int jobs) {
+        List<Long> values = new ArrayList<Long>(estimates);
+        Collections.sort(values, Collections.reverseOrder());
+        return schedule(values, jobs);
+    }
+
+    /**
+     * Predicts the makespan of the provided estimates when started in the
+     * provided order, each one assigned to the least loaded job.
+     * @param estimates The estimates, in the order they are started.
+     * @param jobs The number of jobs.
+     * @return The predicted makespan.
+     */
+    public static long schedule(List<Long> estimates, int jobs) {
+        PriorityQueue<Long> loads = new PriorityQueue<Long>();
+        for (int i = 0; i < Math.max(1, jobs); i++) {
+            loads.add(0L);
+        }
+        long result = 0;
+        for (Long value : estimates) {
+            long load = loads.poll() + value;
+            result = Math.max(result, load);
+            loads.add(load);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the estimate of the provided work.
+     * @param <T> The work type.
+     * @param estimates The map of estimates.
+     * @param work The work.
+     * @return The estimate, or zero if there is none.
+     */
+    private static <T> long getEstimate(Map<T, Long> estimates, T work) {
+        Long value = estimates.get(work);
+        return value == null ? 0 : value;
+    }
+
+}
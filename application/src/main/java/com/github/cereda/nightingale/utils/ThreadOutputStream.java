@@ -0,0 +1,139 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ *
+ * Redistribution and  use in source  and binary forms, with  or without
+ * modification, are  permitted provided  that the  following conditions
+ * are met:
+ *
+ * 1. Redistributions  of source  code must  retain the  above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form  must reproduce the above copyright
+ * notice, this list  of conditions and the following  disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither  the name  of the  project's author nor  the names  of its
+ * contributors may be used to  endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE COPYRIGHT  HOLDERS AND CONTRIBUTORS
+ * "AS IS"  AND ANY  EXPRESS OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED  TO, THE  IMPLIED WARRANTIES  OF MERCHANTABILITY  AND FITNESS
+ * FOR  A PARTICULAR  PURPOSE  ARE  DISCLAIMED. IN  NO  EVENT SHALL  THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE  LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY,  OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT  NOT LIMITED  TO, PROCUREMENT  OF SUBSTITUTE  GOODS OR  SERVICES;
+ * LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION)  HOWEVER
+ * CAUSED AND  ON ANY THEORY  OF LIABILITY, WHETHER IN  CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY  OUT  OF  THE USE  OF  THIS  SOFTWARE,  EVEN  IF ADVISED  OF  THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.cereda.nightingale.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Implements a stream which keeps the output of each capturing thread in its
+ * own buffer, so concurrent builds do not mix their output. Threads which are
+ * not capturing write directly to the underlying stream.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class ThreadOutputStream extends OutputStream {
+
+    // the underlying stream, used
+    // by threads not capturing
+    private final OutputStream stream;
+
+    // the buffer of the current
+    // thread, if capturing
+    private final ThreadLocal<ByteArrayOutputStream> buffer =
+            new ThreadLocal<ByteArrayOutputStream>();
+
+    /**
+     * Constructor.
+     * @param stream The underlying stream.
+     */
+    public ThreadOutputStream(OutputStream stream) {
+        this.stream = stream;
+    }
+
+    /**
+     * Starts capturing the output of the current thread.
+     */
+    public void capture() {
+        buffer.set(new ByteArrayOutputStream());
+    }
+
+    /**
+     * Stops capturing the output of the current thread.
+     * @return The output captured so far.
+     */
+    public byte[] release() {
+        ByteArrayOutputStream current = buffer.get();
+        buffer.remove();
+        return current == null ? new byte[0] : current.toByteArray();
+    }
+
+    /**
+     * Gets the stream the current thread actually writes to, so other
+     * threads working on its behalf (e.g, the ones pumping the output of a
+     * system command) can write there as well.
+     * @return The buffer of the current thread, if capturing, or this very
+     * stream otherwise.
+     */
+    public OutputStream getTarget() {
+        ByteArrayOutputStream current = buffer.get();
+        return current != null ? current : this;
+    }
+
+    /**
+     * Writes the provided integer.
+     * @param b The provided integer.
+     * @throws IOException An IO exception.
+     */
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{ (byte) b }, 0, 1);
+    }
+
+    /**
+     * Writes the provided byte array, with the provided offset and length,
+     * either to the buffer of the current thread or to the underlying stream.
+     * @param b The byte array.
+     * @param offset The offset.
+     * @param length The length.
+     * @throws IOException An IO exception.
+     */
+    @Override
+    public void write(byte[] b, int offset, int length) throws IOException {
+        ByteArrayOutputStream current = buffer.get();
+        if (current != null) {
+            current.write(b, offset, length);
+        } else {
+            synchronized (stream) {
+                stream.write(b, offset, length);
+            }
+        }
+    }
+
+    /**
+     * Flushes the underlying stream.
+     * @throws IOException An IO exception.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (buffer.get() == null) {
+            synchronized (stream) {
+                stream.flush();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,27 @@
+@echo off
+rem
+rem Nightingale launcher. When a class data sharing archive generated through
+rem 'nightingale --generate-cds' is found next to the application jar file, the
+rem virtual machine maps it at startup instead of loading and verifying all the
+rem application classes again. A stale or incompatible archive is just ignored.
+rem Builds are forwarded to a daemon started with 'nightingale --daemon', if
+rem there is one running; otherwise, they run in this virtual machine.
+rem
+
+setlocal
+set APPLICATION=%~dp0nightingale-${project.version}.jar
+set ARCHIVE=%~dp0nightingale.jsa
+set CLIENT=com.github.cereda.nightingale.Client
+
+if defined JAVA_HOME (
+    set JAVA="%JAVA_HOME%\bin\java"
+) else (
+    set JAVA=java
+)
+
+if exist "%ARCHIVE%" (
+    %JAVA% -XX:+UnlockDiagnosticVMOptions -XX:SharedArchiveFile="%ARCHIVE%" -Xshare:auto -cp "%APPLICATION%" %CLIENT% %*
+) else (
+    %JAVA% -cp "%APPLICATION%" %CLIENT% %*
+)
+endlocal
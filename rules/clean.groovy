@@ -4,8 +4,6 @@
  * All rights reserved.
  */
 
-import com.github.cereda.nightingale.model.Command
-
 rule = [
     id : "clean",
     name : "Clean",
@@ -23,21 +21,13 @@ commands = [
         command : {
 
 		def file = obtain('file')
-		def prefix = []
-
-		if (operatingsystem('unix')) {
-			prefix = [ 'rm', '-rf' ]
-		}
-		else {
-			prefix = [ 'cmd', '/c', 'del' ]
-		}
 
 		if (undefined('extensions')) {
 			if (file == reference()) {
 				error("I am sorry, but I cannot remove the main file reference.")
 			}
 
-			return new Command(prefix, filename(file))
+			return delete(filename(file))
 		}
 		else {
 			def extensions = obtain('extensions')
@@ -49,10 +39,10 @@ commands = [
 			def element = basename(file)
 
 			for (extension in extensions) {
-				removals.add(new Command(prefix, "${element}.${extension}"))
+				removals.add("${element}.${extension}")
 			}
 
-			return removals
+			return delete(removals)
 
 		}
 
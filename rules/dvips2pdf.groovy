@@ -0,0 +1,55 @@
+/**
+ * Nightingale
+ * Copyright (c) 2014, Paulo Roberto Massa Cereda 
+ * All rights reserved.
+ */
+
+import com.github.cereda.nightingale.model.Command
+
+rule = [
+    id : "dvips2pdf",
+    name : "DVIPS2PDF",
+    arguments : [ "dvipsoptions", "ps2pdfoptions", "output" ],
+    description : "DVIPS piped into PS2PDF, with no intermediate PostScript file",
+    authors : [
+	"Marco Daniel",
+	"Paulo Cereda"
+    ],
+    requires : 1.0
+]
+
+commands = [
+    [
+        name : "DVIPS2PDF",
+        command : {
+
+		ensure('output', basename(obtain('file')))
+
+		def file = "${basename(obtain('file'))}.dvi"
+		def output = "${obtain('output')}.pdf"
+		def dvipsoptions = ''
+		def ps2pdfoptions = ''
+
+		if (defined('dvipsoptions')) {
+			dvipsoptions = obtain('dvipsoptions')
+			if (!(dvipsoptions instanceof List)) {
+				error("I am sorry, but I was expecting a list when using the 'dvipsoptions' argument.")
+			}
+		}
+
+		if (defined('ps2pdfoptions')) {
+			ps2pdfoptions = obtain('ps2pdfoptions')
+			if (!(ps2pdfoptions instanceof List)) {
+				error("I am sorry, but I was expecting a list when using the 'ps2pdfoptions' argument.")
+			}
+		}
+
+		return pipe(
+			new Command('dvips', file, '-o', '-', dvipsoptions),
+			new Command('ps2pdf', ps2pdfoptions, '-', output)
+		)
+
+	},
+        exit : { value -> return value == 0 }
+    ]
+]
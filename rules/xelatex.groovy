@@ -47,7 +47,7 @@ commands = [
 			}
 		}
 
-		return bnew Command('xelatex', interaction, draft, shell, synctex, options, file)
+		return new Command('xelatex', interaction, draft, shell, synctex, options, file)
 
 	},
         exit : { value -> return value == 0 }